@@ -0,0 +1,33 @@
+#!/bin/sh
+# Runs the JMH suite once per JDK and stores the results as benchmarks/results/jdk-<version>.json,
+# so the toolsBySp-8/11/17/21 builds can be compared between releases.
+#
+# Usage: benchmarks/run-all.sh [JMH options...]
+# Set JDK8_HOME, JDK11_HOME, JDK17_HOME and/or JDK21_HOME to the JDKs to run; missing ones are skipped.
+set -e
+
+cd "$(dirname "$0")/.."
+mkdir -p benchmarks/results
+
+for version in 8 11 17 21; do
+    eval "home=\${JDK${version}_HOME}"
+    if [ -z "$home" ]; then
+        echo "JDK${version}_HOME not set, skipping Java $version"
+        continue
+    fi
+
+    echo "=== Java $version ($home) ==="
+    profile=""
+    jvmArgs=""
+    if [ "$version" != "8" ]; then
+        profile="-Pjava-$version"
+    fi
+    if [ "$version" = "21" ]; then
+        jvmArgs="--add-modules=jdk.incubator.vector" # Enables the Vector API checksum kernel
+    fi
+    JAVA_HOME="$home" mvn -B -q $profile install -DskipTests
+    JAVA_HOME="$home" mvn -B -q -f benchmarks/pom.xml package -Djava.release="$version"
+    "$home/bin/java" -jar benchmarks/target/benchmarks.jar \
+        ${jvmArgs:+-jvmArgsAppend "$jvmArgs"} \
+        -rf json -rff "benchmarks/results/jdk-$version.json" "$@"
+done
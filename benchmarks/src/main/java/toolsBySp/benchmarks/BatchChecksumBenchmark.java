@@ -0,0 +1,76 @@
+package toolsBySp.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import toolsBySp.BatchChecksumUtils;
+import toolsBySp.ChecksumUtils;
+
+/**
+ * Compares {@link BatchChecksumUtils} with a loop over {@link ChecksumUtils} on 64K 16-digit card
+ * numbers, either newline-separated or padded to wider records. The vectorized kernel is only used
+ * on Java 21 when the forked JVM gets {@code --add-modules jdk.incubator.vector}, which run-all.sh passes.
+ *
+ * @author Samuel Pestana
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchChecksumBenchmark {
+
+    private static final int RECORDS = 64 * 1024;
+    private static final int LENGTH = 16;
+
+    /** The distance between records: a line feed after each number, or padding up to a wider record. */
+    @Param({ "17", "32", "48", "64" })
+    public int stride;
+
+    private final BatchChecksumUtils batch = new BatchChecksumUtils();
+    private final ChecksumUtils checksums = new ChecksumUtils();
+    private final boolean[] results = new boolean[RECORDS];
+    private byte[] data;
+
+    @Setup
+    public void setUp() {
+        data = new byte[RECORDS * stride];
+        Random random = new Random(42);
+        for (int i = 0; i < RECORDS; i++) {
+            for (int j = 0; j < LENGTH; j++) {
+                data[i * stride + j] = (byte) ('0' + random.nextInt(10));
+            }
+            data[i * stride + stride - 1] = '\n';
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int batchCreditCards() {
+        return batch.validateCreditCards(data, 0, LENGTH, stride, RECORDS, results);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int scalarCreditCards() {
+        int valid = 0;
+        for (int i = 0; i < RECORDS; i++) {
+            if (checksums.isValidCreditCard(data, i * stride, LENGTH)) valid++;
+        }
+        return valid;
+    }
+}
@@ -0,0 +1,63 @@
+package toolsBySp.benchmarks;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import toolsBySp.DateUtils;
+import toolsBySp.InputUtils;
+
+/**
+ * Measures {@link InputUtils#formatDate(LocalDate, String)} and the ISO fast path of {@link DateUtils},
+ * against building a formatter on every call as a baseline.
+ *
+ * @author Samuel Pestana
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateFormatBenchmark {
+
+    private final InputUtils input = new InputUtils();
+    private final DateUtils dates = new DateUtils();
+    private LocalDate date = LocalDate.of(2024, 2, 29);
+    private String isoText = "2024-02-29";
+
+    @Benchmark
+    public String formatDate() {
+        return input.formatDate(date, "dd/MM/yyyy");
+    }
+
+    @Benchmark
+    public String formatDateIso() {
+        return input.formatDate(date, "yyyy-MM-dd");
+    }
+
+    @Benchmark
+    public String formatDateUncachedBaseline() {
+        return date.format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+    }
+
+    @Benchmark
+    public LocalDate parseIsoDate() {
+        return dates.parseIsoDate(isoText);
+    }
+
+    @Benchmark
+    public LocalDate parseIsoDateBaseline() {
+        return LocalDate.parse(isoText, DateTimeFormatter.ISO_LOCAL_DATE);
+    }
+}
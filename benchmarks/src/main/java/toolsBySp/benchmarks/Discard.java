@@ -0,0 +1,45 @@
+package toolsBySp.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+
+/**
+ * Output targets that throw everything away, so the benchmarks measure the library and not the terminal.
+ * (The JDK only offers these from Java 11 onwards, and the benchmarks also run on Java 8.)
+ *
+ * @author Samuel Pestana
+ */
+final class Discard {
+
+    private Discard() {
+    }
+
+    static PrintStream printStream() {
+        return new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+    }
+
+    static Writer writer() {
+        return new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
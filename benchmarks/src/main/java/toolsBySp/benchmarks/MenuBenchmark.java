@@ -0,0 +1,108 @@
+package toolsBySp.benchmarks;
+
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import toolsBySp.FastInput;
+import toolsBySp.MenuIndex;
+import toolsBySp.MenuUtils;
+
+/**
+ * Measures rendering a menu with {@link MenuUtils#displayMenu(String[])} and reading the choice,
+ * rendering the first page of a paged menu and finding options with a {@link MenuIndex}.
+ * The standard output is redirected to a stream that discards everything, so the benchmark
+ * measures the library rather than the terminal.
+ *
+ * @author Samuel Pestana
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MenuBenchmark {
+
+    @Param({ "10", "1000", "50000" })
+    public int options;
+
+    private String[] labels;
+    private MenuIndex index;
+    private MenuUtils menu;
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void createMenu() {
+        labels = new String[options];
+        for (int i = 0; i < options; i++) {
+            labels[i] = "Option number " + (i + 1);
+        }
+        index = new MenuIndex(labels);
+        menu = new MenuUtils(new FastInput(new RepeatingAnswer("1\n")));
+        originalOut = System.out;
+        System.setOut(Discard.printStream());
+    }
+
+    @TearDown(Level.Trial)
+    public void restoreOutput() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public int displayMenu() {
+        return menu.displayMenu(labels);
+    }
+
+    @Benchmark
+    public int displayPagedMenu() {
+        return menu.displayMenu(index);
+    }
+
+    @Benchmark
+    public int[] searchSubstring() {
+        return index.search("number 99", 20);
+    }
+
+    /**
+     * An endless stream that repeats the same answer.
+     */
+    private static final class RepeatingAnswer extends InputStream {
+        private final byte[] answer;
+        private int position;
+
+        RepeatingAnswer(String answer) {
+            this.answer = answer.getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public int read() {
+            int b = answer[position];
+            position = (position + 1) % answer.length;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            for (int i = 0; i < len; i++) {
+                b[off + i] = (byte) read();
+            }
+            return len;
+        }
+    }
+}
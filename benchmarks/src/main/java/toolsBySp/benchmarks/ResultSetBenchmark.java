@@ -0,0 +1,100 @@
+package toolsBySp.benchmarks;
+
+import java.io.PrintStream;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import toolsBySp.DatabaseUtils;
+
+/**
+ * Measures {@link DatabaseUtils#showResultSetData(ResultSet)} against an in-memory H2 database.
+ * Each invocation runs the query and renders every row, once to the (discarded) standard output
+ * and once to a discarding {@link Writer}.
+ *
+ * @author Samuel Pestana
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultSetBenchmark {
+
+    private static final String QUERY = "SELECT id, name, email, amount, created FROM customers";
+
+    @Param({ "1000", "100000" })
+    public int rows;
+
+    private final DatabaseUtils db = new DatabaseUtils();
+    private Connection conn;
+    private final Writer discard = Discard.writer();
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void createDatabase() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:bench" + rows + ";DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE customers (id INT PRIMARY KEY, name VARCHAR(40), email VARCHAR(80),"
+                    + " amount DECIMAL(12, 2), created DATE)");
+        }
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO customers VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                ps.setInt(1, i);
+                ps.setString(2, "Customer " + i);
+                ps.setString(3, i % 10 == 0 ? null : "customer" + i + "@example.com");
+                ps.setBigDecimal(4, java.math.BigDecimal.valueOf(i * 37L % 100000, 2));
+                ps.setDate(5, java.sql.Date.valueOf(java.time.LocalDate.of(2024, 1, 1).plusDays(i % 365)));
+                ps.addBatch();
+                if (i % 1000 == 999) ps.executeBatch();
+            }
+            ps.executeBatch();
+        }
+
+        originalOut = System.out;
+        System.setOut(Discard.printStream());
+    }
+
+    @TearDown(Level.Trial)
+    public void dropDatabase() throws SQLException {
+        System.setOut(originalOut);
+        try (Statement st = conn.createStatement()) {
+            st.execute("DROP ALL OBJECTS");
+        }
+        conn.close();
+    }
+
+    @Benchmark
+    public boolean showResultSetData() throws SQLException {
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(QUERY)) {
+            return db.showResultSetData(rs);
+        }
+    }
+
+    @Benchmark
+    public boolean showResultSetDataToWriter() throws SQLException {
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(QUERY)) {
+            return db.showResultSetData(rs, discard);
+        }
+    }
+}
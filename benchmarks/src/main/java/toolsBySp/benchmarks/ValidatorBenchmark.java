@@ -0,0 +1,77 @@
+package toolsBySp.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import toolsBySp.ChecksumUtils;
+import toolsBySp.InputUtils;
+
+/**
+ * Measures the non-interactive validators of {@link InputUtils} and {@link ChecksumUtils}.
+ *
+ * @author Samuel Pestana
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorBenchmark {
+
+    private final InputUtils input = new InputUtils();
+    private final ChecksumUtils checksums = new ChecksumUtils();
+
+    private String email = "john.doe+news@mail.example.com";
+    private String phoneFlexible = "+34 (922) 123-456";
+    private String phoneStrict = "34922123456";
+    private String isbn10 = "0306406152";
+    private String isbn13 = "9780306406157";
+    private String card = "4111111111111111";
+    private byte[] cardBytes = card.getBytes(StandardCharsets.US_ASCII);
+
+    @Benchmark
+    public boolean email() {
+        return input.isValidEmail(email);
+    }
+
+    @Benchmark
+    public boolean phoneFlexible() {
+        return input.isValidPhoneNumberFlexible(phoneFlexible);
+    }
+
+    @Benchmark
+    public boolean phoneStrict() {
+        return input.isValidPhoneNumberStrict(phoneStrict);
+    }
+
+    @Benchmark
+    public boolean isbn10() {
+        return input.isValidISBN(isbn10);
+    }
+
+    @Benchmark
+    public boolean isbn13() {
+        return input.isValidISBN(isbn13);
+    }
+
+    @Benchmark
+    public boolean luhn() {
+        return input.isValidCreditCard(card);
+    }
+
+    @Benchmark
+    public boolean luhnBytes() {
+        return checksums.isValidCreditCard(cardBytes, 0, cardBytes.length);
+    }
+}
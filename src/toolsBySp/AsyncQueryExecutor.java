@@ -0,0 +1,194 @@
+package toolsBySp;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs queries on a {@link ConnectionPool} without blocking the caller, so independent queries
+ * can be fanned out and awaited together.
+ *
+ * <p>On Java 21 and later every query runs on its own virtual thread, which costs almost nothing
+ * while it waits for the database. On older versions a fixed pool of {@code maxConcurrent}
+ * daemon threads is used instead. Either way a semaphore caps how many queries hit the database
+ * at the same time; the rest wait for a permit before borrowing a connection.</p>
+ *
+ * <p>The futures complete exceptionally with the {@link SQLException} of a failed query, wrapped
+ * in a {@link CompletionException}, or with a SQLException if no connection could be borrowed.</p>
+ *
+ * @author Samuel Pestana
+ */
+public class AsyncQueryExecutor implements AutoCloseable {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final ConnectionPool pool;
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final boolean virtualThreads;
+
+    /**
+     * Creates an executor that runs the queries on virtual threads when the JVM supports them.
+     *
+     * @param pool          The pool the connections are borrowed from.
+     * @param maxConcurrent The maximum number of queries running at the same time.
+     */
+    public AsyncQueryExecutor(ConnectionPool pool, int maxConcurrent) {
+        if (maxConcurrent < 1) throw new IllegalArgumentException("maxConcurrent must be at least 1");
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.pool = pool;
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : Executors.newFixedThreadPool(maxConcurrent, r -> {
+            Thread t = new Thread(r, "toolsBySp-query-" + THREAD_COUNT.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.ownsExecutor = true;
+    }
+
+    /**
+     * Creates an executor that runs the queries on the given executor service.
+     * The service is not shut down by {@link #close()}.
+     *
+     * @param pool          The pool the connections are borrowed from.
+     * @param maxConcurrent The maximum number of queries running at the same time.
+     * @param executor      The executor service the queries run on.
+     */
+    public AsyncQueryExecutor(ConnectionPool pool, int maxConcurrent, ExecutorService executor) {
+        if (maxConcurrent < 1) throw new IllegalArgumentException("maxConcurrent must be at least 1");
+        this.pool = pool;
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+        this.executor = executor;
+        this.ownsExecutor = false;
+        this.virtualThreads = false;
+    }
+
+    /**
+     * Runs a query and reads all of its rows into memory.
+     *
+     * @param sql    The query, with {@code ?} placeholders.
+     * @param params The values of the placeholders, in order.
+     * @return a future completed with the rows of the query.
+     */
+    public CompletableFuture<QueryResult> queryAsync(String sql, Object... params) {
+        return submit(conn -> QueryResult.execute(conn, sql, params));
+    }
+
+    /**
+     * Runs a query and passes each row to the handler as it is read, without keeping the rows in memory.
+     * The handler runs on the query thread.
+     *
+     * @param sql     The query, with {@code ?} placeholders.
+     * @param handler The handler called for each row.
+     * @param params  The values of the placeholders, in order.
+     * @return a future completed with the number of rows handled.
+     */
+    public CompletableFuture<Long> streamAsync(String sql, RowHandler handler, Object... params) {
+        return submit(conn -> {
+            long start = System.nanoTime();
+            long rows = 0;
+            try (PreparedStatement ps = QueryResult.prepare(conn, sql, params); ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(rs);
+                    rows++;
+                }
+            }
+            DatabaseMetrics.getDefault().recordRowsStreamed(rows, System.nanoTime() - start);
+            return rows;
+        });
+    }
+
+    /**
+     * Runs an INSERT, UPDATE, DELETE or DDL statement.
+     *
+     * @param sql    The statement, with {@code ?} placeholders.
+     * @param params The values of the placeholders, in order.
+     * @return a future completed with the number of rows affected.
+     */
+    public CompletableFuture<Integer> updateAsync(String sql, Object... params) {
+        return submit(conn -> {
+            try (PreparedStatement ps = QueryResult.prepare(conn, sql, params)) {
+                return ps.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Checks whether the queries run on virtual threads.
+     *
+     * @return true if each query runs on its own virtual thread.
+     */
+    public boolean isUsingVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Returns the number of queries holding a permit, that is, running against the database.
+     *
+     * @return the number of running queries.
+     */
+    public int getActiveQueries() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * Stops accepting queries and shuts down the threads created by this executor.
+     * Queries already submitted still run. The connection pool is not closed.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) executor.shutdown();
+    }
+
+    /**
+     * The body of an asynchronous query, run with a borrowed connection.
+     */
+    private interface Task<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    private <T> CompletableFuture<T> submit(Task<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(new SQLException("Interrupted while waiting for a query slot", e));
+            }
+            try (Connection conn = pool.getConnection()) {
+                if (conn == null) throw new SQLException("No connection available from the pool");
+                return task.run(conn);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    /**
+     * Returns {@code Executors.newVirtualThreadPerTaskExecutor()} on Java 21 and later, or null.
+     * Looked up reflectively so the same jar keeps running on Java 8.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package toolsBySp;
+
+import java.util.Arrays;
+
+/**
+ * Validates large batches of fixed-width card numbers and ISBNs packed in a {@code byte[]},
+ * such as a file of card numbers read or mapped in one block.
+ *
+ * <p>The checks are the same as in {@link ChecksumUtils} and {@link InputUtils}. When the
+ * library is built for Java 21 ({@code -Pjava-21}) and the JVM is started with
+ * {@code --add-modules jdk.incubator.vector}, the checksums are computed with the Vector API,
+ * one record per byte lane, so a single instruction advances 32 records at once with 256-bit vectors
+ * (AVX2) or 64 with 512-bit vectors (AVX-512). Otherwise, or if the vector classes cannot be loaded,
+ * a scalar loop is used; {@link #isVectorized()} tells which one is active. Records much wider than
+ * the number they hold are checked with the scalar loop either way, as it is faster for them.</p>
+ *
+ * <p>Record {@code i} of a batch starts at {@code offset + i * stride}, so records can be packed
+ * back to back ({@code stride == length}) or be lines of a text file ({@code stride == length + 1}).</p>
+ *
+ * @author Samuel Pestana
+ */
+public class BatchChecksumUtils {
+
+    private static final String VECTOR_KERNEL = "toolsBySp.VectorChecksumKernel";
+
+    private final ChecksumKernel kernel;
+
+    /**
+     * Creates a batch validator with the fastest kernel available on this JVM.
+     */
+    public BatchChecksumUtils() {
+        this(loadKernel());
+    }
+
+    BatchChecksumUtils(ChecksumKernel kernel) {
+        this.kernel = kernel;
+    }
+
+    /**
+     * Checks whether the checksums are computed with the Vector API.
+     *
+     * @return true if the vectorized kernel is in use, false for the scalar one.
+     */
+    public boolean isVectorized() {
+        return !(kernel instanceof ScalarChecksumKernel);
+    }
+
+    /**
+     * Validates fixed-width credit card numbers: 15 or 16 digits with a valid Luhn checksum.
+     *
+     * @param data    the array holding the records
+     * @param offset  the index of the first record
+     * @param length  the number of digits of each record
+     * @param stride  the distance between the starts of two consecutive records
+     * @param count   the number of records
+     * @param results receives whether each record is valid, at least {@code count} long
+     * @return the number of valid records
+     * @throws ArrayIndexOutOfBoundsException if a record is outside {@code data} or {@code results} is too short
+     */
+    public int validateCreditCards(byte[] data, int offset, int length, int stride, int count, boolean[] results) {
+        if (length != 15 && length != 16) {
+            checkBounds(data, offset, length, stride, count, results);
+            Arrays.fill(results, 0, count, false);
+            return 0;
+        }
+        return validateLuhn(data, offset, length, stride, count, results);
+    }
+
+    /**
+     * Validates fixed-width numbers of any length with the Luhn algorithm.
+     *
+     * @param data    the array holding the records
+     * @param offset  the index of the first record
+     * @param length  the number of digits of each record
+     * @param stride  the distance between the starts of two consecutive records
+     * @param count   the number of records
+     * @param results receives whether each record is valid, at least {@code count} long
+     * @return the number of valid records
+     * @throws ArrayIndexOutOfBoundsException if a record is outside {@code data} or {@code results} is too short
+     */
+    public int validateLuhn(byte[] data, int offset, int length, int stride, int count, boolean[] results) {
+        checkBounds(data, offset, length, stride, count, results);
+        return kernel.luhn(data, offset, length, stride, count, results);
+    }
+
+    /**
+     * Validates ISBN-10 records of ten bytes: nine digits followed by a digit or 'X'.
+     *
+     * @param data    the array holding the records
+     * @param offset  the index of the first record
+     * @param stride  the distance between the starts of two consecutive records
+     * @param count   the number of records
+     * @param results receives whether each record is valid, at least {@code count} long
+     * @return the number of valid records
+     * @throws ArrayIndexOutOfBoundsException if a record is outside {@code data} or {@code results} is too short
+     */
+    public int validateISBN10(byte[] data, int offset, int stride, int count, boolean[] results) {
+        checkBounds(data, offset, 10, stride, count, results);
+        return kernel.isbn10(data, offset, stride, count, results);
+    }
+
+    /**
+     * Validates ISBN-13 records of thirteen digits.
+     *
+     * @param data    the array holding the records
+     * @param offset  the index of the first record
+     * @param stride  the distance between the starts of two consecutive records
+     * @param count   the number of records
+     * @param results receives whether each record is valid, at least {@code count} long
+     * @return the number of valid records
+     * @throws ArrayIndexOutOfBoundsException if a record is outside {@code data} or {@code results} is too short
+     */
+    public int validateISBN13(byte[] data, int offset, int stride, int count, boolean[] results) {
+        checkBounds(data, offset, 13, stride, count, results);
+        return kernel.isbn13(data, offset, stride, count, results);
+    }
+
+    /**
+     * Fails fast on a batch that does not fit, so the kernels can skip per-record checks.
+     */
+    private static void checkBounds(byte[] data, int offset, int length, int stride, int count, boolean[] results) {
+        if (count < 0 || count > results.length) {
+            throw new ArrayIndexOutOfBoundsException("count " + count + " for " + results.length + " results");
+        }
+        if (count == 0) return;
+        long end = offset + (long) (count - 1) * stride + length;
+        if (offset < 0 || length < 0 || (count > 1 && stride < length) || end > data.length) {
+            throw new ArrayIndexOutOfBoundsException("Records end at " + end + " in an array of " + data.length);
+        }
+    }
+
+    /**
+     * Loads the vectorized kernel, which is only compiled into the Java 21 build,
+     * or falls back to the scalar one.
+     */
+    private static ChecksumKernel loadKernel() {
+        try {
+            return (ChecksumKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            return new ScalarChecksumKernel();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package toolsBySp;
+
+/**
+ * The outcome of a bulk load performed by {@link BulkLoader}.
+ *
+ * @author Samuel Pestana
+ */
+public class BulkLoadResult {
+
+    private final long rowsRead;
+    private final long rowsLoaded;
+    private final long failedRows;
+    private final int failedBatches;
+    private final long elapsedNanos;
+
+    BulkLoadResult(long rowsRead, long rowsLoaded, long failedRows, int failedBatches, long elapsedNanos) {
+        this.rowsRead = rowsRead;
+        this.rowsLoaded = rowsLoaded;
+        this.failedRows = failedRows;
+        this.failedBatches = failedBatches;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the number of rows taken from the source.
+     *
+     * @return the number of rows read.
+     */
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    /**
+     * Returns the number of rows committed to the table.
+     *
+     * @return the number of rows loaded.
+     */
+    public long getRowsLoaded() {
+        return rowsLoaded;
+    }
+
+    /**
+     * Returns the number of rows that were rolled back because their batch failed.
+     *
+     * @return the number of failed rows.
+     */
+    public long getFailedRows() {
+        return failedRows;
+    }
+
+    /**
+     * Returns the number of batches that failed and were rolled back.
+     *
+     * @return the number of failed batches.
+     */
+    public int getFailedBatches() {
+        return failedBatches;
+    }
+
+    /**
+     * Returns the time spent loading, in milliseconds.
+     *
+     * @return the elapsed time in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    /**
+     * Returns the load throughput, counting only the rows that were committed.
+     *
+     * @return the number of rows loaded per second.
+     */
+    public double getRowsPerSecond() {
+        if (elapsedNanos <= 0) return 0;
+        return rowsLoaded * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows loaded, %d failed (%d batches) in %d ms (%.0f rows/s)",
+                rowsLoaded, failedRows, failedBatches, getElapsedMillis(), getRowsPerSecond());
+    }
+}
@@ -0,0 +1,380 @@
+package toolsBySp;
+
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Loads large amounts of rows into a table using batched {@link PreparedStatement} inserts.
+ *
+ * <p>Rows are sent to the database in batches of {@link #setBatchSize(int) batchSize} rows with
+ * auto-commit turned off, and the transaction is committed every {@link #setBatchesPerCommit(int)
+ * batchesPerCommit} batches. If a batch fails, the rows since the last commit are rolled back,
+ * counted as failed and the load goes on with the next rows. A row that cannot be bound, such as
+ * one with the wrong number of values, is skipped and counted as failed on its own. Null values are
+ * bound with {@link PreparedStatement#setNull(int, int)} and the type the driver reports for the column.</p>
+ *
+ * <p>If auto-commit is already off when the load starts, the connection is in a transaction owned by
+ * the caller: the loader then never commits or rolls it back. It marks a savepoint instead of each
+ * commit and rolls back only to the last savepoint when a batch fails, leaving the caller's earlier
+ * work and the final commit to the caller.</p>
+ *
+ * <p>Optionally, several rows can be packed into a single multi-row statement
+ * ({@code INSERT INTO t (a, b) VALUES (?, ?), (?, ?), ...}), which many databases execute much
+ * faster than the same rows sent as separate statements of one batch.</p>
+ *
+ * @author Samuel Pestana
+ */
+public class BulkLoader {
+
+    private final Connection conn;
+    private final String table;
+    private final String[] columns;
+
+    private int batchSize = 1000;
+    private int batchesPerCommit = 1;
+    private int rowsPerStatement = 1;
+
+    // State of the load in progress
+    private boolean ownsTransaction;
+    private Savepoint savepoint;
+    private int[] nullTypes; // SQL type of each column, for binding nulls
+
+    /**
+     * Creates a loader for the given table and columns.
+     * The table and column names are used as given, so they must be quoted by the caller if needed.
+     *
+     * @param conn    The connection used to load the rows.
+     * @param table   The name of the target table.
+     * @param columns The names of the columns, in the same order as the values of each row.
+     */
+    public BulkLoader(Connection conn, String table, String... columns) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("At least one column is required");
+        }
+        this.conn = conn;
+        this.table = table;
+        this.columns = columns.clone();
+    }
+
+    /**
+     * Sets the number of rows sent to the database in each batch.
+     *
+     * @param batchSize The number of rows per batch (1000 by default).
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Sets how many batches are executed before the transaction is committed.
+     * A failure rolls back every batch since the last commit.
+     *
+     * @param batchesPerCommit The number of batches per transaction (1 by default).
+     */
+    public void setBatchesPerCommit(int batchesPerCommit) {
+        this.batchesPerCommit = Math.max(1, batchesPerCommit);
+    }
+
+    /**
+     * Sets how many rows are packed into a single multi-row {@code VALUES} statement.
+     * Keep the number of bind parameters ({@code rowsPerStatement * columns}) below the limit of the database.
+     *
+     * @param rowsPerStatement The number of rows per statement (1 by default, no rewriting).
+     */
+    public void setRowsPerStatement(int rowsPerStatement) {
+        this.rowsPerStatement = Math.max(1, rowsPerStatement);
+    }
+
+    /**
+     * Loads every row of the stream.
+     *
+     * @param rows The rows to insert, each one with a value per column.
+     * @return The result of the load, or null if the insert statement cannot be prepared.
+     */
+    public BulkLoadResult load(Stream<Object[]> rows) {
+        try (Stream<Object[]> s = rows) {
+            return load(s.iterator());
+        }
+    }
+
+    /**
+     * Loads every row of the iterator.
+     *
+     * @param rows The rows to insert, each one with a value per column.
+     * @return The result of the load, or null if the insert statement cannot be prepared.
+     */
+    public BulkLoadResult load(Iterator<Object[]> rows) {
+        long start = System.nanoTime();
+        long rowsRead = 0;
+        long rowsLoaded = 0;
+        long failedRows = 0;
+        int failedBatches = 0;
+
+        try {
+            ownsTransaction = conn.getAutoCommit();
+            if (ownsTransaction) {
+                conn.setAutoCommit(false);
+            } else {
+                savepoint = conn.setSavepoint();
+            }
+        } catch (SQLException e) {
+            DatabaseMetrics.getDefault().recordError(e);
+            return null;
+        }
+
+        String sql = insertSql(rowsPerStatement);
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            nullTypes = nullTypes(ps);
+            Object[][] pending = new Object[rowsPerStatement][];
+            int pendingRows = 0;
+            int rowsInBatch = 0;
+            int batchesInTransaction = 0;
+            long rowsInTransaction = 0;
+
+            while (rows.hasNext()) {
+                pending[pendingRows++] = rows.next();
+                rowsRead++;
+                if (pendingRows < rowsPerStatement) continue;
+
+                try {
+                    bind(ps, pending, pendingRows);
+                    ps.addBatch();
+                } catch (SQLException e) {
+                    // Nothing of these rows reached the batch, skip them and keep the rows before them
+                    failedRows += pendingRows;
+                    pendingRows = 0;
+                    clearParametersQuietly(ps);
+                    continue;
+                }
+                rowsInBatch += pendingRows;
+                rowsInTransaction += pendingRows;
+                pendingRows = 0;
+
+                if (rowsInBatch >= batchSize) {
+                    rowsInBatch = 0;
+                    batchesInTransaction++;
+                    boolean commit = batchesInTransaction >= batchesPerCommit;
+                    if (executeBatch(ps, sql, commit)) {
+                        if (commit) {
+                            rowsLoaded += rowsInTransaction;
+                            batchesInTransaction = 0;
+                            rowsInTransaction = 0;
+                        }
+                    } else {
+                        failedRows += rowsInTransaction;
+                        failedBatches += batchesInTransaction;
+                        batchesInTransaction = 0;
+                        rowsInTransaction = 0;
+                    }
+                }
+            }
+
+            // Flush the last partial batch and the rows that did not fill a multi-row statement
+            boolean ok = true;
+            if (rowsInBatch > 0) {
+                batchesInTransaction++;
+                ok = executeBatch(ps, sql, false);
+            }
+            if (pendingRows > 0) {
+                batchesInTransaction++;
+                rowsInTransaction += pendingRows;
+                ok = ok && executeRemainder(pending, pendingRows);
+            }
+            if (ok && rowsInTransaction > 0) {
+                ok = commitQuietly();
+            }
+            if (ok) {
+                rowsLoaded += rowsInTransaction;
+            } else {
+                failedRows += rowsInTransaction;
+                failedBatches += batchesInTransaction;
+                rollbackQuietly(ps);
+            }
+        } catch (SQLException e) {
+            DatabaseMetrics.getDefault().recordError(e);
+            return null;
+        } catch (RuntimeException e) {
+            rollbackTransactionQuietly(); // Turning auto-commit back on below would commit the rows
+            throw e;
+        } finally {
+            if (ownsTransaction) {
+                try {
+                    conn.setAutoCommit(true);
+                } catch (SQLException e) {
+                    // The connection is unusable, the caller will find out on its next call
+                }
+            } else {
+                releaseSavepointQuietly();
+            }
+        }
+
+        return new BulkLoadResult(rowsRead, rowsLoaded, failedRows, failedBatches, System.nanoTime() - start);
+    }
+
+    /**
+     * Builds the insert statement for the given number of rows.
+     *
+     * @param rows The number of rows the statement inserts.
+     * @return the SQL text of the statement.
+     */
+    String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder(64 + rows * columns.length * 3);
+        sql.append("INSERT INTO ").append(table).append(" (");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(columns[i]);
+        }
+        sql.append(") VALUES ");
+        for (int r = 0; r < rows; r++) {
+            if (r > 0) sql.append(", ");
+            sql.append('(');
+            for (int i = 0; i < columns.length; i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(')');
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Looks up the SQL type of each column from the parameters of the insert statement, so nulls
+     * can be bound with {@link PreparedStatement#setNull(int, int)}. Columns the driver cannot
+     * describe get VARCHAR, which databases convert to the column type like a string value.
+     */
+    private int[] nullTypes(PreparedStatement ps) {
+        int[] types = new int[columns.length];
+        Arrays.fill(types, Types.VARCHAR);
+        try {
+            ParameterMetaData metaData = ps.getParameterMetaData();
+            for (int i = 0; i < types.length; i++) {
+                types[i] = metaData.getParameterType(i + 1);
+            }
+        } catch (SQLException e) {
+            // Keep VARCHAR for the columns not described
+        }
+        return types;
+    }
+
+    private void bind(PreparedStatement ps, Object[][] rows, int count) throws SQLException {
+        int index = 1;
+        for (int r = 0; r < count; r++) {
+            Object[] row = rows[r];
+            if (row.length != columns.length) {
+                throw new SQLException("Expected " + columns.length + " values but got " + row.length);
+            }
+            for (int i = 0; i < row.length; i++) {
+                if (row[i] == null) {
+                    ps.setNull(index++, nullTypes[i]);
+                } else {
+                    ps.setObject(index++, row[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Executes the pending batch and optionally commits. On failure the rows since the last commit are rolled back.
+     *
+     * @return true if the batch (and commit) succeeded.
+     */
+    private boolean executeBatch(PreparedStatement ps, String sql, boolean commit) {
+        try {
+            long start = System.nanoTime();
+            ps.executeBatch();
+            DatabaseMetrics.getDefault().recordQuery(ps, sql, System.nanoTime() - start);
+            if (commit) commit();
+            return true;
+        } catch (SQLException e) {
+            DatabaseMetrics.getDefault().recordError(e);
+            rollbackQuietly(ps);
+            return false;
+        }
+    }
+
+    /**
+     * Inserts the rows left over when the row count is not a multiple of the rows per statement.
+     */
+    private boolean executeRemainder(Object[][] rows, int count) {
+        String sql = insertSql(count);
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            bind(ps, rows, count);
+            long start = System.nanoTime();
+            ps.executeUpdate();
+            DatabaseMetrics.getDefault().recordQuery(ps, sql, System.nanoTime() - start);
+            return true;
+        } catch (SQLException e) {
+            DatabaseMetrics.getDefault().recordError(e);
+            return false;
+        }
+    }
+
+    /**
+     * Commits the rows since the last commit, or marks a new savepoint inside the caller's transaction.
+     */
+    private void commit() throws SQLException {
+        if (ownsTransaction) {
+            conn.commit();
+        } else {
+            releaseSavepointQuietly();
+            savepoint = conn.setSavepoint();
+        }
+    }
+
+    private boolean commitQuietly() {
+        try {
+            commit();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Discards the rows since the last commit, or since the last savepoint inside the caller's transaction.
+     */
+    private void rollbackQuietly(PreparedStatement ps) {
+        try {
+            ps.clearBatch();
+        } catch (SQLException e) {
+            // Ignored, the rollback below discards the work anyway
+        }
+        rollbackTransactionQuietly();
+    }
+
+    private void rollbackTransactionQuietly() {
+        try {
+            if (ownsTransaction) {
+                conn.rollback();
+            } else if (savepoint != null) {
+                conn.rollback(savepoint);
+            }
+        } catch (SQLException e) {
+            // Nothing else can be done if the rollback fails
+        }
+    }
+
+    private void releaseSavepointQuietly() {
+        if (savepoint == null) return;
+        try {
+            conn.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            // Some drivers do not release savepoints, they go away with the transaction
+        }
+        savepoint = null;
+    }
+
+    private static void clearParametersQuietly(PreparedStatement ps) {
+        try {
+            ps.clearParameters();
+        } catch (SQLException e) {
+            // The next row sets every parameter again anyway
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package toolsBySp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Validates files of records, one record per line, without any user interaction.
+ *
+ * <p>The input is streamed line by line, so files of any size can be checked with constant memory.
+ * Any of the {@link InputUtils} checks can be used as the rule, for example:</p>
+ *
+ * <pre>
+ * InputUtils input = new InputUtils();
+ * ValidationReport report = new BulkValidator().validate(path, input::isValidEmail,
+ *         (email, line) -&gt; validWriter.println(email),
+ *         (email, line) -&gt; System.err.println("Line " + line + ": " + email));
+ * </pre>
+ *
+ * @author Samuel Pestana
+ */
+public class BulkValidator {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Validates every line of a UTF-8 file.
+     *
+     * @param file    The file to validate.
+     * @param rule    The check applied to each line, such as {@link InputUtils#isValidEmail(CharSequence)}.
+     * @param valid   Receives each valid record with its line number (starting at 1), or null to ignore them.
+     * @param invalid Receives each invalid record with its line number (starting at 1), or null to ignore them.
+     * @return The counts of valid and invalid records, or null if the file cannot be read.
+     */
+    public ValidationReport validate(Path file, Predicate<CharSequence> rule,
+            ObjLongConsumer<String> valid, ObjLongConsumer<String> invalid) {
+        try (InputStream in = Files.newInputStream(file)) {
+            return validate(in, rule, valid, invalid);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Validates every line of a UTF-8 stream. The stream is not closed.
+     *
+     * @param in      The stream to validate.
+     * @param rule    The check applied to each line, such as {@link InputUtils#isValidEmail(CharSequence)}.
+     * @param valid   Receives each valid record with its line number (starting at 1), or null to ignore them.
+     * @param invalid Receives each invalid record with its line number (starting at 1), or null to ignore them.
+     * @return The counts of valid and invalid records, or null if the stream cannot be read.
+     */
+    public ValidationReport validate(InputStream in, Predicate<CharSequence> rule,
+            ObjLongConsumer<String> valid, ObjLongConsumer<String> invalid) {
+        long start = System.nanoTime();
+        long validCount = 0;
+        long invalidCount = 0;
+        long lineNumber = 0;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (rule.test(line)) {
+                    validCount++;
+                    if (valid != null) valid.accept(line, lineNumber);
+                } else {
+                    invalidCount++;
+                    if (invalid != null) invalid.accept(line, lineNumber);
+                }
+            }
+        } catch (IOException e) {
+            return null;
+        }
+
+        return new ValidationReport(validCount, invalidCount, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,20 @@
+package toolsBySp;
+
+/**
+ * A check applied to a record stored as raw bytes, such as the byte-array validators of {@link ChecksumUtils}.
+ *
+ * @author Samuel Pestana
+ */
+@FunctionalInterface
+public interface ByteRecordPredicate {
+
+    /**
+     * Checks the record stored in {@code bytes[offset, offset + length)}.
+     *
+     * @param bytes  the array holding the record
+     * @param offset the index of the first byte of the record
+     * @param length the number of bytes of the record
+     * @return true if the record is valid, false otherwise
+     */
+    boolean test(byte[] bytes, int offset, int length);
+}
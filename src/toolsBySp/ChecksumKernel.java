@@ -0,0 +1,27 @@
+package toolsBySp;
+
+/**
+ * Computes the checksums of many fixed-width records at once, for {@link BatchChecksumUtils}.
+ *
+ * <p>Record {@code i} starts at {@code offset + i * stride}. Each method stores whether every
+ * record is valid in {@code results[0, count)} and returns the number of valid records.</p>
+ *
+ * @author Samuel Pestana
+ */
+interface ChecksumKernel {
+
+    /**
+     * Validates records of {@code length} ASCII digits with the Luhn algorithm.
+     */
+    int luhn(byte[] data, int offset, int length, int stride, int count, boolean[] results);
+
+    /**
+     * Validates ISBN-10 records: ten bytes, the last one a digit or 'X'.
+     */
+    int isbn10(byte[] data, int offset, int stride, int count, boolean[] results);
+
+    /**
+     * Validates ISBN-13 records: thirteen ASCII digits.
+     */
+    int isbn13(byte[] data, int offset, int stride, int count, boolean[] results);
+}
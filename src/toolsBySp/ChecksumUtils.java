@@ -0,0 +1,196 @@
+package toolsBySp;
+
+/**
+ * Allocation-free validators for numbers protected by a check digit: credit card numbers (Luhn),
+ * ISBN-10 and ISBN-13.
+ *
+ * <p>Every method checks the format and the checksum in a single pass over the characters, without
+ * regular expressions or temporary objects, so they can be called on every record of a large batch.
+ * Each check is available for a {@link CharSequence} and for a range of an ASCII {@code byte[]},
+ * which avoids decoding raw input into strings at all.</p>
+ *
+ * @author Samuel Pestana
+ */
+public class ChecksumUtils {
+
+    // Luhn value of a doubled digit: 2 * d, minus 9 if it is greater than 9
+    private static final int[] LUHN_DOUBLED = { 0, 2, 4, 6, 8, 1, 3, 5, 7, 9 };
+
+    /**
+     * Validates a credit card number: 15 or 16 digits with a valid Luhn checksum.
+     *
+     * @param cardNumber the credit card number to validate
+     * @return true if the card number is valid, false otherwise or if it is null
+     */
+    public boolean isValidCreditCard(CharSequence cardNumber) {
+        if (cardNumber == null) return false;
+        int length = cardNumber.length();
+        return (length == 15 || length == 16) && isValidLuhn(cardNumber);
+    }
+
+    /**
+     * Validates a credit card number stored as ASCII digits: 15 or 16 digits with a valid Luhn checksum.
+     *
+     * @param bytes  the array holding the number
+     * @param offset the index of the first digit
+     * @param length the number of bytes of the number
+     * @return true if the card number is valid, false otherwise
+     */
+    public boolean isValidCreditCard(byte[] bytes, int offset, int length) {
+        return (length == 15 || length == 16) && isValidLuhn(bytes, offset, length);
+    }
+
+    /**
+     * Validates a number of any length with the Luhn algorithm: only digits, at least two of them,
+     * and a checksum divisible by 10.
+     *
+     * @param number the number to validate
+     * @return true if the number passes the Luhn check, false otherwise or if it is null
+     */
+    public boolean isValidLuhn(CharSequence number) {
+        if (number == null) return false;
+        int length = number.length();
+        if (length < 2) return false;
+
+        int sum = 0;
+        boolean shouldDouble = false;
+        for (int i = length - 1; i >= 0; i--) {
+            int digit = number.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return false;
+            sum += shouldDouble ? LUHN_DOUBLED[digit] : digit;
+            shouldDouble = !shouldDouble;
+        }
+        return sum % 10 == 0;
+    }
+
+    /**
+     * Validates a number of any length stored as ASCII digits with the Luhn algorithm.
+     *
+     * @param bytes  the array holding the number
+     * @param offset the index of the first digit
+     * @param length the number of bytes of the number
+     * @return true if the number passes the Luhn check, false otherwise
+     */
+    public boolean isValidLuhn(byte[] bytes, int offset, int length) {
+        if (length < 2) return false;
+
+        int sum = 0;
+        boolean shouldDouble = false;
+        for (int i = offset + length - 1; i >= offset; i--) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) return false;
+            sum += shouldDouble ? LUHN_DOUBLED[digit] : digit;
+            shouldDouble = !shouldDouble;
+        }
+        return sum % 10 == 0;
+    }
+
+    /**
+     * Validates an ISBN-10 or ISBN-13, depending on its length.
+     *
+     * @param isbn the ISBN to validate
+     * @return true if the ISBN is valid, false otherwise or if it is null
+     */
+    public boolean isValidISBN(CharSequence isbn) {
+        if (isbn == null) return false;
+        return isbn.length() == 10 ? isValidISBN10(isbn) : isValidISBN13(isbn);
+    }
+
+    /**
+     * Validates an ISBN-10 or ISBN-13 stored as ASCII characters, depending on its length.
+     *
+     * @param bytes  the array holding the ISBN
+     * @param offset the index of the first character
+     * @param length the number of bytes of the ISBN
+     * @return true if the ISBN is valid, false otherwise
+     */
+    public boolean isValidISBN(byte[] bytes, int offset, int length) {
+        return length == 10 ? isValidISBN10(bytes, offset, length) : isValidISBN13(bytes, offset, length);
+    }
+
+    /**
+     * Validates an ISBN-10: nine digits followed by a digit or 'X', with a weighted sum divisible by 11.
+     *
+     * @param isbn the ISBN-10 to validate
+     * @return true if the ISBN-10 is valid, false otherwise or if it is null
+     */
+    public boolean isValidISBN10(CharSequence isbn) {
+        if (isbn == null || isbn.length() != 10) return false;
+        int sum = 0;
+        for (int i = 0; i < 9; i++) {
+            int digit = isbn.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return false;
+            sum += digit * (10 - i);
+        }
+        return isValidISBN10CheckDigit(sum, isbn.charAt(9));
+    }
+
+    /**
+     * Validates an ISBN-10 stored as ASCII characters.
+     *
+     * @param bytes  the array holding the ISBN
+     * @param offset the index of the first character
+     * @param length the number of bytes of the ISBN
+     * @return true if the ISBN-10 is valid, false otherwise
+     */
+    public boolean isValidISBN10(byte[] bytes, int offset, int length) {
+        if (length != 10) return false;
+        int sum = 0;
+        for (int i = 0; i < 9; i++) {
+            int digit = bytes[offset + i] - '0';
+            if (digit < 0 || digit > 9) return false;
+            sum += digit * (10 - i);
+        }
+        return isValidISBN10CheckDigit(sum, (char) bytes[offset + 9]);
+    }
+
+    /**
+     * Validates an ISBN-13: thirteen digits with weights alternating between 1 and 3 and a sum divisible by 10.
+     *
+     * @param isbn the ISBN-13 to validate
+     * @return true if the ISBN-13 is valid, false otherwise or if it is null
+     */
+    public boolean isValidISBN13(CharSequence isbn) {
+        if (isbn == null || isbn.length() != 13) return false;
+        int sum = 0;
+        for (int i = 0; i < 13; i++) {
+            int digit = isbn.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return false;
+            sum += (i & 1) == 0 ? digit : digit * 3;
+        }
+        return sum % 10 == 0;
+    }
+
+    /**
+     * Validates an ISBN-13 stored as ASCII digits.
+     *
+     * @param bytes  the array holding the ISBN
+     * @param offset the index of the first digit
+     * @param length the number of bytes of the ISBN
+     * @return true if the ISBN-13 is valid, false otherwise
+     */
+    public boolean isValidISBN13(byte[] bytes, int offset, int length) {
+        if (length != 13) return false;
+        int sum = 0;
+        for (int i = 0; i < 13; i++) {
+            int digit = bytes[offset + i] - '0';
+            if (digit < 0 || digit > 9) return false;
+            sum += (i & 1) == 0 ? digit : digit * 3;
+        }
+        return sum % 10 == 0;
+    }
+
+    /**
+     * Adds the ISBN-10 check character ('0'-'9' or 'X' for 10) to the weighted sum of the first nine digits.
+     */
+    private static boolean isValidISBN10CheckDigit(int sum, char check) {
+        if (check == 'X') {
+            sum += 10;
+        } else if (check >= '0' && check <= '9') {
+            sum += check - '0';
+        } else {
+            return false;
+        }
+        return sum % 11 == 0;
+    }
+}
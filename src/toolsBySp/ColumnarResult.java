@@ -0,0 +1,657 @@
+package toolsBySp;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoublePredicate;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * The rows of a query stored column by column, for holding millions of rows in memory.
+ *
+ * <p>Integer columns are stored in {@code int[]} or {@code long[]} arrays and floating point and
+ * decimal columns in {@code double[]} arrays, each with a bitmap marking the null values. Every
+ * other column is read as text and dictionary-encoded: each distinct value is stored once and
+ * the rows hold an {@code int} code, which is very compact for the repetitive values typical of
+ * status, country or category columns. A row costs a few bytes per column instead of a map entry
+ * and a boxed object per value.</p>
+ *
+ * <p>Sorting and filtering work on the primitive arrays and return row numbers: a permutation of
+ * the rows for {@link #sortedOrder(int, boolean)} and the matching rows for the {@code filter}
+ * methods. String predicates are evaluated once per distinct value, not once per row.</p>
+ *
+ * @author Samuel Pestana
+ */
+public class ColumnarResult {
+
+    /**
+     * The storage of a column.
+     */
+    public enum ColumnType {
+        /** 32-bit integers: TINYINT, SMALLINT, INTEGER and BOOLEAN (stored as 0 or 1). */
+        INT,
+        /** 64-bit integers: BIGINT and DECIMAL or NUMERIC without decimals and up to 18 digits. */
+        LONG,
+        /** Floating point: REAL, FLOAT, DOUBLE and any other DECIMAL or NUMERIC, which may lose precision. */
+        DOUBLE,
+        /** Dictionary-encoded text: every other type, as returned by {@link ResultSet#getString(int)}. */
+        STRING
+    }
+
+    private final String[] names;
+    private final Column[] columns;
+    private final int rowCount;
+
+    private ColumnarResult(String[] names, Column[] columns, int rowCount) {
+        this.names = names;
+        this.columns = columns;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Reads the remaining rows of a result set into columns.
+     *
+     * @param rs The result set to read; it is not closed.
+     * @return the rows read.
+     * @throws SQLException if the result set cannot be read.
+     */
+    static ColumnarResult from(ResultSet rs) throws SQLException {
+        ResultSetMetaData rsmd = rs.getMetaData();
+        int cols = rsmd.getColumnCount();
+        String[] names = new String[cols];
+        Column[] columns = new Column[cols];
+        for (int i = 0; i < cols; i++) {
+            names[i] = rsmd.getColumnLabel(i + 1);
+            columns[i] = newColumn(typeOf(rsmd, i + 1));
+        }
+
+        int rows = 0;
+        while (rs.next()) {
+            for (int i = 0; i < cols; i++) {
+                columns[i].read(rs, i + 1, rows);
+            }
+            rows++;
+        }
+        for (Column column : columns) {
+            column.trim(rows);
+        }
+        return new ColumnarResult(names, columns, rows);
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the number of rows.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the number of columns.
+     *
+     * @return the number of columns.
+     */
+    public int getColumnCount() {
+        return names.length;
+    }
+
+    /**
+     * Returns the label of a column.
+     *
+     * @param column The column index, starting at 0.
+     * @return the column label.
+     */
+    public String getColumnName(int column) {
+        return names[column];
+    }
+
+    /**
+     * Returns the index of a column label, ignoring case.
+     *
+     * @param column The column label.
+     * @return the column index, or -1 if there is no such column.
+     */
+    public int indexOf(String column) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equalsIgnoreCase(column)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns how a column is stored, which decides the accessors that can read it.
+     *
+     * @param column The column index, starting at 0.
+     * @return the storage type of the column.
+     */
+    public ColumnType getColumnType(int column) {
+        return columns[column].type;
+    }
+
+    /**
+     * Checks whether a value is SQL NULL.
+     *
+     * @param row    The row index, starting at 0.
+     * @param column The column index, starting at 0.
+     * @return true if the value is null.
+     */
+    public boolean isNull(int row, int column) {
+        return columns[column].isNull(row);
+    }
+
+    /**
+     * Returns a value of an {@link ColumnType#INT} column.
+     *
+     * @param row    The row index, starting at 0.
+     * @param column The column index, starting at 0.
+     * @return the value, or 0 for SQL NULL.
+     * @throws IllegalStateException if the column is not an INT column.
+     */
+    public int getInt(int row, int column) {
+        return ints(column).values[row];
+    }
+
+    /**
+     * Returns a value of an {@link ColumnType#INT} or {@link ColumnType#LONG} column.
+     *
+     * @param row    The row index, starting at 0.
+     * @param column The column index, starting at 0.
+     * @return the value, or 0 for SQL NULL.
+     * @throws IllegalStateException if the column is not an integer column.
+     */
+    public long getLong(int row, int column) {
+        Column c = columns[column];
+        if (c instanceof IntColumn) return ((IntColumn) c).values[row];
+        if (c instanceof LongColumn) return ((LongColumn) c).values[row];
+        throw wrongType(column, "LONG");
+    }
+
+    /**
+     * Returns a value of a numeric column.
+     *
+     * @param row    The row index, starting at 0.
+     * @param column The column index, starting at 0.
+     * @return the value, or 0 for SQL NULL.
+     * @throws IllegalStateException if the column is a STRING column.
+     */
+    public double getDouble(int row, int column) {
+        Column c = columns[column];
+        if (c instanceof DoubleColumn) return ((DoubleColumn) c).values[row];
+        if (c instanceof IntColumn) return ((IntColumn) c).values[row];
+        if (c instanceof LongColumn) return ((LongColumn) c).values[row];
+        throw wrongType(column, "DOUBLE");
+    }
+
+    /**
+     * Returns a value of any column as text.
+     *
+     * @param row    The row index, starting at 0.
+     * @param column The column index, starting at 0.
+     * @return the value as text, or null for SQL NULL.
+     */
+    public String getString(int row, int column) {
+        Column c = columns[column];
+        if (c.isNull(row)) return null;
+        if (c instanceof StringColumn) return ((StringColumn) c).valueAt(row);
+        return String.valueOf(getObject(row, column));
+    }
+
+    /**
+     * Returns a value of any column as an object: Integer, Long, Double or String.
+     *
+     * @param row    The row index, starting at 0.
+     * @param column The column index, starting at 0.
+     * @return the value, or null for SQL NULL.
+     */
+    public Object getObject(int row, int column) {
+        Column c = columns[column];
+        if (c.isNull(row)) return null;
+        switch (c.type) {
+            case INT:
+                return ((IntColumn) c).values[row];
+            case LONG:
+                return ((LongColumn) c).values[row];
+            case DOUBLE:
+                return ((DoubleColumn) c).values[row];
+            default:
+                return ((StringColumn) c).valueAt(row);
+        }
+    }
+
+    /**
+     * Returns the number of distinct values of a {@link ColumnType#STRING} column.
+     *
+     * @param column The column index, starting at 0.
+     * @return the size of the column dictionary.
+     * @throws IllegalStateException if the column is not a STRING column.
+     */
+    public int getDistinctCount(int column) {
+        return strings(column).dictionary.length;
+    }
+
+    /**
+     * Returns the rows ordered by a column, nulls last. The sort is stable, so sorting the result
+     * of a previous sort by another column orders by both.
+     *
+     * @param column    The column to sort by.
+     * @param ascending Whether to sort in ascending order.
+     * @return the row indexes in sorted order.
+     */
+    public int[] sortedOrder(int column, boolean ascending) {
+        int[] rows = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            rows[i] = i;
+        }
+        return sortedOrder(rows, column, ascending);
+    }
+
+    /**
+     * Returns the given rows ordered by a column, nulls last. The sort is stable, so sorting by
+     * the secondary column first and then by the primary one orders by both.
+     *
+     * @param rows      The row indexes to sort; the array is not modified.
+     * @param column    The column to sort by.
+     * @param ascending Whether to sort in ascending order.
+     * @return the row indexes in sorted order.
+     */
+    public int[] sortedOrder(int[] rows, int column, boolean ascending) {
+        Column c = columns[column];
+        RowComparator comparator = c.comparator();
+        int sign = ascending ? 1 : -1;
+        RowComparator ordered = (a, b) -> {
+            boolean nullA = c.isNull(a);
+            boolean nullB = c.isNull(b);
+            if (nullA || nullB) return nullA == nullB ? 0 : (nullA ? 1 : -1);
+            return sign * comparator.compare(a, b);
+        };
+        int[] sorted = rows.clone();
+        mergeSort(sorted, rows.clone(), 0, sorted.length, ordered);
+        return sorted;
+    }
+
+    /**
+     * Returns the rows whose value of an {@link ColumnType#INT} column matches. Null values never match.
+     *
+     * @param column    The column to test.
+     * @param predicate The condition on the value.
+     * @return the matching row indexes, in order.
+     */
+    public int[] filterInt(int column, IntPredicate predicate) {
+        IntColumn c = ints(column);
+        int[] matches = new int[rowCount];
+        int n = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (!c.isNull(row) && predicate.test(c.values[row])) matches[n++] = row;
+        }
+        return Arrays.copyOf(matches, n);
+    }
+
+    /**
+     * Returns the rows whose value of an integer column matches. Null values never match.
+     *
+     * @param column    The column to test.
+     * @param predicate The condition on the value.
+     * @return the matching row indexes, in order.
+     */
+    public int[] filterLong(int column, LongPredicate predicate) {
+        Column c = columns[column];
+        if (c instanceof IntColumn) {
+            return filterInt(column, predicate::test);
+        }
+        if (!(c instanceof LongColumn)) throw wrongType(column, "LONG");
+        long[] values = ((LongColumn) c).values;
+        int[] matches = new int[rowCount];
+        int n = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (!c.isNull(row) && predicate.test(values[row])) matches[n++] = row;
+        }
+        return Arrays.copyOf(matches, n);
+    }
+
+    /**
+     * Returns the rows whose value of a numeric column matches. Null values never match.
+     *
+     * @param column    The column to test.
+     * @param predicate The condition on the value.
+     * @return the matching row indexes, in order.
+     */
+    public int[] filterDouble(int column, DoublePredicate predicate) {
+        Column c = columns[column];
+        if (c instanceof IntColumn || c instanceof LongColumn) {
+            return filterLong(column, v -> predicate.test(v));
+        }
+        if (!(c instanceof DoubleColumn)) throw wrongType(column, "DOUBLE");
+        double[] values = ((DoubleColumn) c).values;
+        int[] matches = new int[rowCount];
+        int n = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (!c.isNull(row) && predicate.test(values[row])) matches[n++] = row;
+        }
+        return Arrays.copyOf(matches, n);
+    }
+
+    /**
+     * Returns the rows whose value of a {@link ColumnType#STRING} column matches. The predicate is
+     * evaluated once per distinct value. Null values never match.
+     *
+     * @param column    The column to test.
+     * @param predicate The condition on the value.
+     * @return the matching row indexes, in order.
+     */
+    public int[] filterString(int column, Predicate<String> predicate) {
+        StringColumn c = strings(column);
+        boolean[] accepted = new boolean[c.dictionary.length];
+        for (int code = 0; code < accepted.length; code++) {
+            accepted[code] = predicate.test(c.dictionary[code]);
+        }
+        int[] matches = new int[rowCount];
+        int n = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (!c.isNull(row) && accepted[c.codes[row]]) matches[n++] = row;
+        }
+        return Arrays.copyOf(matches, n);
+    }
+
+    /**
+     * Estimates the heap used by the columns.
+     *
+     * @return the approximate size in bytes.
+     */
+    public long getMemoryBytes() {
+        long bytes = 64;
+        for (Column column : columns) {
+            bytes += column.memoryBytes();
+        }
+        return bytes;
+    }
+
+    private IntColumn ints(int column) {
+        if (!(columns[column] instanceof IntColumn)) throw wrongType(column, "INT");
+        return (IntColumn) columns[column];
+    }
+
+    private StringColumn strings(int column) {
+        if (!(columns[column] instanceof StringColumn)) throw wrongType(column, "STRING");
+        return (StringColumn) columns[column];
+    }
+
+    private IllegalStateException wrongType(int column, String expected) {
+        return new IllegalStateException("Column " + names[column] + " is " + columns[column].type + ", not " + expected);
+    }
+
+    private static ColumnType typeOf(ResultSetMetaData rsmd, int column) throws SQLException {
+        switch (rsmd.getColumnType(column)) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BOOLEAN:
+            case Types.BIT:
+                return ColumnType.INT;
+            case Types.BIGINT:
+                return ColumnType.LONG;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return ColumnType.DOUBLE;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                int precision = rsmd.getPrecision(column);
+                return rsmd.getScale(column) == 0 && precision > 0 && precision <= 18 ? ColumnType.LONG : ColumnType.DOUBLE;
+            default:
+                return ColumnType.STRING;
+        }
+    }
+
+    private static Column newColumn(ColumnType type) {
+        switch (type) {
+            case INT:
+                return new IntColumn();
+            case LONG:
+                return new LongColumn();
+            case DOUBLE:
+                return new DoubleColumn();
+            default:
+                return new StringColumn();
+        }
+    }
+
+    /**
+     * Stable merge sort of row indexes, so no Integer is boxed per row.
+     */
+    private static void mergeSort(int[] rows, int[] scratch, int from, int to, RowComparator comparator) {
+        if (to - from < 16) {
+            for (int i = from + 1; i < to; i++) {
+                int row = rows[i];
+                int j = i - 1;
+                while (j >= from && comparator.compare(rows[j], row) > 0) {
+                    rows[j + 1] = rows[j];
+                    j--;
+                }
+                rows[j + 1] = row;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        // scratch holds the same rows, so each half is sorted into the other array
+        mergeSort(scratch, rows, from, mid, comparator);
+        mergeSort(scratch, rows, mid, to, comparator);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < mid && comparator.compare(scratch[left], scratch[right]) <= 0)) {
+                rows[i] = scratch[left++];
+            } else {
+                rows[i] = scratch[right++];
+            }
+        }
+    }
+
+    /**
+     * Compares two rows by the value of a column.
+     */
+    private interface RowComparator {
+        int compare(int rowA, int rowB);
+    }
+
+    /**
+     * The values of a column plus a bitmap of its null values.
+     */
+    private abstract static class Column {
+        final ColumnType type;
+        long[] nulls = new long[16];
+
+        Column(ColumnType type) {
+            this.type = type;
+        }
+
+        boolean isNull(int row) {
+            int word = row >>> 6;
+            return word < nulls.length && (nulls[word] & (1L << row)) != 0;
+        }
+
+        void setNull(int row) {
+            int word = row >>> 6;
+            if (word >= nulls.length) nulls = Arrays.copyOf(nulls, Math.max(nulls.length * 2, word + 1));
+            nulls[word] |= 1L << row;
+        }
+
+        void trim(int rows) {
+            nulls = Arrays.copyOf(nulls, Math.min(nulls.length, (rows + 63) >>> 6));
+        }
+
+        long memoryBytes() {
+            return 16 + 8L * nulls.length;
+        }
+
+        abstract void read(ResultSet rs, int index, int row) throws SQLException;
+
+        abstract RowComparator comparator();
+    }
+
+    private static final class IntColumn extends Column {
+        int[] values = new int[1024];
+
+        IntColumn() {
+            super(ColumnType.INT);
+        }
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            if (row == values.length) values = Arrays.copyOf(values, row * 2);
+            values[row] = rs.getInt(index);
+            if (rs.wasNull()) setNull(row);
+        }
+
+        @Override
+        void trim(int rows) {
+            super.trim(rows);
+            values = Arrays.copyOf(values, rows);
+        }
+
+        @Override
+        long memoryBytes() {
+            return super.memoryBytes() + 16 + 4L * values.length;
+        }
+
+        @Override
+        RowComparator comparator() {
+            return (a, b) -> Integer.compare(values[a], values[b]);
+        }
+    }
+
+    private static final class LongColumn extends Column {
+        long[] values = new long[1024];
+
+        LongColumn() {
+            super(ColumnType.LONG);
+        }
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            if (row == values.length) values = Arrays.copyOf(values, row * 2);
+            values[row] = rs.getLong(index);
+            if (rs.wasNull()) setNull(row);
+        }
+
+        @Override
+        void trim(int rows) {
+            super.trim(rows);
+            values = Arrays.copyOf(values, rows);
+        }
+
+        @Override
+        long memoryBytes() {
+            return super.memoryBytes() + 16 + 8L * values.length;
+        }
+
+        @Override
+        RowComparator comparator() {
+            return (a, b) -> Long.compare(values[a], values[b]);
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+        double[] values = new double[1024];
+
+        DoubleColumn() {
+            super(ColumnType.DOUBLE);
+        }
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            if (row == values.length) values = Arrays.copyOf(values, row * 2);
+            values[row] = rs.getDouble(index);
+            if (rs.wasNull()) setNull(row);
+        }
+
+        @Override
+        void trim(int rows) {
+            super.trim(rows);
+            values = Arrays.copyOf(values, rows);
+        }
+
+        @Override
+        long memoryBytes() {
+            return super.memoryBytes() + 16 + 8L * values.length;
+        }
+
+        @Override
+        RowComparator comparator() {
+            return (a, b) -> Double.compare(values[a], values[b]);
+        }
+    }
+
+    private static final class StringColumn extends Column {
+        int[] codes = new int[1024];
+        String[] dictionary;
+        private List<String> values = new ArrayList<>();        // Only while reading
+        private Map<String, Integer> lookup = new HashMap<>(); // Only while reading
+
+        StringColumn() {
+            super(ColumnType.STRING);
+        }
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            if (row == codes.length) codes = Arrays.copyOf(codes, row * 2);
+            String value = rs.getString(index);
+            if (value == null) {
+                setNull(row);
+                return;
+            }
+            Integer code = lookup.get(value);
+            if (code == null) {
+                code = values.size();
+                values.add(value);
+                lookup.put(value, code);
+            }
+            codes[row] = code;
+        }
+
+        @Override
+        void trim(int rows) {
+            super.trim(rows);
+            codes = Arrays.copyOf(codes, rows);
+            dictionary = values.toArray(new String[0]);
+            values = null;
+            lookup = null;
+        }
+
+        String valueAt(int row) {
+            return dictionary[codes[row]];
+        }
+
+        @Override
+        long memoryBytes() {
+            long bytes = super.memoryBytes() + 16 + 4L * codes.length + 16 + 4L * dictionary.length;
+            for (String value : dictionary) {
+                bytes += 40 + 2L * value.length();
+            }
+            return bytes;
+        }
+
+        @Override
+        RowComparator comparator() {
+            // Rank the dictionary once, then rows compare by the rank of their code
+            Integer[] byValue = new Integer[dictionary.length];
+            for (int i = 0; i < byValue.length; i++) {
+                byValue[i] = i;
+            }
+            Arrays.sort(byValue, (a, b) -> dictionary[a].compareTo(dictionary[b]));
+            int[] rank = new int[dictionary.length];
+            for (int i = 0; i < byValue.length; i++) {
+                rank[byValue[i]] = i;
+            }
+            return (a, b) -> Integer.compare(rank[codes[a]], rank[codes[b]]);
+        }
+    }
+}
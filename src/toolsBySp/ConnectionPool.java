@@ -0,0 +1,746 @@
+package toolsBySp;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded pool of JDBC connections to a single database.
+ *
+ * <p>The pool keeps between a minimum and a maximum number of physical connections open.
+ * Connections handed out by {@link #getConnection()} are lightweight wrappers: calling
+ * {@code close()} on them (directly or through {@link DatabaseUtils#closeConnection(Connection)})
+ * returns the physical connection to the pool instead of closing the socket.</p>
+ *
+ * <p>When a borrowed connection is returned, the statements created on it are closed, an open
+ * transaction is rolled back and the auto-commit, read-only, transaction isolation, catalog, schema
+ * and holdability settings the physical connection was opened with are restored, so nothing the
+ * borrower left behind reaches the next one.</p>
+ *
+ * <p>Idle connections are validated with {@link Connection#isValid(int)} only when they have been
+ * idle for longer than the validation interval, and connections idle for longer than the idle
+ * timeout are closed in the background as long as the pool stays above its minimum size.
+ * Callers waiting for a free connection give up after the wait timeout.</p>
+ *
+ * <p>With {@link #setStatementCacheSize(int)}, each physical connection keeps a {@link StatementCache},
+ * so {@code prepareStatement} calls on borrowed connections reuse statements prepared by earlier borrowers.</p>
+ *
+ * <p>The statements created on borrowed connections, cached or not, report their execution time to
+ * {@link DatabaseMetrics}. Batches added with {@link Statement#addBatch(String)} are the exception,
+ * as there is no single SQL text to record them under.</p>
+ *
+ * @author Samuel Pestana
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minConnections;
+    private final int maxConnections;
+
+    private volatile long waitTimeoutMillis = 30_000;
+    private volatile long idleTimeoutMillis = 600_000;
+    private volatile long validationIntervalMillis = 5_000;
+    private volatile int validationTimeoutSeconds = 2;
+    private volatile int statementCacheSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+    private int totalConnections; // Physical connections, idle + borrowed + being opened
+    private boolean closed;
+
+    private final ScheduledExecutorService evictor;
+
+    /**
+     * Creates a pool for the given database and opens the minimum number of connections.
+     *
+     * @param url            The database URL (e.g., "jdbc:mysql://localhost:3306/mydb").
+     * @param user           The database username.
+     * @param password       The database password.
+     * @param minConnections The number of connections kept open even when idle.
+     * @param maxConnections The maximum number of connections open at the same time.
+     * @throws IllegalArgumentException if the sizes are negative or {@code minConnections > maxConnections}.
+     */
+    public ConnectionPool(String url, String user, String password, int minConnections, int maxConnections) {
+        if (minConnections < 0 || maxConnections < 1 || minConnections > maxConnections) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minConnections + ", max=" + maxConnections);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minConnections = minConnections;
+        this.maxConnections = maxConnections;
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "toolsBySp-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        this.evictor.scheduleWithFixedDelay(this::evictIdle, 1, 1, TimeUnit.SECONDS);
+
+        fillToMinimum();
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if none is idle and the pool
+     * is below its maximum size. If the pool is exhausted, waits up to the wait timeout.
+     *
+     * @return A pooled Connection, or null if none became available in time, the pool is closed
+     *         or a SQLException occurs while opening a new connection.
+     */
+    public Connection getConnection() {
+        long start = System.nanoTime();
+        Connection conn = acquire(start + TimeUnit.MILLISECONDS.toNanos(waitTimeoutMillis));
+        if (conn != null) {
+            DatabaseMetrics.getDefault().recordConnectionAcquired(System.nanoTime() - start);
+        }
+        return conn;
+    }
+
+    /**
+     * Borrows a connection, waiting for one until the given {@link System#nanoTime()} deadline.
+     */
+    private Connection acquire(long deadline) {
+        while (true) {
+            PooledConnection candidate = null;
+            boolean open = false;
+
+            lock.lock();
+            try {
+                while (candidate == null && !open) {
+                    if (closed) return null;
+                    candidate = idle.pollFirst();
+                    if (candidate == null) {
+                        if (totalConnections < maxConnections) {
+                            totalConnections++; // Reserve a slot, the connection is opened outside the lock
+                            open = true;
+                        } else {
+                            long remaining = deadline - System.nanoTime();
+                            if (remaining <= 0) return null;
+                            try {
+                                available.awaitNanos(remaining);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                return null;
+                            }
+                        }
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (open) {
+                PooledConnection pc = openPhysical();
+                if (pc == null) {
+                    releaseSlot();
+                    return null;
+                }
+                return pc.borrow();
+            }
+
+            if (isUsable(candidate)) {
+                return candidate.borrow();
+            }
+            discard(candidate); // Broken connection, try again with the next one
+        }
+    }
+
+    /**
+     * Opens and validates connections in parallel until the pool holds the given number, so the
+     * first requests after startup do not pay for driver initialization and the handshake.
+     * Meant to be called before the application reports itself ready; waits at most the wait timeout.
+     *
+     * @param connections The number of connections wanted, capped at the maximum size of the pool.
+     * @return The number of connections this call opened and validated before the warm-up ended,
+     *         0 if the pool already held enough, or -1 if the pool is closed.
+     */
+    public int warmUp(int connections) {
+        int toOpen;
+        lock.lock();
+        try {
+            if (closed) return -1;
+            toOpen = Math.max(0, Math.min(connections, maxConnections) - totalConnections);
+            totalConnections += toOpen; // Reserve the slots, the connections are opened outside the lock
+        } finally {
+            lock.unlock();
+        }
+        if (toOpen == 0) return 0;
+
+        DriverRegistry.getDefault().discover();
+        ExecutorService opener = Executors.newFixedThreadPool(toOpen, r -> {
+            Thread t = new Thread(r, "toolsBySp-pool-warmup");
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger opened = new AtomicInteger();
+        for (int i = 0; i < toOpen; i++) {
+            opener.execute(() -> {
+                if (openValidated()) opened.incrementAndGet();
+            });
+        }
+        opener.shutdown();
+        try {
+            opener.awaitTermination(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // The connections still being opened join the pool when ready
+        }
+        return opened.get();
+    }
+
+    /**
+     * Opens a connection in a reserved slot and adds it to the idle connections if it is valid.
+     * The slot is freed whatever goes wrong, including a runtime exception from the driver.
+     *
+     * @return true if the connection joined the idle connections.
+     */
+    private boolean openValidated() {
+        PooledConnection pc = null;
+        boolean handedOver = false;
+        try {
+            pc = openPhysical();
+            if (pc == null || !pc.physical.isValid(validationTimeoutSeconds)) return false;
+            handedOver = true; // From here on release() accounts for the slot
+            return release(pc);
+        } catch (SQLException e) {
+            return false;
+        } finally {
+            if (!handedOver) {
+                if (pc != null) {
+                    discard(pc);
+                } else {
+                    releaseSlot();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets how long {@link #getConnection()} waits for a free connection when the pool is exhausted.
+     *
+     * @param waitTimeoutMillis The wait timeout in milliseconds.
+     */
+    public void setWaitTimeoutMillis(long waitTimeoutMillis) {
+        this.waitTimeoutMillis = waitTimeoutMillis;
+    }
+
+    /**
+     * Sets how long a connection may stay idle before it is closed, as long as the pool stays
+     * above its minimum size.
+     *
+     * @param idleTimeoutMillis The idle timeout in milliseconds.
+     */
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Sets how long a connection may stay idle before it is validated again when borrowed.
+     * Connections returned more recently than this are handed out without a round trip.
+     *
+     * @param validationIntervalMillis The validation interval in milliseconds.
+     */
+    public void setValidationIntervalMillis(long validationIntervalMillis) {
+        this.validationIntervalMillis = validationIntervalMillis;
+    }
+
+    /**
+     * Sets the timeout passed to {@link Connection#isValid(int)} when validating a connection.
+     *
+     * @param validationTimeoutSeconds The validation timeout in seconds.
+     */
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    /**
+     * Sets the number of prepared statements cached per physical connection.
+     * With a size of 0 (the default) statements are not cached.
+     *
+     * @param statementCacheSize The maximum number of cached statements per connection.
+     */
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+    }
+
+    /**
+     * Returns the number of physical connections currently open (idle or borrowed).
+     *
+     * @return the number of open connections.
+     */
+    public int getTotalConnections() {
+        lock.lock();
+        try {
+            return totalConnections;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of idle connections waiting in the pool.
+     *
+     * @return the number of idle connections.
+     */
+    public int getIdleConnections() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops the pool. Borrowed connections are closed
+     * when they are returned.
+     */
+    @Override
+    public void close() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            totalConnections -= idle.size();
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        evictor.shutdownNow();
+        for (PooledConnection pc : toClose) {
+            pc.closePhysical();
+        }
+    }
+
+    /**
+     * Opens a new physical connection, or returns null if a SQLException occurs.
+     */
+    private PooledConnection openPhysical() {
+        Connection physical = null;
+        try {
+            physical = DriverRegistry.getDefault().connect(url, user, password);
+            return new PooledConnection(physical);
+        } catch (SQLException e) {
+            if (physical != null) closeQuietly(physical);
+            DatabaseMetrics.getDefault().recordError(e);
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether an idle connection can be handed out, validating it only if it has been
+     * idle for longer than the validation interval.
+     */
+    private boolean isUsable(PooledConnection pc) {
+        try {
+            if (pc.physical.isClosed()) return false;
+            if (System.nanoTime() - pc.lastUsedNanos < TimeUnit.MILLISECONDS.toNanos(validationIntervalMillis)) {
+                return true;
+            }
+            return pc.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns a borrowed connection to the pool, or closes it if the pool is closed or the
+     * connection is broken. The statements the borrower left open are closed and the session
+     * is reset to the settings the connection was opened with.
+     *
+     * @return true if the connection joined the idle connections.
+     */
+    private boolean release(PooledConnection pc) {
+        boolean healthy;
+        try {
+            healthy = !pc.physical.isClosed();
+            if (healthy) {
+                pc.closeStatements();
+                if (!pc.physical.getAutoCommit()) {
+                    pc.physical.rollback(); // Do not leak an open transaction to the next borrower
+                    pc.physical.setAutoCommit(true);
+                }
+                pc.resetSession();
+            }
+        } catch (SQLException e) {
+            healthy = false; // A session that cannot be reset is not handed out again
+        }
+
+        lock.lock();
+        try {
+            if (healthy && !closed) {
+                pc.lastUsedNanos = System.nanoTime();
+                idle.addFirst(pc); // LIFO keeps the hottest connections in use and lets the rest expire
+                available.signal();
+                return true;
+            }
+            totalConnections--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        pc.closePhysical();
+        return false;
+    }
+
+    /**
+     * Closes a broken connection and frees its slot.
+     */
+    private void discard(PooledConnection pc) {
+        pc.closePhysical();
+        releaseSlot();
+    }
+
+    private void releaseSlot() {
+        lock.lock();
+        try {
+            totalConnections--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes connections that have been idle for too long and reopens connections
+     * up to the minimum size. Runs periodically on the evictor thread.
+     */
+    private void evictIdle() {
+        List<PooledConnection> expired = new ArrayList<>();
+        long now = System.nanoTime();
+        long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+
+        lock.lock();
+        try {
+            // The oldest connections sit at the end of the deque
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && totalConnections > minConnections) {
+                PooledConnection pc = it.next();
+                if (now - pc.lastUsedNanos < idleTimeoutNanos) break;
+                it.remove();
+                totalConnections--;
+                expired.add(pc);
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (PooledConnection pc : expired) {
+            pc.closePhysical();
+        }
+
+        fillToMinimum();
+    }
+
+    /**
+     * Opens connections until the pool reaches its minimum size.
+     */
+    private void fillToMinimum() {
+        while (true) {
+            lock.lock();
+            try {
+                if (closed || totalConnections >= minConnections) return;
+                totalConnections++;
+            } finally {
+                lock.unlock();
+            }
+
+            PooledConnection pc = openPhysical();
+            if (pc == null) {
+                releaseSlot();
+                return; // Database unreachable, the evictor will try again later
+            }
+            release(pc);
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            // Nothing else can be done with a connection that fails to close
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // The statement is abandoned either way
+        }
+    }
+
+    /**
+     * A physical connection owned by the pool, with the session settings it was opened with.
+     */
+    private final class PooledConnection {
+        final Connection physical;
+        long lastUsedNanos = System.nanoTime();
+        private StatementCache statements;
+
+        // Uncached statements created by the current borrower and not closed yet
+        private final Set<Statement> openStatements = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private final boolean readOnly;
+        private final int isolation;
+        private final String catalog;
+        private final int holdability;
+        private final boolean hasSchema; // False if the driver predates Connection.getSchema()
+        private final String schema;
+
+        PooledConnection(Connection physical) throws SQLException {
+            this.physical = physical;
+            this.readOnly = physical.isReadOnly();
+            this.isolation = physical.getTransactionIsolation();
+            this.catalog = physical.getCatalog();
+            this.holdability = physical.getHoldability();
+            String current = null;
+            boolean supported;
+            try {
+                current = physical.getSchema();
+                supported = true;
+            } catch (SQLException | AbstractMethodError e) {
+                supported = false;
+            }
+            this.hasSchema = supported;
+            this.schema = current;
+        }
+
+        void track(Statement statement) {
+            synchronized (openStatements) {
+                openStatements.add(statement);
+            }
+        }
+
+        void forget(Statement statement) {
+            synchronized (openStatements) {
+                openStatements.remove(statement);
+            }
+        }
+
+        /**
+         * Closes the statements the borrower did not close, which also closes their result sets,
+         * and takes back the cached statements it did not return.
+         */
+        void closeStatements() {
+            if (statements != null) statements.releaseAll();
+            List<Statement> leftOpen;
+            synchronized (openStatements) {
+                if (openStatements.isEmpty()) return;
+                leftOpen = new ArrayList<>(openStatements);
+                openStatements.clear();
+            }
+            for (Statement statement : leftOpen) {
+                closeQuietly(statement);
+            }
+        }
+
+        /**
+         * Restores the session settings the borrower changed. Called after the transaction was ended.
+         */
+        void resetSession() throws SQLException {
+            if (physical.isReadOnly() != readOnly) physical.setReadOnly(readOnly);
+            if (physical.getTransactionIsolation() != isolation) physical.setTransactionIsolation(isolation);
+            if (!Objects.equals(physical.getCatalog(), catalog)) physical.setCatalog(catalog);
+            if (hasSchema && !Objects.equals(physical.getSchema(), schema)) physical.setSchema(schema);
+            if (physical.getHoldability() != holdability) physical.setHoldability(holdability);
+        }
+
+        /**
+         * Returns the statement cache of this connection, or null if caching is disabled.
+         * Only called by the current borrower, so no locking is needed.
+         */
+        StatementCache statements() {
+            if (statements == null && statementCacheSize > 0) {
+                statements = new StatementCache(physical, statementCacheSize);
+            }
+            return statements;
+        }
+
+        void closePhysical() {
+            if (statements != null) statements.close();
+            closeQuietly(physical);
+        }
+
+        /**
+         * Creates the wrapper handed out to a caller. Each borrow gets its own wrapper so that
+         * a stale reference cannot be used after it has been returned to the pool.
+         */
+        Connection borrow() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    new BorrowedConnection(this));
+        }
+    }
+
+    /**
+     * Forwards every call to the physical connection, except {@code close()}, which returns it to the pool.
+     */
+    private final class BorrowedConnection implements InvocationHandler {
+        private PooledConnection pooled;
+
+        BorrowedConnection(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    synchronized (this) {
+                        if (pooled != null) {
+                            PooledConnection pc = pooled;
+                            pooled = null;
+                            release(pc);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    synchronized (this) {
+                        return pooled == null || pooled.physical.isClosed();
+                    }
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + url + "]";
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) return proxy;
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) return true;
+                    break;
+                default:
+                    break;
+            }
+
+            PooledConnection pc;
+            synchronized (this) {
+                if (pooled == null) {
+                    throw new SQLException("Connection has been returned to the pool");
+                }
+                pc = pooled;
+            }
+            if (name.equals("prepareStatement")) {
+                PreparedStatement cached = prepareCached(pc, (Connection) proxy, method, args);
+                if (cached != null) return cached;
+            }
+            Object result;
+            try {
+                result = method.invoke(pc.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Statement) {
+                String sql = name.equals("createStatement") ? null : (String) args[0];
+                pc.track((Statement) result);
+                return Proxy.newProxyInstance(
+                        ConnectionPool.class.getClassLoader(),
+                        new Class<?>[] { method.getReturnType(), DatabaseMetrics.Timed.class },
+                        new TimedStatement(pc, (Connection) proxy, (Statement) result, sql));
+            }
+            return result;
+        }
+
+        /**
+         * Serves {@code prepareStatement(sql)} and {@code prepareStatement(sql, type, concurrency)}
+         * from the statement cache, or returns null if the call cannot be cached.
+         */
+        private PreparedStatement prepareCached(PooledConnection pc, Connection borrowed, Method method, Object[] args)
+                throws SQLException {
+            StatementCache cache = pc.statements();
+            if (cache == null) return null;
+            Class<?>[] types = method.getParameterTypes();
+            if (types.length == 1) {
+                return cache.prepare((String) args[0], ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, borrowed);
+            }
+            if (types.length == 3 && types[1] == int.class && types[2] == int.class) {
+                return cache.prepare((String) args[0], (Integer) args[1], (Integer) args[2], borrowed);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Forwards every call to a statement that is not cached, timing the {@code execute} calls for
+     * {@link DatabaseMetrics}. Prepared statements are recorded under the SQL they were prepared with,
+     * plain statements under the SQL passed to each call. {@code getConnection()} returns the borrowed
+     * wrapper, so the physical connection cannot be closed behind the pool's back.
+     */
+    private static final class TimedStatement implements InvocationHandler {
+        private final PooledConnection owner;
+        private final Connection borrowed;
+        private final Statement statement;
+        private final String sql;
+
+        TimedStatement(PooledConnection owner, Connection borrowed, Statement statement, String sql) {
+            this.owner = owner;
+            this.borrowed = borrowed;
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    owner.forget(statement);
+                    break;
+                case "getConnection":
+                    if (statement.isClosed()) break; // Let the driver report the closed statement
+                    return borrowed;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            String executed = sql;
+            if (executed == null && args != null && args.length > 0 && args[0] instanceof String) {
+                executed = (String) args[0];
+            }
+            boolean timed = executed != null && name.startsWith("execute");
+            long start = timed ? System.nanoTime() : 0;
+            try {
+                Object result = method.invoke(statement, args);
+                if (timed) DatabaseMetrics.getDefault().recordQuery(executed, System.nanoTime() - start);
+                return result;
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof SQLException) {
+                    DatabaseMetrics.getDefault().recordError((SQLException) e.getCause());
+                }
+                throw e.getCause();
+            }
+        }
+    }
+}
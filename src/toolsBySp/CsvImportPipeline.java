@@ -0,0 +1,492 @@
+package toolsBySp;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Imports a CSV file into a table in three stages that run at the same time: reading and parsing
+ * the file, validating the records and inserting the valid rows.
+ *
+ * <p>The stages run on their own threads (inserting runs on the caller's thread) and pass chunks of
+ * records through bounded queues, so a slow stage makes the others wait instead of filling the memory,
+ * and the file is read while the previous rows are still being inserted. Any of the {@link InputUtils}
+ * or {@link DateUtils} checks can be used as the rule of a column, for example:</p>
+ *
+ * <pre>
+ * InputUtils input = new InputUtils();
+ * CsvImportPipeline pipeline = new CsvImportPipeline(conn, "customer", "name", "email", "phone", "birth_date");
+ * pipeline.setRule("email", input::isValidEmail);
+ * pipeline.setRule("phone", input::isValidPhoneNumberFlexible);
+ * pipeline.setRule("birth_date", new DateUtils()::isValidIsoDate);
+ * CsvImportResult result = pipeline.run(csv, rejects);
+ * </pre>
+ *
+ * <p>The CSV columns must be in the same order as the table columns. Fields follow RFC 4180, the
+ * format written by {@link ResultSetExporter}: separated by commas, optionally quoted with doubled
+ * quotes inside. Empty fields are inserted as NULL and quoted empty fields ({@code ""}) as empty
+ * strings. Values are bound as strings, so the database converts them to the column types. Rows are inserted by a {@link BulkLoader}, in batches committed
+ * every {@link #setBatchesPerCommit(int) batchesPerCommit} batches.</p>
+ *
+ * <p>Records that fail validation, or do not have one field per column, are written to the rejects
+ * file with the original fields and a last {@code reject_reason} column. Rows of a batch that the
+ * database refuses are rolled back and counted as failed, like in {@link BulkLoader}.</p>
+ *
+ * @author Samuel Pestana
+ */
+public class CsvImportPipeline {
+
+    private static final int CHUNK_SIZE = 256;
+    private static final Record[] END_RECORDS = new Record[0];
+    private static final Object[][] END_ROWS = new Object[0][];
+    private static final String CRLF = "\r\n";
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final Connection conn;
+    private final String table;
+    private final String[] columns;
+    private final List<Predicate<CharSequence>> rules;
+
+    private int batchSize = 1000;
+    private int batchesPerCommit = 1;
+    private int queueCapacity = 16 * 1024;
+    private boolean header = true;
+
+    /**
+     * Creates a pipeline that imports into the given table and columns.
+     * The table and column names are used as given, so they must be quoted by the caller if needed.
+     *
+     * @param conn    The connection used to insert the rows.
+     * @param table   The name of the target table.
+     * @param columns The names of the columns, in the same order as the fields of each CSV record.
+     */
+    public CsvImportPipeline(Connection conn, String table, String... columns) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("At least one column is required");
+        }
+        this.conn = conn;
+        this.table = table;
+        this.columns = columns.clone();
+        this.rules = new ArrayList<>(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            rules.add(null);
+        }
+    }
+
+    /**
+     * Sets the check the values of a column must pass. Records whose value fails it go to the rejects file.
+     * Empty fields are checked as empty text.
+     *
+     * @param column The name of the column, as given to the constructor.
+     * @param rule   The check, such as {@link InputUtils#isValidEmail(CharSequence)}, or null to accept any value.
+     * @throws IllegalArgumentException if the column is not one of the imported columns.
+     */
+    public void setRule(String column, Predicate<CharSequence> rule) {
+        int index = Arrays.asList(columns).indexOf(column);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown column: " + column);
+        }
+        rules.set(index, rule);
+    }
+
+    /**
+     * Sets the number of rows sent to the database in each batch.
+     *
+     * @param batchSize The number of rows per batch (1000 by default).
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Sets how many batches are executed before the transaction is committed.
+     *
+     * @param batchesPerCommit The number of batches per transaction (1 by default).
+     */
+    public void setBatchesPerCommit(int batchesPerCommit) {
+        this.batchesPerCommit = Math.max(1, batchesPerCommit);
+    }
+
+    /**
+     * Sets how many records each queue between two stages holds before the stage that fills it waits.
+     *
+     * @param queueCapacity The capacity of each queue in records (16384 by default).
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = Math.max(CHUNK_SIZE, queueCapacity);
+    }
+
+    /**
+     * Sets whether the first record of the file is a header with the column names, which is skipped.
+     *
+     * @param header True if the file starts with a header (the default).
+     */
+    public void setHeader(boolean header) {
+        this.header = header;
+    }
+
+    /**
+     * Imports a UTF-8 CSV file.
+     *
+     * @param csv     The file to import.
+     * @param rejects The CSV file the rejected records are written to, or null to only count them.
+     * @return The counts of the import, or null if a file cannot be opened, the insert statement cannot
+     *         be prepared or the thread is interrupted. If reading, validating or writing the rejects
+     *         fails, the import stops early and the result holds the error and the rows loaded until then,
+     *         which stay in the table.
+     */
+    public CsvImportResult run(Path csv, Path rejects) {
+        long start = System.nanoTime();
+        Reader reader;
+        Writer rejectWriter = null;
+        try {
+            reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return null;
+        }
+        try {
+            if (rejects != null) rejectWriter = Files.newBufferedWriter(rejects, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            closeQuietly(reader);
+            return null;
+        }
+
+        Stages stages = new Stages(reader, rejectWriter);
+        Thread readerThread = stageThread("reader", stages::read);
+        Thread validatorThread = stageThread("validator", stages::validate);
+        readerThread.start();
+        validatorThread.start();
+
+        BulkLoadResult load = null;
+        boolean interrupted = false;
+        try {
+            BulkLoader loader = new BulkLoader(conn, table, columns);
+            loader.setBatchSize(batchSize);
+            loader.setBatchesPerCommit(batchesPerCommit);
+            load = loader.load(new RowIterator(stages));
+        } finally {
+            stages.cancelled = true; // Stops the other stages if the loader gave up early or threw
+            try {
+                readerThread.join();
+                validatorThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                interrupted = true;
+            }
+            closeQuietly(reader);
+            if (rejectWriter != null) {
+                try {
+                    rejectWriter.close();
+                } catch (IOException e) {
+                    stages.fail(e);
+                }
+            }
+        }
+
+        if (load == null || interrupted) return null;
+        return new CsvImportResult(stages.rowsRead, stages.rowsRejected, load.getRowsLoaded(),
+                load.getFailedRows(), System.nanoTime() - start, stages.failure);
+    }
+
+    private static Thread stageThread(String stage, Runnable task) {
+        Thread t = new Thread(task, "toolsBySp-csv-" + stage + "-" + THREAD_COUNT.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    }
+
+    private static void closeQuietly(Reader reader) {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            // Nothing was written to it, nothing is lost
+        }
+    }
+
+    /**
+     * The queues and counters shared by the stages of one import.
+     */
+    private final class Stages {
+        final Reader in;
+        final Writer rejects;
+        final BlockingQueue<Record[]> records = new ArrayBlockingQueue<>(queueCapacity / CHUNK_SIZE);
+        final BlockingQueue<Object[][]> rows = new ArrayBlockingQueue<>(queueCapacity / CHUNK_SIZE);
+        volatile boolean cancelled;
+        volatile Exception failure; // The first error of a stage
+        long rowsRead; // Read by the caller after joining the reader thread
+        long rowsRejected; // Read by the caller after joining the validator thread
+
+        Stages(Reader in, Writer rejects) {
+            this.in = in;
+            this.rejects = rejects;
+        }
+
+        /**
+         * The first stage: parses the file into chunks of records.
+         */
+        void read() {
+            try {
+                CsvParser parser = new CsvParser(in);
+                if (header) {
+                    String[] names = parser.next();
+                    if (names != null && rejects != null) {
+                        writeRecord(names, "reject_reason");
+                    }
+                }
+                Record[] chunk = new Record[CHUNK_SIZE];
+                int count = 0;
+                while (!cancelled) {
+                    long line = parser.getLine();
+                    String[] fields = parser.next();
+                    if (fields == null) break;
+                    if (fields.length == 1 && fields[0] == null) continue; // Blank line
+                    chunk[count++] = new Record(line, fields);
+                    rowsRead++;
+                    if (count == CHUNK_SIZE) {
+                        put(records, chunk);
+                        chunk = new Record[CHUNK_SIZE];
+                        count = 0;
+                    }
+                }
+                if (count > 0) put(records, Arrays.copyOf(chunk, count));
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+            } finally {
+                put(records, END_RECORDS);
+            }
+        }
+
+        /**
+         * The second stage: checks each record and passes the valid ones on as rows.
+         */
+        void validate() {
+            try {
+                Record[] chunk;
+                while ((chunk = take(records, END_RECORDS)) != END_RECORDS && !cancelled) {
+                    Object[][] valid = new Object[chunk.length][];
+                    int count = 0;
+                    for (Record record : chunk) {
+                        String reason = check(record.fields);
+                        if (reason == null) {
+                            valid[count++] = record.fields;
+                        } else {
+                            rowsRejected++;
+                            if (rejects != null) writeRecord(record.fields, "line " + record.line + ": " + reason);
+                        }
+                    }
+                    if (count > 0) put(rows, count == valid.length ? valid : Arrays.copyOf(valid, count));
+                }
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+                cancelled = true;
+            } finally {
+                put(rows, END_ROWS);
+            }
+        }
+
+        synchronized void fail(Exception e) {
+            if (failure == null) failure = e;
+        }
+
+        /**
+         * Returns why a record is rejected, or null if it is valid.
+         */
+        private String check(String[] fields) {
+            if (fields.length != columns.length) {
+                return "expected " + columns.length + " fields but got " + fields.length;
+            }
+            for (int i = 0; i < fields.length; i++) {
+                Predicate<CharSequence> rule = rules.get(i);
+                if (rule != null && !rule.test(fields[i] == null ? "" : fields[i])) {
+                    return "invalid " + columns[i];
+                }
+            }
+            return null;
+        }
+
+        private void writeRecord(String[] fields, String last) throws IOException {
+            for (String field : fields) {
+                if (field != null) writeField(field);
+                rejects.write(',');
+            }
+            writeField(last);
+            rejects.write(CRLF);
+        }
+
+        private void writeField(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+            }
+            if (!quote) {
+                rejects.write(value);
+                return;
+            }
+            rejects.write('"');
+            rejects.write(value.replace("\"", "\"\""));
+            rejects.write('"');
+        }
+
+        /**
+         * Waits for room in the queue, giving up once the import is cancelled.
+         */
+        <T> void put(BlockingQueue<T> queue, T chunk) {
+            try {
+                while (!queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                    if (cancelled) return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelled = true;
+            }
+        }
+
+        /**
+         * Waits for the next chunk; the end marker is returned once the import is cancelled.
+         */
+        <T> T take(BlockingQueue<T> queue, T end) {
+            try {
+                T chunk;
+                while ((chunk = queue.poll(100, TimeUnit.MILLISECONDS)) == null) {
+                    if (cancelled) return end;
+                }
+                return chunk;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelled = true;
+                return end;
+            }
+        }
+    }
+
+    /**
+     * The rows passed to the {@link BulkLoader}, taken from the last queue as they arrive.
+     */
+    private static final class RowIterator implements Iterator<Object[]> {
+        private final Stages stages;
+        private Object[][] chunk = new Object[0][];
+        private int index;
+
+        RowIterator(Stages stages) {
+            this.stages = stages;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (index == chunk.length) {
+                if (chunk == END_ROWS) return false;
+                chunk = stages.take(stages.rows, END_ROWS);
+                index = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public Object[] next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return chunk[index++];
+        }
+    }
+
+    private static final class Record {
+        final long line;
+        final String[] fields;
+
+        Record(long line, String[] fields) {
+            this.line = line;
+            this.fields = fields;
+        }
+    }
+
+    /**
+     * Splits the characters of a CSV file into records of fields, following RFC 4180.
+     * Quoted fields may contain commas, doubled quotes and line breaks.
+     */
+    private static final class CsvParser {
+        private final Reader in;
+        private final char[] buffer = new char[64 * 1024];
+        private int position;
+        private int limit;
+        private long line = 1;
+        private final List<String> fields = new ArrayList<>();
+        private final StringBuilder field = new StringBuilder();
+
+        CsvParser(Reader in) {
+            this.in = in;
+        }
+
+        /**
+         * Returns the line number the next record starts on, starting at 1.
+         */
+        long getLine() {
+            return line;
+        }
+
+        /**
+         * Returns the fields of the next record, with null for empty unquoted fields,
+         * or null at the end of the file.
+         */
+        String[] next() throws IOException {
+            int c = read();
+            if (c < 0) return null;
+            fields.clear();
+            while (true) {
+                field.setLength(0);
+                boolean quoted = c == '"';
+                if (quoted) {
+                    while ((c = read()) >= 0) {
+                        if (c == '"') {
+                            c = read();
+                            if (c != '"') break; // The closing quote
+                        } else if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                }
+                while (c >= 0 && c != ',' && c != '\n' && c != '\r') {
+                    field.append((char) c); // Unquoted field, or anything after a closing quote
+                    c = read();
+                }
+                fields.add(quoted || field.length() > 0 ? field.toString() : null);
+                if (c != ',') break;
+                c = read();
+            }
+            if (c == '\r' && peek() == '\n') read();
+            if (c >= 0) line++;
+            return fields.toArray(new String[0]);
+        }
+
+        private int read() throws IOException {
+            if (position == limit && !fill()) return -1;
+            return buffer[position++];
+        }
+
+        private int peek() throws IOException {
+            if (position == limit && !fill()) return -1;
+            return buffer[position];
+        }
+
+        private boolean fill() throws IOException {
+            int n = in.read(buffer, 0, buffer.length);
+            if (n <= 0) return false;
+            position = 0;
+            limit = n;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package toolsBySp;
+
+/**
+ * The outcome of an import performed by {@link CsvImportPipeline}.
+ *
+ * @author Samuel Pestana
+ */
+public class CsvImportResult {
+
+    private final long rowsRead;
+    private final long rowsRejected;
+    private final long rowsLoaded;
+    private final long failedRows;
+    private final long elapsedNanos;
+    private final Exception failure;
+
+    CsvImportResult(long rowsRead, long rowsRejected, long rowsLoaded, long failedRows, long elapsedNanos,
+            Exception failure) {
+        this.rowsRead = rowsRead;
+        this.rowsRejected = rowsRejected;
+        this.rowsLoaded = rowsLoaded;
+        this.failedRows = failedRows;
+        this.elapsedNanos = elapsedNanos;
+        this.failure = failure;
+    }
+
+    /**
+     * Checks whether every record of the file was read and validated.
+     *
+     * @return true if the import ran to the end of the file, false if it stopped early.
+     */
+    public boolean isComplete() {
+        return failure == null;
+    }
+
+    /**
+     * Returns the error that stopped the import early, such as an {@link java.io.IOException} while
+     * reading the file or writing the rejects file. The rows loaded before it stay in the table.
+     *
+     * @return the error, or null if the import is complete.
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+
+    /**
+     * Returns the number of records read from the file, not counting the header.
+     *
+     * @return the number of rows read.
+     */
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    /**
+     * Returns the number of records that failed validation and went to the rejects file.
+     *
+     * @return the number of rejected rows.
+     */
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    /**
+     * Returns the number of rows committed to the table.
+     *
+     * @return the number of rows loaded.
+     */
+    public long getRowsLoaded() {
+        return rowsLoaded;
+    }
+
+    /**
+     * Returns the number of valid rows that were rolled back because their batch failed to insert.
+     *
+     * @return the number of failed rows.
+     */
+    public long getFailedRows() {
+        return failedRows;
+    }
+
+    /**
+     * Returns the time the whole import took, in milliseconds.
+     *
+     * @return the elapsed time in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    /**
+     * Returns the import throughput, counting every record read.
+     *
+     * @return the number of rows read per second.
+     */
+    public double getRowsPerSecond() {
+        if (elapsedNanos <= 0) return 0;
+        return rowsRead * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        String counts = String.format("%d rows read, %d rejected, %d loaded, %d failed in %d ms (%.0f rows/s)",
+                rowsRead, rowsRejected, rowsLoaded, failedRows, getElapsedMillis(), getRowsPerSecond());
+        return failure == null ? counts : counts + ", stopped by " + failure;
+    }
+}
@@ -0,0 +1,51 @@
+package toolsBySp;
+
+import java.sql.SQLException;
+
+/**
+ * Receives the events measured by {@link DatabaseMetrics}, for example to forward them to an
+ * external monitoring system. Every method does nothing by default, so implementations only
+ * override the events they care about.
+ *
+ * <p>Listeners are called on the thread doing the database work and should return quickly.
+ * A runtime exception thrown by a listener is ignored.</p>
+ *
+ * @author Samuel Pestana
+ */
+public interface DatabaseListener {
+
+    /**
+     * Called after a connection has been opened or borrowed from a pool.
+     *
+     * @param nanos The time it took to get the connection, in nanoseconds.
+     */
+    default void connectionAcquired(long nanos) {
+    }
+
+    /**
+     * Called after a statement has been executed.
+     *
+     * @param sql   The SQL text of the statement.
+     * @param nanos The execution time, in nanoseconds.
+     */
+    default void queryExecuted(String sql, long nanos) {
+    }
+
+    /**
+     * Called after a result set has been streamed to its output, such as by
+     * {@link DatabaseUtils#showResultSetData(java.sql.ResultSet)}.
+     *
+     * @param rows  The number of rows streamed.
+     * @param nanos The time spent reading and writing the rows, in nanoseconds.
+     */
+    default void rowsStreamed(long rows, long nanos) {
+    }
+
+    /**
+     * Called when a database operation fails.
+     *
+     * @param e The exception thrown by the driver.
+     */
+    default void error(SQLException e) {
+    }
+}
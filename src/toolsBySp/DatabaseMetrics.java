@@ -0,0 +1,292 @@
+package toolsBySp;
+
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Timing and error counters for the database helpers of this library.
+ *
+ * <p>{@link DatabaseUtils}, {@link ConnectionPool}, {@link StatementCache}, {@link BulkLoader},
+ * {@link ResultSetExporter} and {@link ResultSetRenderer} report to {@link #getDefault()}:
+ * how long it takes to get a connection, how long each SQL statement takes to execute, how many
+ * rows per second are streamed to an output and which SQLStates the failures had. Recording
+ * only touches striped counters and lock-free histograms, so the metrics can stay enabled in
+ * production. They can be read from code, from a JMX console once {@link #registerMBean()} has
+ * been called, or pushed elsewhere by a {@link DatabaseListener}.</p>
+ *
+ * <p>Statements created on connections borrowed from a {@link ConnectionPool} are timed by the pool.
+ * On any other connection, only the statements run by the helpers above are timed: a statement the
+ * caller creates and executes on a plain connection is not recorded.</p>
+ *
+ * <p>To keep memory bounded, at most {@link #MAX_TRACKED_STATEMENTS} different SQL texts get their
+ * own histogram; the executions of any further statement are recorded under {@link #OTHER_STATEMENTS}.</p>
+ *
+ * @author Samuel Pestana
+ */
+public class DatabaseMetrics implements DatabaseMetricsMXBean {
+
+    /** The maximum number of SQL texts with their own latency histogram. */
+    public static final int MAX_TRACKED_STATEMENTS = 500;
+    /** The key under which the statements beyond {@link #MAX_TRACKED_STATEMENTS} are recorded. */
+    public static final String OTHER_STATEMENTS = "(other)";
+    /** The key for errors without a SQLState. */
+    public static final String UNKNOWN_SQL_STATE = "(unknown)";
+
+    private static final DatabaseMetrics DEFAULT = new DatabaseMetrics();
+
+    private volatile boolean enabled = true;
+    private final LatencyHistogram connectionAcquire = new LatencyHistogram();
+    private final ConcurrentHashMap<String, LatencyHistogram> queries = new ConcurrentHashMap<>();
+    private final LongAdder rowsStreamed = new LongAdder();
+    private final LongAdder streamNanos = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final List<DatabaseListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Returns the instance the library reports to.
+     *
+     * @return the shared metrics.
+     */
+    public static DatabaseMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Registers these metrics in the platform MBean server as {@code toolsBySp:type=DatabaseMetrics}.
+     * Does nothing if an MBean with that name is already registered.
+     *
+     * @return true if the MBean is registered, false if the registration failed.
+     */
+    public boolean registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("toolsBySp:type=DatabaseMetrics");
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+            return true;
+        } catch (JMException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Adds a listener that is notified of every recorded event.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(DatabaseListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with {@link #addListener(DatabaseListener)}.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeListener(DatabaseListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Records the time it took to open or borrow a connection.
+     *
+     * @param nanos The elapsed time in nanoseconds.
+     */
+    public void recordConnectionAcquired(long nanos) {
+        if (!enabled) return;
+        connectionAcquire.record(nanos);
+        for (DatabaseListener listener : listeners) {
+            try {
+                listener.connectionAcquired(nanos);
+            } catch (RuntimeException ex) {
+                // A failing listener must not break the database work it observes
+            }
+        }
+    }
+
+    /**
+     * Records the execution time of a SQL statement.
+     *
+     * @param sql   The SQL text of the statement.
+     * @param nanos The elapsed time in nanoseconds.
+     */
+    public void recordQuery(String sql, long nanos) {
+        if (!enabled) return;
+        LatencyHistogram histogram = queries.get(sql);
+        if (histogram == null) {
+            String key = queries.size() < MAX_TRACKED_STATEMENTS ? sql : OTHER_STATEMENTS;
+            histogram = queries.computeIfAbsent(key, k -> new LatencyHistogram());
+        }
+        histogram.record(nanos);
+        for (DatabaseListener listener : listeners) {
+            try {
+                listener.queryExecuted(sql, nanos);
+            } catch (RuntimeException ex) {
+                // Ignored, as above
+            }
+        }
+    }
+
+    /**
+     * Records the execution time of a SQL statement, unless the statement is a proxy from
+     * {@link ConnectionPool} or {@link StatementCache} that already recorded it.
+     */
+    void recordQuery(Statement statement, String sql, long nanos) {
+        if (!(statement instanceof Timed)) recordQuery(sql, nanos);
+    }
+
+    /**
+     * Records a batch of rows streamed from a result set to an output.
+     *
+     * @param rows  The number of rows.
+     * @param nanos The time spent streaming them, in nanoseconds.
+     */
+    public void recordRowsStreamed(long rows, long nanos) {
+        if (!enabled) return;
+        rowsStreamed.add(rows);
+        streamNanos.add(nanos);
+        for (DatabaseListener listener : listeners) {
+            try {
+                listener.rowsStreamed(rows, nanos);
+            } catch (RuntimeException ex) {
+                // Ignored, as above
+            }
+        }
+    }
+
+    /**
+     * Counts a failed database operation under its SQLState.
+     *
+     * @param e The exception thrown by the driver.
+     */
+    public void recordError(SQLException e) {
+        if (!enabled) return;
+        String state = e.getSQLState() != null ? e.getSQLState() : UNKNOWN_SQL_STATE;
+        errors.computeIfAbsent(state, k -> new LongAdder()).increment();
+        for (DatabaseListener listener : listeners) {
+            try {
+                listener.error(e);
+            } catch (RuntimeException ex) {
+                // Ignored, as above
+            }
+        }
+    }
+
+    /**
+     * Returns the histogram of the time it takes to get a connection.
+     *
+     * @return the live histogram.
+     */
+    public LatencyHistogram getConnectionAcquireLatency() {
+        return connectionAcquire;
+    }
+
+    /**
+     * Returns the histogram of the execution time of a SQL statement.
+     *
+     * @param sql The SQL text, or {@link #OTHER_STATEMENTS}.
+     * @return the live histogram, or null if the statement has not been executed.
+     */
+    public LatencyHistogram getQueryLatency(String sql) {
+        return queries.get(sql);
+    }
+
+    @Override
+    public long getConnectionAcquireCount() {
+        return connectionAcquire.getCount();
+    }
+
+    @Override
+    public double getConnectionAcquireMeanMicros() {
+        return connectionAcquire.getMeanNanos() / 1000.0;
+    }
+
+    @Override
+    public long getConnectionAcquireP99Micros() {
+        return connectionAcquire.getPercentileNanos(99) / 1000;
+    }
+
+    @Override
+    public Map<String, Long> getQueryCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : queries.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().getCount());
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getQueryMeanMicros() {
+        Map<String, Double> means = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : queries.entrySet()) {
+            means.put(entry.getKey(), entry.getValue().getMeanNanos() / 1000.0);
+        }
+        return means;
+    }
+
+    @Override
+    public Map<String, Long> getQueryP99Micros() {
+        Map<String, Long> percentiles = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : queries.entrySet()) {
+            percentiles.put(entry.getKey(), entry.getValue().getPercentileNanos(99) / 1000);
+        }
+        return percentiles;
+    }
+
+    @Override
+    public long getRowsStreamed() {
+        return rowsStreamed.sum();
+    }
+
+    @Override
+    public double getRowsPerSecond() {
+        long nanos = streamNanos.sum();
+        return nanos == 0 ? 0 : rowsStreamed.sum() * 1e9 / nanos;
+    }
+
+    @Override
+    public Map<String, Long> getErrorCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : errors.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().sum());
+        }
+        return counts;
+    }
+
+    @Override
+    public void reset() {
+        connectionAcquire.reset();
+        queries.clear();
+        rowsStreamed.reset();
+        streamNanos.reset();
+        errors.clear();
+    }
+
+    /**
+     * Implemented by the statement proxies that time their own {@code execute} calls.
+     */
+    interface Timed {
+    }
+}
@@ -0,0 +1,72 @@
+package toolsBySp;
+
+import java.util.Map;
+
+/**
+ * The JMX view of {@link DatabaseMetrics}, registered as {@code toolsBySp:type=DatabaseMetrics}
+ * by {@link DatabaseMetrics#registerMBean()}. Latencies are reported in microseconds.
+ *
+ * @author Samuel Pestana
+ */
+public interface DatabaseMetricsMXBean {
+
+    /**
+     * @return whether the metrics are being recorded.
+     */
+    boolean isEnabled();
+
+    /**
+     * @param enabled whether the metrics should be recorded.
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return the number of connections opened or borrowed.
+     */
+    long getConnectionAcquireCount();
+
+    /**
+     * @return the mean time to get a connection, in microseconds.
+     */
+    double getConnectionAcquireMeanMicros();
+
+    /**
+     * @return the 99th percentile of the time to get a connection, in microseconds.
+     */
+    long getConnectionAcquireP99Micros();
+
+    /**
+     * @return the number of executions of each SQL statement.
+     */
+    Map<String, Long> getQueryCounts();
+
+    /**
+     * @return the mean execution time of each SQL statement, in microseconds.
+     */
+    Map<String, Double> getQueryMeanMicros();
+
+    /**
+     * @return the 99th percentile of the execution time of each SQL statement, in microseconds.
+     */
+    Map<String, Long> getQueryP99Micros();
+
+    /**
+     * @return the number of rows streamed to an output.
+     */
+    long getRowsStreamed();
+
+    /**
+     * @return the rows streamed per second while streaming.
+     */
+    double getRowsPerSecond();
+
+    /**
+     * @return the number of errors by SQLState.
+     */
+    Map<String, Long> getErrorCounts();
+
+    /**
+     * Clears every metric.
+     */
+    void reset();
+}
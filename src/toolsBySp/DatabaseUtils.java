@@ -1,10 +1,10 @@
 package toolsBySp;
 
+import java.nio.file.Path;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.Iterator;
 
 /**
  * A utility class for handling database operations such as establishing 
@@ -27,15 +27,147 @@ public class DatabaseUtils {
 	 * @return A Connection object if successful, or null if a SQLException occurs.
 	 */
 	public Connection getConnection(String url, String user, String password) {
+		long start = System.nanoTime();
 		try {	
-			return DriverManager.getConnection(url, user, password);
+			Connection conn = DriverRegistry.getDefault().connect(url, user, password);
+			DatabaseMetrics.getDefault().recordConnectionAcquired(System.nanoTime() - start);
+			return conn;
 		} catch (SQLException e) {
+			DatabaseMetrics.getDefault().recordError(e);
 			return null;
 		}
 	}
 	
+	/**
+	 * Creates a bounded connection pool for the database.
+	 * The minimum number of connections is opened immediately, so the first queries
+	 * do not pay for the TCP and authentication handshake.
+	 *
+	 * @param url            The database URL (e.g., "jdbc:mysql://localhost:3306/mydb").
+	 * @param user           The database username.
+	 * @param password       The database password.
+	 * @param minConnections The number of connections kept open even when idle.
+	 * @param maxConnections The maximum number of connections open at the same time.
+	 * @return A new ConnectionPool.
+	 */
+	public ConnectionPool createPool(String url, String user, String password, int minConnections, int maxConnections) {
+		return new ConnectionPool(url, user, password, minConnections, maxConnections);
+	}
+
+	/**
+	 * Opens and validates pool connections in parallel, so the first requests after startup find
+	 * them ready. Call it, together with {@link #discoverDrivers()}, before the application reports ready.
+	 *
+	 * @param pool        The pool to warm up.
+	 * @param connections The number of connections wanted, capped at the maximum size of the pool.
+	 * @return The number of connections opened and validated, or -1 if the pool is null or closed.
+	 */
+	public int warmUp(ConnectionPool pool, int connections) {
+		if (pool == null) return -1;
+		return pool.warmUp(connections);
+	}
+
+	/**
+	 * Borrows a connection from a connection pool.
+	 * Closing the returned connection with {@link #closeConnection(Connection)} gives it back to the pool.
+	 *
+	 * @param pool The pool to borrow the connection from.
+	 * @return A Connection object if successful, or null if the pool is null, closed, exhausted or a SQLException occurs.
+	 */
+	public Connection getConnection(ConnectionPool pool) {
+		if (pool == null) return null;
+		return pool.getConnection();
+	}
+	
+	/**
+	 * Creates a prepared statement cache for a connection, so repeated SQL text is prepared only once.
+	 * Statements obtained from the cache go back to it when they are closed.
+	 *
+	 * @param conn    The connection the statements are prepared on.
+	 * @param maxSize The maximum number of statements kept open; the least recently used one is closed when full.
+	 * @return A new StatementCache, or null if the connection is null.
+	 */
+	public StatementCache createStatementCache(Connection conn, int maxSize) {
+		if (conn == null) return null;
+		return new StatementCache(conn, maxSize);
+	}
+
+	/**
+	 * Creates a pipeline that imports a CSV file into a table, reading, validating and inserting
+	 * at the same time. Rules for the columns are set with {@link CsvImportPipeline#setRule(String, java.util.function.Predicate)}
+	 * and the import is started with {@link CsvImportPipeline#run(Path, Path)}.
+	 *
+	 * @param conn    The connection used to insert the rows.
+	 * @param table   The name of the target table.
+	 * @param columns The names of the columns, in the same order as the fields of each CSV record.
+	 * @return A new CsvImportPipeline, or null if the connection is null.
+	 */
+	public CsvImportPipeline createCsvImport(Connection conn, String table, String... columns) {
+		if (conn == null) return null;
+		return new CsvImportPipeline(conn, table, columns);
+	}
+
+	/**
+	 * Creates an executor that runs queries on a connection pool asynchronously, on virtual threads
+	 * when running on Java 21 or later. At most {@code maxConcurrent} queries run at the same time.
+	 *
+	 * @param pool          The pool the connections are borrowed from.
+	 * @param maxConcurrent The maximum number of queries running at the same time.
+	 * @return A new AsyncQueryExecutor, or null if the pool is null.
+	 */
+	public AsyncQueryExecutor createAsyncExecutor(ConnectionPool pool, int maxConcurrent) {
+		if (pool == null) return null;
+		return new AsyncQueryExecutor(pool, maxConcurrent);
+	}
+
+	/**
+	 * Creates a cache of query results keyed by SQL text and parameters, for reference data that
+	 * is read far more often than it changes.
+	 *
+	 * @param maxBytes         The approximate maximum memory used by the cached results, in bytes.
+	 * @param defaultTtlMillis How long a result stays valid by default, in milliseconds.
+	 * @return A new QueryCache.
+	 */
+	public QueryCache createQueryCache(long maxBytes, long defaultTtlMillis) {
+		return new QueryCache(maxBytes, defaultTtlMillis);
+	}
+
+	/**
+	 * Runs a SQL script on several pooled connections at once. Statements are grouped with
+	 * {@code -- @group name} and {@code -- @depends other} comments; each group runs in its own
+	 * transaction as soon as the groups it depends on are committed, and statements outside any
+	 * group run independently of each other. See {@link SqlScriptRunner}.
+	 *
+	 * @param pool        The pool the connections are borrowed from.
+	 * @param script      The SQL script.
+	 * @param parallelism The maximum number of groups running at the same time.
+	 * @return The outcome of the run with the time of each statement, or null if the pool is null
+	 *         or the dependencies are unknown or form a cycle.
+	 */
+	public ScriptResult runScript(ConnectionPool pool, String script, int parallelism) {
+		if (pool == null || script == null) return null;
+		SqlScriptRunner runner = new SqlScriptRunner(pool, parallelism);
+		runner.addScript(script);
+		try {
+			return runner.run();
+		} catch (IllegalStateException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the metrics recorded by the database helpers: connection-acquire latency,
+	 * execution time per SQL statement, rows streamed per second and errors by SQLState.
+	 *
+	 * @return The shared {@link DatabaseMetrics}.
+	 */
+	public DatabaseMetrics getMetrics() {
+		return DatabaseMetrics.getDefault();
+	}
+
 	/**
 	 * Closes the given database connection.
+	 * If the connection was borrowed from a {@link ConnectionPool}, it is returned to the pool instead.
 	 *
 	 * @param conn The Connection object to close.
 	 * @return True if the connection was closed successfully, false if it was null or already closed.
@@ -56,17 +188,24 @@ public class DatabaseUtils {
 	
 	/**
      * Loads a specific database driver manually if needed.
+     * Each class is loaded only once; later calls with the same name return immediately.
      *
      * @param driverClass The full class name of the driver (e.g., "com.mysql.cj.jdbc.Driver").
      * @return True if the driver was loaded successfully, false otherwise.
      */
     public boolean loadDriver(String driverClass) {
-        try {
-            Class.forName(driverClass);
-            return true;
-        } catch (ClassNotFoundException e) {
-            return false;
-        }
+        return DriverRegistry.getDefault().loadDriver(driverClass);
+    }
+
+    /**
+     * Discovers the JDBC drivers on the class path once, so the first connection does not pay
+     * for loading and initializing them. Connections opened by this library reuse the driver
+     * found for each kind of URL.
+     *
+     * @return The number of drivers found.
+     */
+    public int discoverDrivers() {
+        return DriverRegistry.getDefault().discover();
     }
 
     /**
@@ -77,46 +216,110 @@ public class DatabaseUtils {
      *         {@code false} if it is empty, null, or an error occurs.
      */
     public boolean showResultSetData(ResultSet rs) {
-        if (rs == null) return false; // Return false if ResultSet is null
+        return showResultSetData(rs, System.out);
+    }
 
+    /**
+     * Writes the contents of a {@link ResultSet} as a formatted table to the given target,
+     * such as a file {@code Writer} or a socket stream wrapped in a {@code PrintStream}.
+     * The output is buffered and written in large chunks, see {@link ResultSetRenderer}.
+     *
+     * @param rs  The {@code ResultSet} to display.
+     * @param out The target the table is written to.
+     * @return {@code true} if the ResultSet contains data and was written successfully, 
+     *         {@code false} if it is empty, null, or an error occurs.
+     */
+    public boolean showResultSetData(ResultSet rs, Appendable out) {
+        if (out == null) return false;
+        return new ResultSetRenderer(out).render(rs);
+    }
+
+    /**
+     * Shows the contents of a {@link ResultSet} on the console a page at a time, waiting for Enter
+     * between pages ({@code q} stops). Only a sample of the rows is held in memory, and the column
+     * widths are computed from it, see {@link ResultSetPager}.
+     *
+     * @param rs       The {@code ResultSet} to display.
+     * @param pageSize The number of rows per page.
+     * @return {@code true} if the ResultSet contains data and was displayed successfully,
+     *         {@code false} if it is empty, null, or an error occurs.
+     */
+    public boolean showResultSetData(ResultSet rs, int pageSize) {
+        ResultSetPager pager = new ResultSetPager(System.out);
+        pager.setPageSize(pageSize);
+        pager.setFetchSize(pageSize);
+        return pager.browse(rs, FastInput.standardInput()) > 0;
+    }
+
+    /**
+     * Reads the remaining rows of a {@link ResultSet} into compact column-oriented storage: numbers
+     * in primitive arrays with null bitmaps and text dictionary-encoded, see {@link ColumnarResult}.
+     *
+     * @param rs The {@code ResultSet} to read; it is not closed.
+     * @return The rows read, or null if the ResultSet is null or a SQLException occurs.
+     */
+    public ColumnarResult materialize(ResultSet rs) {
+        if (rs == null) return null;
+        long start = System.nanoTime();
         try {
-            if (!rs.isBeforeFirst()) { // Check if the ResultSet has data
-                return false;
-            }
-
-            // Retrieve metadata from the ResultSet
-            ResultSetMetaData rsmd = rs.getMetaData();
-            int cols = rsmd.getColumnCount(); // Get the number of columns
-            int[] colWidths = new int[cols]; // Array to store column widths
-
-            // Calculate column widths based on column names and display sizes
-            for (int i = 1; i <= cols; i++) {
-                String colName = rsmd.getColumnName(i);
-                colWidths[i - 1] = Math.max(colName.length(), rsmd.getColumnDisplaySize(i));
-                System.out.print(String.format("%-" + colWidths[i - 1] + "s", colName) + "\t");
-            }
-            System.out.println(); // New line after headers
-
-            // Print separator line
-            for (int i = 0; i < cols; i++) {
-                for (int j = 0; j < colWidths[i]; j++) {
-                    System.out.print("-");
-                }
-                System.out.print("\t");
-            }
-            System.out.println(); // New line after separator
-
-            // Iterate through rows and print data
-            while (rs.next()) {
-                for (int i = 1; i <= cols; i++) {
-                    String dato = rs.getString(i);
-                    System.out.print(String.format("%-" + colWidths[i - 1] + "s", dato != null ? dato : "NULL") + "\t");
-                }
-                System.out.println(); // New line after each row
-            }
-            return true; // Return true if data was displayed
+            ColumnarResult result = ColumnarResult.from(rs);
+            DatabaseMetrics.getDefault().recordRowsStreamed(result.getRowCount(), System.nanoTime() - start);
+            return result;
         } catch (SQLException e) {
-            return false; // Return false if an error occurs
+            DatabaseMetrics.getDefault().recordError(e);
+            return null;
         }
     }
+
+    /**
+     * Inserts every row of the iterator into a table using batched prepared statements.
+     * If auto-commit is on, it is turned off during the load and each batch is committed on its own.
+     * If it is already off, the caller owns the transaction: the rows are only inserted, a failed batch
+     * is rolled back to a savepoint and committing is left to the caller.
+     * See {@link BulkLoader} for multi-row statements and larger transactions.
+     *
+     * @param conn      The connection used to load the rows.
+     * @param table     The name of the target table.
+     * @param columns   The names of the columns, in the same order as the values of each row.
+     * @param rows      The rows to insert.
+     * @param batchSize The number of rows sent to the database in each batch.
+     * @return The result of the load with the rows per second and failed batches,
+     *         or null if the connection is null or the insert statement cannot be prepared.
+     */
+    public BulkLoadResult bulkInsert(Connection conn, String table, String[] columns, Iterator<Object[]> rows, int batchSize) {
+        if (conn == null) return null;
+        BulkLoader loader = new BulkLoader(conn, table, columns);
+        loader.setBatchSize(batchSize);
+        return loader.load(rows);
+    }
+
+    /**
+     * Runs a query with a forward-only cursor and streams its rows to a CSV file.
+     *
+     * @param conn      The connection used to run the query.
+     * @param sql       The query to export.
+     * @param file      The file to write; it is created or truncated.
+     * @param fetchSize The number of rows the driver fetches in each round trip.
+     * @return The number of rows exported, or -1 if an error occurs.
+     */
+    public long exportCsv(Connection conn, String sql, Path file, int fetchSize) {
+        ResultSetExporter exporter = new ResultSetExporter();
+        exporter.setFetchSize(fetchSize);
+        return exporter.exportCsv(conn, sql, file);
+    }
+
+    /**
+     * Runs a query with a forward-only cursor and streams its rows to a JSON Lines file.
+     *
+     * @param conn      The connection used to run the query.
+     * @param sql       The query to export.
+     * @param file      The file to write; it is created or truncated.
+     * @param fetchSize The number of rows the driver fetches in each round trip.
+     * @return The number of rows exported, or -1 if an error occurs.
+     */
+    public long exportJsonLines(Connection conn, String sql, Path file, int fetchSize) {
+        ResultSetExporter exporter = new ResultSetExporter();
+        exporter.setFetchSize(fetchSize);
+        return exporter.exportJsonLines(conn, sql, file);
+    }
 }
@@ -0,0 +1,110 @@
+package toolsBySp;
+
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread-safe, bounded cache of compiled {@link DateTimeFormatter}s keyed by pattern and locale.
+ *
+ * <p>{@link DateTimeFormatter#ofPattern(String)} parses the pattern every time it is called, which
+ * dominates the cost of formatting when only a handful of patterns are used over and over.
+ * Formatters are immutable, so a cached one can be shared by every thread. Lookups do not lock;
+ * when the cache is full, an arbitrary entry is dropped to make room for the new one.</p>
+ *
+ * @author Samuel Pestana
+ */
+public class DateFormatterCache {
+
+    private final int maxSize;
+    private final ConcurrentHashMap<Key, DateTimeFormatter> formatters = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a cache holding at most {@code maxSize} formatters.
+     *
+     * @param maxSize The maximum number of cached formatters.
+     */
+    public DateFormatterCache(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    /**
+     * Returns the formatter for a pattern in the default formatting locale,
+     * the same formatter {@link DateTimeFormatter#ofPattern(String)} would build.
+     *
+     * @param pattern The pattern, such as "dd/MM/yyyy".
+     * @return the compiled formatter.
+     * @throws IllegalArgumentException if the pattern is invalid.
+     */
+    public DateTimeFormatter get(String pattern) {
+        return get(pattern, Locale.getDefault(Locale.Category.FORMAT));
+    }
+
+    /**
+     * Returns the formatter for a pattern in the given locale,
+     * the same formatter {@link DateTimeFormatter#ofPattern(String, Locale)} would build.
+     *
+     * @param pattern The pattern, such as "dd MMMM yyyy".
+     * @param locale  The locale used for month and day names.
+     * @return the compiled formatter.
+     * @throws IllegalArgumentException if the pattern is invalid.
+     */
+    public DateTimeFormatter get(String pattern, Locale locale) {
+        Key key = new Key(pattern, locale);
+        DateTimeFormatter formatter = formatters.get(key);
+        if (formatter != null) return formatter;
+
+        formatter = DateTimeFormatter.ofPattern(pattern, locale);
+        if (formatters.size() >= maxSize) {
+            Iterator<Key> it = formatters.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        DateTimeFormatter previous = formatters.putIfAbsent(key, formatter);
+        return previous != null ? previous : formatter;
+    }
+
+    /**
+     * Returns the number of cached formatters.
+     *
+     * @return the size of the cache.
+     */
+    public int size() {
+        return formatters.size();
+    }
+
+    /**
+     * Removes every cached formatter.
+     */
+    public void clear() {
+        formatters.clear();
+    }
+
+    private static final class Key {
+        final String pattern;
+        final Locale locale;
+        final int hash;
+
+        Key(String pattern, Locale locale) {
+            this.pattern = pattern;
+            this.locale = locale;
+            this.hash = pattern.hashCode() * 31 + locale.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return pattern.equals(k.pattern) && locale.equals(k.locale);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package toolsBySp;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * A utility class for formatting and parsing dates in bulk.
+ *
+ * <p>Pattern-based formatting goes through a shared {@link DateFormatterCache}, so each pattern is
+ * compiled only once. ISO dates ({@code yyyy-MM-dd}) are parsed and formatted by hand with
+ * fixed-width digit arithmetic, which avoids the general-purpose {@link DateTimeFormatter} machinery
+ * for the most common format.</p>
+ *
+ * @author Samuel Pestana
+ */
+public class DateUtils {
+
+    private static final DateFormatterCache SHARED_FORMATTERS = new DateFormatterCache(64);
+
+    private final DateFormatterCache formatters;
+
+    /**
+     * Creates a DateUtils that uses the formatter cache shared by the whole library.
+     */
+    public DateUtils() {
+        this(SHARED_FORMATTERS);
+    }
+
+    /**
+     * Creates a DateUtils that uses the given formatter cache.
+     *
+     * @param formatters The cache of compiled formatters.
+     */
+    public DateUtils(DateFormatterCache formatters) {
+        this.formatters = formatters;
+    }
+
+    /**
+     * Formats a date according to a pattern, using a cached formatter.
+     * 
+     * @param date The LocalDate object to be formatted.
+     * @param pattern The pattern to be used for formatting the date (e.g., "yyyy-MM-dd", "dd/MM/yyyy").
+     * @return A string representing the formatted date.
+     * @throws IllegalArgumentException if the pattern is invalid.
+     */
+    public String format(LocalDate date, String pattern) {
+        if (isIsoPattern(pattern) && hasFourDigitYear(date)) {
+            return formatIsoDate(date);
+        }
+        return date.format(formatters.get(pattern));
+    }
+
+    /**
+     * Formats a date according to a pattern and locale, using a cached formatter.
+     * 
+     * @param date The LocalDate object to be formatted.
+     * @param pattern The pattern to be used for formatting the date (e.g., "dd MMMM yyyy").
+     * @param locale The locale used for month and day names.
+     * @return A string representing the formatted date.
+     * @throws IllegalArgumentException if the pattern is invalid.
+     */
+    public String format(LocalDate date, String pattern, Locale locale) {
+        if (isIsoPattern(pattern) && hasFourDigitYear(date)) {
+            return formatIsoDate(date);
+        }
+        return date.format(formatters.get(pattern, locale));
+    }
+
+    /**
+     * Formats a date as {@code yyyy-MM-dd}, the same text as {@link DateTimeFormatter#ISO_LOCAL_DATE}.
+     *
+     * @param date The date to format.
+     * @return the ISO representation of the date.
+     */
+    public String formatIsoDate(LocalDate date) {
+        if (!hasFourDigitYear(date)) return date.format(DateTimeFormatter.ISO_LOCAL_DATE);
+        char[] chars = new char[10];
+        writeIsoDate(date, chars);
+        return new String(chars);
+    }
+
+    /**
+     * Appends a date as {@code yyyy-MM-dd} to a builder, without creating intermediate strings.
+     *
+     * @param date The date to format.
+     * @param out  The builder the date is appended to.
+     * @return the same builder.
+     */
+    public StringBuilder formatIsoDate(LocalDate date, StringBuilder out) {
+        if (!hasFourDigitYear(date)) return out.append(date.format(DateTimeFormatter.ISO_LOCAL_DATE));
+        int year = date.getYear();
+        int month = date.getMonthValue();
+        int day = date.getDayOfMonth();
+        return out.append((char) ('0' + year / 1000))
+                .append((char) ('0' + year / 100 % 10))
+                .append((char) ('0' + year / 10 % 10))
+                .append((char) ('0' + year % 10))
+                .append('-')
+                .append((char) ('0' + month / 10))
+                .append((char) ('0' + month % 10))
+                .append('-')
+                .append((char) ('0' + day / 10))
+                .append((char) ('0' + day % 10));
+    }
+
+    /**
+     * Parses a date in the format {@code yyyy-MM-dd}, accepting exactly what
+     * {@link DateTimeFormatter#ISO_LOCAL_DATE} accepts. Ten-character dates are parsed by hand;
+     * anything else (such as years beyond 9999) falls back to the formatter.
+     *
+     * @param text The text to parse.
+     * @return the parsed date, or null if the text is not a valid ISO date.
+     */
+    public LocalDate parseIsoDate(CharSequence text) {
+        if (text == null) return null;
+        if (text.length() != 10) {
+            try {
+                return LocalDate.parse(text, DateTimeFormatter.ISO_LOCAL_DATE);
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+        if (text.charAt(4) != '-' || text.charAt(7) != '-') return null;
+
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1) return null;
+        if (day > 28 && day > lengthOfMonth(year, month)) return null;
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * Checks whether a text is a valid date in the format {@code yyyy-MM-dd}.
+     *
+     * @param text The text to check.
+     * @return true if the text is a valid ISO date, false otherwise or if it is null.
+     */
+    public boolean isValidIsoDate(CharSequence text) {
+        return parseIsoDate(text) != null;
+    }
+
+    /**
+     * Writes the ten characters of an ISO date with a four-digit year.
+     */
+    private static void writeIsoDate(LocalDate date, char[] chars) {
+        int year = date.getYear();
+        int month = date.getMonthValue();
+        int day = date.getDayOfMonth();
+        chars[0] = (char) ('0' + year / 1000);
+        chars[1] = (char) ('0' + year / 100 % 10);
+        chars[2] = (char) ('0' + year / 10 % 10);
+        chars[3] = (char) ('0' + year % 10);
+        chars[4] = '-';
+        chars[5] = (char) ('0' + month / 10);
+        chars[6] = (char) ('0' + month % 10);
+        chars[7] = '-';
+        chars[8] = (char) ('0' + day / 10);
+        chars[9] = (char) ('0' + day % 10);
+    }
+
+    /**
+     * Parses {@code count} ASCII digits, or returns -1 if any of them is not a digit.
+     */
+    private static int digits(CharSequence text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int d = text.charAt(i) - '0';
+            if (d < 0 || d > 9) return -1;
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * "yyyy" is the year of era, which only matches the ISO year from year 1 onwards,
+     * and "uuuu" is the proleptic year; both print four digits for years 1 to 9999.
+     */
+    private static boolean isIsoPattern(String pattern) {
+        return pattern.equals("yyyy-MM-dd") || pattern.equals("uuuu-MM-dd");
+    }
+
+    private static boolean hasFourDigitYear(LocalDate date) {
+        int year = date.getYear();
+        return year >= 1 && year <= 9999;
+    }
+}
@@ -0,0 +1,186 @@
+package toolsBySp;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds the JDBC driver for a database URL once and keeps it, so opening a connection does not
+ * go through {@link DriverManager} every time.
+ *
+ * <p>{@link DriverManager#getConnection(String, String, String)} walks every registered driver,
+ * checking that the caller's class loader can see it and asking each one whether it accepts the
+ * URL. This registry discovers the drivers on the class path once through {@link ServiceLoader}
+ * and caches the driver that accepted a URL under its prefix, such as {@code jdbc:mysql:}, so
+ * later connections to the same kind of database go straight to {@link Driver#connect}.
+ * Calling {@link #discover()} at startup moves the class loading and driver initialization off
+ * the path of the first request.</p>
+ *
+ * <p>{@link DatabaseUtils} and {@link ConnectionPool} open their connections through
+ * {@link #getDefault()}.</p>
+ *
+ * @author Samuel Pestana
+ */
+public class DriverRegistry {
+
+    private static final DriverRegistry DEFAULT = new DriverRegistry();
+
+    private volatile List<Driver> drivers;
+    private final ConcurrentHashMap<String, Driver> byPrefix = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Boolean> loadedClasses = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the instance the library opens its connections through.
+     *
+     * @return the shared registry.
+     */
+    public static DriverRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Loads every driver declared in a {@code META-INF/services/java.sql.Driver} file on the
+     * class path, plus the drivers already registered with {@link DriverManager}.
+     * Only the first call does the work; drivers that fail to load are skipped.
+     *
+     * @return the number of drivers found.
+     */
+    public int discover() {
+        return drivers().size();
+    }
+
+    /**
+     * Loads a driver class by name, once. Only needed for old drivers without a service file.
+     *
+     * @param driverClass The full class name of the driver (e.g., "com.mysql.cj.jdbc.Driver").
+     * @return True if the driver was loaded successfully, false otherwise.
+     */
+    public boolean loadDriver(String driverClass) {
+        if (driverClass == null) return false;
+        if (loadedClasses.containsKey(driverClass)) return true;
+        try {
+            Class.forName(driverClass);
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+        loadedClasses.put(driverClass, Boolean.TRUE);
+        synchronized (this) {
+            drivers = null; // The new driver registered itself, look again on the next miss
+        }
+        return true;
+    }
+
+    /**
+     * Returns the driver that accepts a database URL, from the cache if a URL with the same
+     * prefix was resolved before.
+     *
+     * @param url The database URL (e.g., "jdbc:mysql://localhost:3306/mydb").
+     * @return The driver, or null if no driver accepts the URL.
+     */
+    public Driver getDriver(String url) {
+        if (url == null) return null;
+        String prefix = prefix(url);
+        Driver driver = byPrefix.get(prefix);
+        if (driver != null) return driver;
+
+        for (Driver candidate : drivers()) {
+            try {
+                if (candidate.acceptsURL(url)) {
+                    driver = candidate;
+                    break;
+                }
+            } catch (SQLException e) {
+                // This driver cannot tell, try the next one
+            }
+        }
+        if (driver == null) {
+            try {
+                driver = DriverManager.getDriver(url); // Registered after discovery by another class loader
+            } catch (SQLException e) {
+                return null;
+            }
+        }
+        byPrefix.put(prefix, driver);
+        return driver;
+    }
+
+    /**
+     * Opens a physical connection with the cached driver for the URL.
+     *
+     * @param url      The database URL.
+     * @param user     The database username, or null.
+     * @param password The database password, or null.
+     * @return the new connection.
+     * @throws SQLException if no driver accepts the URL or the driver fails to connect.
+     */
+    Connection connect(String url, String user, String password) throws SQLException {
+        Driver driver = getDriver(url);
+        if (driver == null) {
+            throw new SQLException("No suitable driver found for " + url, "08001");
+        }
+        Properties info = new Properties();
+        if (user != null) info.put("user", user);
+        if (password != null) info.put("password", password);
+        Connection conn = driver.connect(url, info);
+        if (conn == null) {
+            throw new SQLException("The driver does not accept " + url, "08001");
+        }
+        return conn;
+    }
+
+    private List<Driver> drivers() {
+        List<Driver> found = drivers;
+        if (found != null) return found;
+        synchronized (this) {
+            if (drivers == null) {
+                drivers = load();
+            }
+            return drivers;
+        }
+    }
+
+    private static List<Driver> load() {
+        List<Driver> found = new ArrayList<>();
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        Iterator<Driver> it = ServiceLoader.load(Driver.class, loader).iterator();
+        while (true) {
+            try {
+                if (!it.hasNext()) break;
+                add(found, it.next());
+            } catch (ServiceConfigurationError e) {
+                // A broken service entry, the other drivers may still load
+            }
+        }
+        Enumeration<Driver> registered = DriverManager.getDrivers();
+        while (registered.hasMoreElements()) {
+            add(found, registered.nextElement());
+        }
+        return Collections.unmodifiableList(found);
+    }
+
+    private static void add(List<Driver> found, Driver driver) {
+        for (Driver d : found) {
+            if (d.getClass() == driver.getClass()) return;
+        }
+        found.add(driver);
+    }
+
+    /**
+     * Returns the part of a URL that names the kind of database, such as {@code jdbc:mysql:}.
+     */
+    private static String prefix(String url) {
+        int first = url.indexOf(':');
+        int second = first < 0 ? -1 : url.indexOf(':', first + 1);
+        return second < 0 ? url : url.substring(0, second + 1);
+    }
+}
@@ -0,0 +1,261 @@
+package toolsBySp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+/**
+ * A buffered reader of tokens and lines that parses numbers straight from the input bytes.
+ *
+ * <p>It replaces {@link java.util.Scanner} for {@link InputUtils} and {@link MenuUtils}: the input is read
+ * in large blocks, integers are parsed without building a string and no regular expressions are involved.
+ * A single instance is meant to be shared by every prompt reading the same stream, so the stream
+ * is never closed between prompts; {@link #standardInput()} returns the shared instance for {@code System.in}.</p>
+ *
+ * <p>Tokens are separated by ASCII whitespace. Like {@code Scanner}, a token that cannot be parsed
+ * makes the {@code nextX} methods throw {@link InputMismatchException}, but the bad token is
+ * consumed, and every method throws {@link NoSuchElementException} at the end of the input.</p>
+ *
+ * @author Samuel Pestana
+ */
+public class FastInput {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static FastInput standardInput;
+
+    private final InputStream in;
+    private final Charset charset;
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+    private byte[] text = new byte[64]; // Bytes of the current token or line
+
+    /**
+     * Creates an input source over the given stream, decoding text with the default charset.
+     *
+     * @param in The stream to read from.
+     */
+    public FastInput(InputStream in) {
+        this(in, Charset.defaultCharset(), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates an input source over the given stream.
+     *
+     * @param in         The stream to read from.
+     * @param charset    The charset used to decode tokens and lines.
+     * @param bufferSize The number of bytes read from the stream at once.
+     */
+    public FastInput(InputStream in, Charset charset, int bufferSize) {
+        this.in = in;
+        this.charset = charset;
+        this.buffer = new byte[Math.max(bufferSize, 16)];
+    }
+
+    /**
+     * Returns the input source shared by everything that reads {@code System.in}.
+     *
+     * @return the shared input source for the standard input.
+     */
+    public static synchronized FastInput standardInput() {
+        if (standardInput == null) {
+            standardInput = new FastInput(System.in);
+        }
+        return standardInput;
+    }
+
+    /**
+     * Checks whether there is another token before the end of the input.
+     *
+     * @return true if another token can be read.
+     */
+    public synchronized boolean hasNext() {
+        return skipWhitespace();
+    }
+
+    /**
+     * Reads the next token.
+     *
+     * @return the next token.
+     * @throws NoSuchElementException if the input is exhausted.
+     */
+    public synchronized String next() {
+        int length = readToken();
+        return new String(text, 0, length, charset);
+    }
+
+    /**
+     * Reads the next token as an {@code int}, parsing it directly from the input bytes.
+     *
+     * @return the parsed value.
+     * @throws InputMismatchException if the token is not a valid {@code int}; the token is consumed.
+     * @throws NoSuchElementException if the input is exhausted.
+     */
+    public synchronized int nextInt() {
+        if (!skipWhitespace()) throw new NoSuchElementException();
+
+        boolean negative = false;
+        int b = buffer[position];
+        if (b == '-' || b == '+') {
+            negative = b == '-';
+            position++;
+        }
+
+        // Accumulate as a negative number so Integer.MIN_VALUE does not overflow
+        long value = 0;
+        int digits = 0;
+        boolean valid = true;
+        while (fill()) {
+            b = buffer[position];
+            if (isWhitespace(b)) break;
+            position++;
+            if (!valid) continue;
+            if (b < '0' || b > '9') {
+                valid = false;
+                continue;
+            }
+            value = value * 10 - (b - '0');
+            digits++;
+            if (value < Integer.MIN_VALUE) valid = false;
+        }
+
+        if (!valid || digits == 0 || (!negative && value == Integer.MIN_VALUE)) {
+            throw new InputMismatchException("Not an int");
+        }
+        return (int) (negative ? value : -value);
+    }
+
+    /**
+     * Reads the next token as a {@code double}.
+     *
+     * @return the parsed value.
+     * @throws InputMismatchException if the token is not a valid number; the token is consumed.
+     * @throws NoSuchElementException if the input is exhausted.
+     */
+    public synchronized double nextDouble() {
+        String token = next();
+        try {
+            return Double.parseDouble(token);
+        } catch (NumberFormatException e) {
+            throw new InputMismatchException(token);
+        }
+    }
+
+    /**
+     * Reads the next token as a {@code float}.
+     *
+     * @return the parsed value.
+     * @throws InputMismatchException if the token is not a valid number; the token is consumed.
+     * @throws NoSuchElementException if the input is exhausted.
+     */
+    public synchronized float nextFloat() {
+        String token = next();
+        try {
+            return Float.parseFloat(token);
+        } catch (NumberFormatException e) {
+            throw new InputMismatchException(token);
+        }
+    }
+
+    /**
+     * Reads the next token as a {@code boolean}, accepting "true" or "false" in any case.
+     *
+     * @return the parsed value.
+     * @throws InputMismatchException if the token is not "true" or "false"; the token is consumed.
+     * @throws NoSuchElementException if the input is exhausted.
+     */
+    public synchronized boolean nextBoolean() {
+        String token = next();
+        if (token.equalsIgnoreCase("true")) return true;
+        if (token.equalsIgnoreCase("false")) return false;
+        throw new InputMismatchException(token);
+    }
+
+    /**
+     * Reads the rest of the current line, without the line terminator ({@code \n} or {@code \r\n}).
+     *
+     * @return the rest of the line, which may be empty.
+     * @throws NoSuchElementException if the input is exhausted.
+     */
+    public synchronized String nextLine() {
+        if (!fill()) throw new NoSuchElementException();
+        int length = 0;
+        while (fill()) {
+            byte b = buffer[position++];
+            if (b == '\n') break;
+            length = append(length, b);
+        }
+        if (length > 0 && text[length - 1] == '\r') length--;
+        return new String(text, 0, length, charset);
+    }
+
+    /**
+     * Discards the rest of the current line, including its terminator.
+     * Does nothing at the end of the input.
+     */
+    public synchronized void skipLine() {
+        while (fill()) {
+            if (buffer[position++] == '\n') return;
+        }
+    }
+
+    /**
+     * Copies the next token into {@link #text} and returns its length.
+     */
+    private int readToken() {
+        if (!skipWhitespace()) throw new NoSuchElementException();
+        int length = 0;
+        while (fill()) {
+            byte b = buffer[position];
+            if (isWhitespace(b)) break;
+            position++;
+            length = append(length, b);
+        }
+        return length;
+    }
+
+    private int append(int length, byte b) {
+        if (length == text.length) text = Arrays.copyOf(text, length * 2);
+        text[length] = b;
+        return length + 1;
+    }
+
+    /**
+     * Skips whitespace and returns whether a token follows.
+     */
+    private boolean skipWhitespace() {
+        while (fill()) {
+            if (!isWhitespace(buffer[position])) return true;
+            position++;
+        }
+        return false;
+    }
+
+    /**
+     * Makes sure there is at least one unread byte in the buffer, reading a new block if needed.
+     *
+     * @return false at the end of the input.
+     */
+    private boolean fill() {
+        if (position < limit) return true;
+        try {
+            int n;
+            do {
+                n = in.read(buffer, 0, buffer.length);
+            } while (n == 0);
+            position = 0;
+            limit = Math.max(n, 0);
+            return n > 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B;
+    }
+}
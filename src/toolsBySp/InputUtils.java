@@ -1,74 +1,114 @@
 package toolsBySp;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.InputMismatchException;
-import java.util.Scanner;
-import java.util.regex.Matcher;
+import java.util.Locale;
+import java.util.NoSuchElementException;
 import java.util.regex.Pattern;
 
 /**
  * A utility class for getting various types of user input with error handling.
  * 
+ * <p>Answers are read through a shared {@link FastInput}, so any number of prompts can be asked
+ * in a row and the answers can come from the console or from any other stream.</p>
+ * 
  * @author Samuel Pestana
  * 
  */
 public class InputUtils {
 
+    // Compiled once, Pattern is immutable and safe to share between threads
+    private static final Pattern EMAIL_PATTERN = Pattern.compile(
+            "^[a-zA-Z0-9_+&*-]+(?:\\.[a-zA-Z0-9_+&*-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,7}$");
+    private static final Pattern PHONE_FLEXIBLE_PATTERN = Pattern.compile(
+            "^\\+?\\d{1,4}?[-.\\s]?\\(?\\d{1,3}?\\)?[-.\\s]?\\d{1,4}[-.\\s]?\\d{1,4}[-.\\s]?\\d{1,9}$");
+    private static final ChecksumUtils CHECKSUMS = new ChecksumUtils();
+    private static final DateUtils DATES = new DateUtils();
+
+    private final FastInput input;
+
+    /**
+     * Creates an InputUtils that reads from the standard input.
+     * Every instance created this way shares the same buffered reader, see {@link FastInput#standardInput()}.
+     */
+    public InputUtils() {
+        this(FastInput.standardInput());
+    }
+
+    /**
+     * Creates an InputUtils that reads from the given input source, for example a
+     * {@link FastInput} over a file of scripted answers.
+     *
+     * @param input The input source the answers are read from.
+     */
+    public InputUtils(FastInput input) {
+        this.input = input;
+    }
+
     /**
      * Prompts the user for an integer input and returns the result.
      * If the input is invalid, returns -1.
+     * The rest of the line after the number is discarded.
      *
      * @return the integer entered by the user or -1 if invalid.
      */
     public int askForInt() {
-        try (Scanner sc = new Scanner(System.in)) {
-            return sc.nextInt();
-        } catch (InputMismatchException e) {
+        try {
+            return input.nextInt();
+        } catch (NoSuchElementException e) {
             return -1;
+        } finally {
+            input.skipLine();
         }
     }
 
     /**
      * Prompts the user for an integer input and returns the result.
      * If the input is invalid, returns null.
+     * The rest of the line after the number is discarded.
      *
      * @return the integer entered by the user or null if invalid.
      */
     public Integer askForInteger() {
-        try (Scanner sc = new Scanner(System.in)) {
-            return sc.nextInt();
-        } catch (InputMismatchException e) {
+        try {
+            return input.nextInt();
+        } catch (NoSuchElementException e) {
             return null;
+        } finally {
+            input.skipLine();
         }
     }
 
     /**
      * Prompts the user for a float input and returns the result.
      * If the input is invalid, returns -1.
+     * The rest of the line after the number is discarded.
      *
      * @return the float entered by the user or -1 if invalid.
      */
     public float askForFloat() {
-        try (Scanner sc = new Scanner(System.in)) {
-            return sc.nextFloat();
-        } catch (InputMismatchException e) {
+        try {
+            return input.nextFloat();
+        } catch (NoSuchElementException e) {
             return -1;
+        } finally {
+            input.skipLine();
         }
     }
 
     /**
      * Prompts the user for a double input and returns the result.
      * If the input is invalid, returns null.
+     * The rest of the line after the number is discarded.
      *
      * @return the double entered by the user or null if invalid.
      */
     public Double askForDouble() {
-        try (Scanner sc = new Scanner(System.in)) {
-            return sc.nextDouble();
-        } catch (InputMismatchException e) {
+        try {
+            return input.nextDouble();
+        } catch (NoSuchElementException e) {
             return null;
+        } finally {
+            input.skipLine();
         }
     }
 
@@ -79,31 +119,26 @@ public class InputUtils {
      * @return the string entered by the user or null if invalid.
      */
     public String askForString() {
-        try (Scanner sc = new Scanner(System.in)) {
-            return sc.nextLine();
-        } catch (Exception e) {
-            return null;
-        }
+        return readLine();
     }
 
     /**
      * Prompts the user for a boolean input and returns the result.
      * The input can be "true", "yes", or "1" for true, and "false", "no", or "0" for false.
      * If the input is invalid, returns null.
+     * The rest of the line after the answer is discarded.
      *
      * @return the boolean value entered by the user or null if invalid.
      */
     public Boolean askForBoolean() {
-        try (Scanner sc = new Scanner(System.in)) {
-            String input = sc.next().toLowerCase();
-            if (input.equals("true") || input.equals("yes") || input.equals("1")) {
-                return true;
-            } else if (input.equals("false") || input.equals("no") || input.equals("0")) {
-                return false;
-            } else {
-                return null;
-            }
-        } catch (Exception e) {
+        String answer = readToken();
+        if (answer == null) return null;
+        answer = answer.toLowerCase();
+        if (answer.equals("true") || answer.equals("yes") || answer.equals("1")) {
+            return true;
+        } else if (answer.equals("false") || answer.equals("no") || answer.equals("0")) {
+            return false;
+        } else {
             return null;
         }
     }
@@ -112,20 +147,19 @@ public class InputUtils {
      * Prompts the user for a boolean input (in Spanish) and returns the result.
      * The input can be "true", "si", or "1" for true, and "false", "no", or "0" for false.
      * If the input is invalid, returns null.
+     * The rest of the line after the answer is discarded.
      *
      * @return the boolean value entered by the user or null if invalid.
      */
     public Boolean askForBooleanEs() {
-        try (Scanner sc = new Scanner(System.in)) {
-            String input = sc.next().toLowerCase();
-            if (input.equals("true") || input.equals("si") || input.equals("1")) {
-                return true;
-            } else if (input.equals("false") || input.equals("no") || input.equals("0")) {
-                return false;
-            } else {
-                return null;
-            }
-        } catch (Exception e) {
+        String answer = readToken();
+        if (answer == null) return null;
+        answer = answer.toLowerCase();
+        if (answer.equals("true") || answer.equals("si") || answer.equals("1")) {
+            return true;
+        } else if (answer.equals("false") || answer.equals("no") || answer.equals("0")) {
+            return false;
+        } else {
             return null;
         }
     }
@@ -137,26 +171,34 @@ public class InputUtils {
      * @return the date entered by the user in the format YYYY-MM-DD or null if invalid.
      */
     public String askForDate() {
-        try (Scanner sc = new Scanner(System.in)) {
-            String input = sc.nextLine();
-            LocalDate.parse(input, DateTimeFormatter.ISO_LOCAL_DATE);
-            return input;
-        } catch (DateTimeParseException e) {
-            return null;
-        }
+        String answer = readLine();
+        return DATES.isValidIsoDate(answer) ? answer : null;
     }
     
     /**
      * Formats the given LocalDate into a string according to the provided pattern.
      * The method uses the DateTimeFormatter to format the date into a human-readable string based on the specified pattern.
+     * Compiled formatters are cached, so repeated calls with the same pattern do not parse it again.
      * 
      * @param date The LocalDate object to be formatted.
      * @param pattern The pattern to be used for formatting the date (e.g., "yyyy-MM-dd", "dd/MM/yyyy").
      * @return A string representing the formatted date.
      */
     public String formatDate(LocalDate date, String pattern) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern);
-        return date.format(formatter);
+        return DATES.format(date, pattern);
+    }
+
+    /**
+     * Formats the given LocalDate into a string according to the provided pattern and locale.
+     * Compiled formatters are cached, so repeated calls with the same pattern do not parse it again.
+     * 
+     * @param date The LocalDate object to be formatted.
+     * @param pattern The pattern to be used for formatting the date (e.g., "dd MMMM yyyy").
+     * @param locale The locale used for month and day names.
+     * @return A string representing the formatted date.
+     */
+    public String formatDate(LocalDate date, String pattern, Locale locale) {
+        return DATES.format(date, pattern, locale);
     }
 
     
@@ -167,19 +209,18 @@ public class InputUtils {
      * @return a valid email address if the input is correct, or null if the format is invalid.
      */
     public String askForEmail() {
-        try(Scanner sc = new Scanner(System.in)) {
-        	String email = sc.nextLine();
-            
-            String emailRegex = "^[a-zA-Z0-9_+&*-]+(?:\\.[a-zA-Z0-9_+&*-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,7}$";
-            Pattern pattern = Pattern.compile(emailRegex);
-            Matcher matcher = pattern.matcher(email);
-            
-            if (matcher.matches()) {
-                return email;
-            } else {
-                return null;
-            }
-        }
+        String email = readLine();
+        return isValidEmail(email) ? email : null;
+    }
+
+    /**
+     * Checks whether the given text is a valid email address, using the same rules as {@link #askForEmail()}.
+     *
+     * @param email the text to check
+     * @return true if the text is a valid email address, false otherwise or if it is null
+     */
+    public boolean isValidEmail(CharSequence email) {
+        return email != null && EMAIL_PATTERN.matcher(email).matches();
     }
     
     /**
@@ -190,22 +231,19 @@ public class InputUtils {
      * @return the valid phone number entered by the user, or null if the input is invalid
      */
     public String askForPhoneNumberFlexible() {
-        try (Scanner sc = new Scanner(System.in)) {
-            // Prompt the user for the phone number input
-            String phoneNumber = sc.nextLine();
-
-            // Regular expression for phone number (optional country code + 10 to 15 digits)
-            String phoneRegex = "^\\+?\\d{1,4}?[-.\\s]?\\(?\\d{1,3}?\\)?[-.\\s]?\\d{1,4}[-.\\s]?\\d{1,4}[-.\\s]?\\d{1,9}$";
-            Pattern pattern = Pattern.compile(phoneRegex);
-            Matcher matcher = pattern.matcher(phoneNumber);
+        String phoneNumber = readLine();
+        return isValidPhoneNumberFlexible(phoneNumber) ? phoneNumber : null;
+    }
 
-            // If the phone number matches the regex, it's valid
-            if (matcher.matches()) {
-                return phoneNumber; // Return valid phone number
-            } else {
-                return null; // Invalid phone number format
-            }
-        }
+    /**
+     * Checks whether the given text is a valid phone number in the flexible format accepted by
+     * {@link #askForPhoneNumberFlexible()}: an optional country code and digits with optional separators.
+     *
+     * @param phoneNumber the text to check
+     * @return true if the text is a valid phone number, false otherwise or if it is null
+     */
+    public boolean isValidPhoneNumberFlexible(CharSequence phoneNumber) {
+        return phoneNumber != null && PHONE_FLEXIBLE_PATTERN.matcher(phoneNumber).matches();
     }
 
     /**
@@ -215,22 +253,26 @@ public class InputUtils {
      * @return the valid phone number entered by the user, or null if the input is invalid
      */
     public String askForPhoneNumberStrict() {
-        try (Scanner sc = new Scanner(System.in)) {
-            // Prompt the user for the phone number input
-            String phoneNumber = sc.nextLine();
-
-            // Regular expression for strictly digits (10 to 15 digits)
-            String phoneRegex = "^\\d{10,15}$";
-            Pattern pattern = Pattern.compile(phoneRegex);
-            Matcher matcher = pattern.matcher(phoneNumber);
+        String phoneNumber = readLine();
+        return isValidPhoneNumberStrict(phoneNumber) ? phoneNumber : null;
+    }
 
-            // If the phone number matches the regex, it's valid
-            if (matcher.matches()) {
-                return phoneNumber; // Return valid phone number
-            } else {
-                return null; // Invalid phone number format
-            }
+    /**
+     * Checks whether the given text is a valid phone number in the strict format accepted by
+     * {@link #askForPhoneNumberStrict()}: 10 to 15 digits and nothing else.
+     *
+     * @param phoneNumber the text to check
+     * @return true if the text is a valid phone number, false otherwise or if it is null
+     */
+    public boolean isValidPhoneNumberStrict(CharSequence phoneNumber) {
+        if (phoneNumber == null) return false;
+        int length = phoneNumber.length();
+        if (length < 10 || length > 15) return false;
+        for (int i = 0; i < length; i++) {
+            char c = phoneNumber.charAt(i);
+            if (c < '0' || c > '9') return false;
         }
+        return true;
     }
 
     
@@ -241,75 +283,42 @@ public class InputUtils {
      * @return the valid ISBN entered by the user, or null if the input is invalid
      */
     public String askForISBN() {
-        try (Scanner sc = new Scanner(System.in)) {
-            String isbn = sc.nextLine();
-
-            // Regular expression for ISBN-10 or ISBN-13
-            String isbnRegex = "^(?:\\d{9}[0-9X]|\\d{13})$";
-            Pattern pattern = Pattern.compile(isbnRegex);
-            Matcher matcher = pattern.matcher(isbn);
-
-            if (matcher.matches()) {
-                // Validate checksum for ISBN-10
-                if (isbn.length() == 10) {
-                    if (isValidISBN10(isbn)) {
-                        return isbn; // Valid ISBN-10
-                    } else {
-                        return null; // Invalid ISBN-10 checksum
-                    }
-                }
-
-                // Validate checksum for ISBN-13
-                if (isbn.length() == 13) {
-                    if (isValidISBN13(isbn)) {
-                        return isbn; // Valid ISBN-13
-                    } else {
-                        return null; // Invalid ISBN-13 checksum
-                    }
-                }
+        String isbn = readLine();
+        return isValidISBN(isbn) ? isbn : null;
+    }
 
-            }
-            return null; // Invalid ISBN format
-        }
+    /**
+     * Checks whether the given text is a valid ISBN-10 or ISBN-13, checking both the format and the checksum.
+     * 
+     * @param isbn the text to check
+     * @return true if the text is a valid ISBN, false otherwise or if it is null
+     */
+    public boolean isValidISBN(CharSequence isbn) {
+        return CHECKSUMS.isValidISBN(isbn);
     }
 
     /**
-     * Validates the checksum for an ISBN-10 number.
+     * Validates an ISBN-10 number: nine digits followed by a digit or 'X', with a valid checksum.
      * The ISBN-10 checksum is calculated using a weighted sum of the digits, where the last digit can be 'X'.
+     * Format and checksum are checked in a single pass, see {@link ChecksumUtils}.
      * 
-     * @param isbn the ISBN-10 string to validate
-     * @return true if the ISBN-10 is valid, false otherwise
+     * @param isbn the ISBN-10 text to validate
+     * @return true if the ISBN-10 is valid, false otherwise or if it is null
      */
-    private boolean isValidISBN10(String isbn) {
-        int sum = 0;
-        for (int i = 0; i < 9; i++) {
-            sum += (isbn.charAt(i) - '0') * (10 - i);
-        }
-        char lastChar = isbn.charAt(9);
-        sum += (lastChar == 'X') ? 10 : (lastChar - '0');
-
-        return sum % 11 == 0;
+    public boolean isValidISBN10(CharSequence isbn) {
+        return CHECKSUMS.isValidISBN10(isbn);
     }
 
     /**
-     * Validates the checksum for an ISBN-13 number.
+     * Validates an ISBN-13 number: thirteen digits with a valid checksum.
      * The ISBN-13 checksum is calculated using a weighted sum of the digits, alternating between weights of 1 and 3.
+     * Format and checksum are checked in a single pass, see {@link ChecksumUtils}.
      * 
-     * @param isbn the ISBN-13 string to validate
-     * @return true if the ISBN-13 is valid, false otherwise
+     * @param isbn the ISBN-13 text to validate
+     * @return true if the ISBN-13 is valid, false otherwise or if it is null
      */
-    private boolean isValidISBN13(String isbn) {
-        int sum = 0;
-        for (int i = 0; i < 13; i++) {
-            int digit = isbn.charAt(i) - '0';
-            if (i % 2 == 0) {
-                sum += digit;
-            } else {
-                sum += digit * 3;
-            }
-        }
-
-        return sum % 10 == 0;
+    public boolean isValidISBN13(CharSequence isbn) {
+        return CHECKSUMS.isValidISBN13(isbn);
     }
 
     /**
@@ -320,55 +329,43 @@ public class InputUtils {
      *         otherwise returns null.
      */
     public String askForCreditCard() {
-        try (Scanner sc = new Scanner(System.in)) {
-            String cardNumber = sc.nextLine();
-            
-            // Regex to validate the card number format (15 or 16 digits)
-            String cardRegex = "^(\\d{16}|\\d{15})$";
-            
-            // Checks if the card number has 15 or 16 digits
-            if (cardNumber.matches(cardRegex)) {
-                // Validates the card number using the Luhn algorithm
-                if (isValidCreditCard(cardNumber)) {
-                    return cardNumber; // Valid credit card number based on Luhn's algorithm
-                } else {
-                    return null; // Invalid credit card number
-                }
-            } else {
-                return null; // The card number doesn't match the expected format
-            }
-        }
+        String cardNumber = readLine();
+        return isValidCreditCard(cardNumber) ? cardNumber : null;
     }
 
     /**
-     * Validates a credit card number using the Luhn algorithm.
+     * Validates a credit card number: 15 or 16 digits with a valid Luhn checksum.
      * The Luhn algorithm is a simple checksum formula used to validate a variety of identification numbers, 
-     * including credit card numbers.
+     * including credit card numbers. Format and checksum are checked in a single pass, see {@link ChecksumUtils}.
      * 
      * @param cardNumber the credit card number to validate
-     * @return true if the card number is valid based on the Luhn algorithm, false otherwise
+     * @return true if the card number is valid based on the Luhn algorithm, false otherwise or if it is null
      */
-    private boolean isValidCreditCard(String cardNumber) {
-        int sum = 0;
-        boolean shouldDouble = false;
-
-        // Iterates over the card number from the end to the start
-        for (int i = cardNumber.length() - 1; i >= 0; i--) {
-            int digit = Character.getNumericValue(cardNumber.charAt(i));
-
-            // Doubles every other digit, starting from the second-to-last digit
-            if (shouldDouble) {
-                digit *= 2;
-                if (digit > 9) {
-                    digit -= 9; // Subtract 9 if the doubled digit is greater than 9
-                }
-            }
+    public boolean isValidCreditCard(CharSequence cardNumber) {
+        return CHECKSUMS.isValidCreditCard(cardNumber);
+    }
 
-            sum += digit;
-            shouldDouble = !shouldDouble; // Toggles the shouldDouble flag
+    /**
+     * Reads the next line of input, or returns null at the end of the input.
+     */
+    private String readLine() {
+        try {
+            return input.nextLine();
+        } catch (NoSuchElementException e) {
+            return null;
         }
+    }
 
-        // A valid card number has a checksum that is divisible by 10
-        return sum % 10 == 0;
+    /**
+     * Reads the next token and discards the rest of its line, or returns null at the end of the input.
+     */
+    private String readToken() {
+        try {
+            return input.next();
+        } catch (NoSuchElementException e) {
+            return null;
+        } finally {
+            input.skipLine();
+        }
     }
 }
@@ -0,0 +1,312 @@
+package toolsBySp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A read-only set of numbers of up to 17 digits, such as card numbers or phone numbers,
+ * kept off the Java heap so that tens of millions of entries cost no GC time.
+ *
+ * <p>Each number is encoded as a {@code long} that keeps its leading zeros:
+ * {@code value << 5 | digits}, see {@link #encode(CharSequence)}. {@link #build(Path, Path)}
+ * turns a text file with one number per line into a binary file of sorted, distinct keys, and
+ * {@link #open(Path, boolean)} memory-maps that file, so the keys live in the page cache instead
+ * of the heap and are shared between processes. {@link #contains(long)} is a binary search over
+ * the mapped keys, without boxing or allocation. It works the same as a blocklist or an allowlist.</p>
+ *
+ * <p>Optionally an off-heap Bloom filter of 10 bits per key is built when the file is opened.
+ * It answers about 99% of the lookups of absent numbers without touching the keys, which is the
+ * common case when checking every number against a blocklist.</p>
+ *
+ * @author Samuel Pestana
+ */
+public class LongBlocklist {
+
+    /** The maximum number of digits of a number. */
+    public static final int MAX_DIGITS = 17;
+
+    private static final long MAGIC = 0x5442_5350_424C_0001L; // "TBSPBL" and the format version
+    private static final int HEADER_BYTES = 16;
+    private static final int SEGMENT_SHIFT = 27; // 2^27 keys, 1 GB per mapping
+    private static final int SEGMENT_KEYS = 1 << SEGMENT_SHIFT;
+    private static final int BLOOM_BITS_PER_KEY = 10;
+    private static final int BLOOM_HASHES = 7;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final MappedByteBuffer[] segments;
+    private final long size;
+    private final ByteBuffer bloom;
+    private final long bloomMask;
+
+    private LongBlocklist(MappedByteBuffer[] segments, long size, boolean bloomFilter) {
+        this.segments = segments;
+        this.size = size;
+        if (bloomFilter && size > 0) {
+            long bits = Long.highestOneBit(Math.max(size * BLOOM_BITS_PER_KEY, 64) - 1) << 1;
+            this.bloom = ByteBuffer.allocateDirect((int) Math.min(bits >>> 3, 1 << 30)); // A power of two
+            this.bloomMask = ((long) bloom.capacity() << 3) - 1;
+            for (long i = 0; i < size; i++) {
+                addToBloom(keyAt(i));
+            }
+        } else {
+            this.bloom = null;
+            this.bloomMask = 0;
+        }
+    }
+
+    /**
+     * Memory-maps a file written by {@link #build(Path, Path)}.
+     *
+     * @param file        The file of sorted keys.
+     * @param bloomFilter Whether to build a Bloom filter in front of the keys.
+     * @return The blocklist, or null if the file cannot be read or is not a blocklist file.
+     */
+    public static LongBlocklist open(Path file, boolean bloomFilter) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getLong() != MAGIC) return null;
+            long size = header.getLong();
+            if (size < 0 || channel.size() < HEADER_BYTES + size * 8) return null;
+
+            // The mappings stay valid after the channel is closed
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_KEYS - 1) >>> SEGMENT_SHIFT)];
+            for (int s = 0; s < segments.length; s++) {
+                long first = (long) s << SEGMENT_SHIFT;
+                long keys = Math.min(SEGMENT_KEYS, size - first);
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * 8, keys * 8);
+            }
+            return new LongBlocklist(segments, size, bloomFilter);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a text file with one number per line and writes the sorted, distinct keys as a
+     * blocklist file. Lines that are not 1 to {@link #MAX_DIGITS} digits are skipped; a trailing
+     * carriage return is ignored. The keys are sorted in memory, 8 bytes per line.
+     *
+     * @param source The text file of numbers.
+     * @param target The blocklist file to write; it is created or truncated.
+     * @return The number of distinct numbers written, or -1 if a file cannot be read or written.
+     */
+    public static long build(Path source, Path target) {
+        long[] keys = new long[1024];
+        int count = 0;
+        try (InputStream in = Files.newInputStream(source)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long value = 0;
+            int digits = 0;
+            boolean valid = true;
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                for (int i = 0; i < n; i++) {
+                    byte b = buffer[i];
+                    if (b == '\n') {
+                        if (valid && digits > 0) {
+                            if (count == keys.length) keys = Arrays.copyOf(keys, count * 2);
+                            keys[count++] = value << 5 | digits;
+                        }
+                        value = 0;
+                        digits = 0;
+                        valid = true;
+                    } else if (b >= '0' && b <= '9' && digits < MAX_DIGITS) {
+                        value = value * 10 + (b - '0');
+                        digits++;
+                    } else if (b != '\r') {
+                        valid = false;
+                    }
+                }
+            }
+            if (valid && digits > 0) { // Last line without a line break
+                if (count == keys.length) keys = Arrays.copyOf(keys, count + 1);
+                keys[count++] = value << 5 | digits;
+            }
+        } catch (IOException e) {
+            return -1;
+        }
+
+        Arrays.sort(keys, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || keys[i] != keys[distinct - 1]) keys[distinct++] = keys[i];
+        }
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.putLong(MAGIC).putLong(distinct);
+            for (int i = 0; i < distinct; i++) {
+                if (!buffer.hasRemaining()) {
+                    writeFully(channel, buffer);
+                }
+                buffer.putLong(keys[i]);
+            }
+            writeFully(channel, buffer);
+        } catch (IOException e) {
+            return -1;
+        }
+        return distinct;
+    }
+
+    /**
+     * Encodes a number as a key: its value shifted left by 5 bits plus its number of digits,
+     * so "0034" and "34" are different keys.
+     *
+     * @param number The digits of the number.
+     * @return the key, or -1 if the text is empty, longer than {@link #MAX_DIGITS} or not only digits.
+     */
+    public static long encode(CharSequence number) {
+        if (number == null) return -1;
+        int length = number.length();
+        if (length == 0 || length > MAX_DIGITS) return -1;
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = number.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value << 5 | length;
+    }
+
+    /**
+     * Encodes a number stored as ASCII digits as a key, see {@link #encode(CharSequence)}.
+     *
+     * @param bytes  The array holding the number.
+     * @param offset The index of the first digit.
+     * @param length The number of digits.
+     * @return the key, or -1 if the range is empty, longer than {@link #MAX_DIGITS} or not only digits.
+     */
+    public static long encode(byte[] bytes, int offset, int length) {
+        if (length <= 0 || length > MAX_DIGITS) return -1;
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value << 5 | length;
+    }
+
+    /**
+     * Checks whether a number is in the set.
+     *
+     * @param number The digits of the number.
+     * @return true if the number is in the set, false otherwise or if it cannot be encoded.
+     */
+    public boolean contains(CharSequence number) {
+        long key = encode(number);
+        return key >= 0 && contains(key);
+    }
+
+    /**
+     * Checks whether a number stored as ASCII digits is in the set.
+     *
+     * @param bytes  The array holding the number.
+     * @param offset The index of the first digit.
+     * @param length The number of digits.
+     * @return true if the number is in the set, false otherwise or if it cannot be encoded.
+     */
+    public boolean contains(byte[] bytes, int offset, int length) {
+        long key = encode(bytes, offset, length);
+        return key >= 0 && contains(key);
+    }
+
+    /**
+     * Checks whether a key, as returned by {@link #encode(CharSequence)}, is in the set.
+     *
+     * @param key The encoded number.
+     * @return true if the key is in the set.
+     */
+    public boolean contains(long key) {
+        if (bloom != null && !mightContain(key)) return false;
+        long low = 0;
+        long high = size - 1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            long value = keyAt(mid);
+            if (value < key) {
+                low = mid + 1;
+            } else if (value > key) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of distinct numbers in the set.
+     *
+     * @return the size of the set.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Checks whether lookups go through a Bloom filter first.
+     *
+     * @return true if a Bloom filter was built when the file was opened.
+     */
+    public boolean hasBloomFilter() {
+        return bloom != null;
+    }
+
+    private long keyAt(long index) {
+        return segments[(int) (index >>> SEGMENT_SHIFT)].getLong((int) (index & (SEGMENT_KEYS - 1)) << 3);
+    }
+
+    private void addToBloom(long key) {
+        long hash = mix(key);
+        long h1 = hash;
+        long h2 = (hash >>> 32) | 1;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            long bit = (h1 + i * h2) & bloomMask;
+            int word = (int) (bit >>> 6) << 3;
+            bloom.putLong(word, bloom.getLong(word) | (1L << bit));
+        }
+    }
+
+    private boolean mightContain(long key) {
+        long hash = mix(key);
+        long h1 = hash;
+        long h2 = (hash >>> 32) | 1;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            long bit = (h1 + i * h2) & bloomMask;
+            if ((bloom.getLong((int) (bit >>> 6) << 3) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * The finalizer of MurmurHash3, so nearby keys land on unrelated bits.
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        return key ^ (key >>> 33);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
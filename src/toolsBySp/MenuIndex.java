@@ -0,0 +1,321 @@
+package toolsBySp;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * An index over the labels of a menu, for finding options by what the user types instead of
+ * scanning tens of thousands of labels.
+ *
+ * <p>Matching ignores case. Prefix lookups use a sorted copy of the labels and a binary search,
+ * so their cost grows with the logarithm of the number of options. Substring lookups use a trigram
+ * index: for every sequence of three characters, the options whose label contains it. The options
+ * containing a query are among those in the posting lists of all its trigrams, so only the
+ * intersection of those lists, starting from the shortest, is checked against the labels.
+ * Queries shorter than three characters are checked against the labels one by one, stopping at the limit.</p>
+ *
+ * <p>The index is built once and is immutable, so it can be shared by several threads and menus.
+ * Options are identified by their position in the array the index was built from, starting at 0.</p>
+ *
+ * @author Samuel Pestana
+ */
+public class MenuIndex {
+
+    private static final int[] NONE = new int[0];
+
+    private final String[] labels;
+    private final String[] lowerLabels;
+    private final int[] sorted; // Option positions ordered by lower-case label
+
+    // Open-addressing table from trigram to trigram id, then the posting lists of all the trigrams
+    // one after another: the list of id i is postings[offsets[i]] to postings[offsets[i + 1]] (exclusive)
+    private final long[] keys;
+    private final int[] ids;
+    private final int trigramCount;
+    private final int[] offsets;
+    private final int[] postings;
+
+    /**
+     * Builds the index of a list of options.
+     *
+     * @param labels The labels of the options, in menu order.
+     */
+    public MenuIndex(String[] labels) {
+        int n = labels.length;
+        this.labels = labels.clone();
+        this.lowerLabels = new String[n];
+        for (int i = 0; i < n; i++) {
+            lowerLabels[i] = labels[i] == null ? "" : labels[i].toLowerCase(Locale.ROOT);
+        }
+
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> lowerLabels[a].compareTo(lowerLabels[b]));
+        this.sorted = new int[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = order[i];
+        }
+
+        // Two passes over the trigrams: one to count the options of each, one to fill the lists.
+        // Options are visited in order, so the lists come out sorted and a trigram repeated
+        // within a label only needs a comparison with the last option counted
+        TrigramTable table = new TrigramTable();
+        int[] counts = new int[256];
+        int[] last = new int[256];
+        for (int option = 0; option < n; option++) {
+            String label = lowerLabels[option];
+            for (int i = 0; i + 3 <= label.length(); i++) {
+                int id = table.add(trigram(label, i));
+                if (id == counts.length) {
+                    counts = Arrays.copyOf(counts, id * 2);
+                    last = Arrays.copyOf(last, id * 2);
+                }
+                if (counts[id] == 0 || last[id] != option) {
+                    counts[id]++;
+                    last[id] = option;
+                }
+            }
+        }
+        this.keys = table.keys;
+        this.ids = table.ids;
+        this.trigramCount = table.count;
+        this.offsets = new int[trigramCount + 1];
+        for (int id = 0; id < trigramCount; id++) {
+            offsets[id + 1] = offsets[id] + counts[id];
+        }
+        this.postings = new int[offsets[trigramCount]];
+        int[] next = Arrays.copyOf(offsets, trigramCount);
+        for (int option = 0; option < n; option++) {
+            String label = lowerLabels[option];
+            for (int i = 0; i + 3 <= label.length(); i++) {
+                int id = idOf(trigram(label, i));
+                if (next[id] == offsets[id] || postings[next[id] - 1] != option) {
+                    postings[next[id]++] = option;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of options in the index.
+     *
+     * @return the number of options.
+     */
+    public int size() {
+        return labels.length;
+    }
+
+    /**
+     * Returns the label of an option.
+     *
+     * @param option The position of the option, starting at 0.
+     * @return the label as given when the index was built.
+     */
+    public String getLabel(int option) {
+        return labels[option];
+    }
+
+    /**
+     * Finds the options whose label starts with the given text, ignoring case.
+     *
+     * @param prefix The text the labels must start with.
+     * @param limit  The maximum number of options returned.
+     * @return The positions of the matching options, in alphabetical order of their labels.
+     */
+    public int[] findByPrefix(String prefix, int limit) {
+        if (prefix == null || limit <= 0) return NONE;
+        String key = prefix.toLowerCase(Locale.ROOT);
+        int from = lowerBound(key);
+        int count = 0;
+        while (from + count < sorted.length && count < limit && lowerLabels[sorted[from + count]].startsWith(key)) {
+            count++;
+        }
+        return Arrays.copyOfRange(sorted, from, from + count);
+    }
+
+    /**
+     * Finds the options whose label contains the given text, ignoring case.
+     *
+     * @param text  The text the labels must contain.
+     * @param limit The maximum number of options returned.
+     * @return The positions of the matching options, in menu order.
+     */
+    public int[] findBySubstring(String text, int limit) {
+        if (text == null || limit <= 0) return NONE;
+        String key = text.toLowerCase(Locale.ROOT);
+        int[] found = new int[Math.min(limit, labels.length)];
+        int count = 0;
+
+        if (key.length() < 3) {
+            for (int option = 0; option < labels.length && count < found.length; option++) {
+                if (lowerLabels[option].contains(key)) found[count++] = option;
+            }
+            return Arrays.copyOf(found, count);
+        }
+
+        // The posting lists of the trigrams of the query, shortest first
+        int lists = key.length() - 2;
+        int[] ids = new int[lists];
+        for (int i = 0; i < lists; i++) {
+            int id = idOf(trigram(key, i));
+            if (id < 0) return NONE; // No label has this trigram
+            int j = i;
+            while (j > 0 && length(ids[j - 1]) > length(id)) {
+                ids[j] = ids[j - 1];
+                j--;
+            }
+            ids[j] = id;
+        }
+
+        int[] cursors = new int[lists];
+        for (int l = 0; l < lists; l++) {
+            cursors[l] = offsets[ids[l]];
+        }
+        for (int p = offsets[ids[0]]; p < offsets[ids[0] + 1] && count < found.length; p++) {
+            int candidate = postings[p];
+            if (inAll(candidate, ids, cursors) && lowerLabels[candidate].contains(key)) {
+                found[count++] = candidate;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Finds the options matching what the user typed: first the labels starting with the text,
+     * in alphabetical order, then the other labels containing it, in menu order.
+     *
+     * @param text  The text typed by the user.
+     * @param limit The maximum number of options returned.
+     * @return The positions of the matching options.
+     */
+    public int[] search(String text, int limit) {
+        if (text == null || limit <= 0) return NONE;
+        int[] prefixed = findByPrefix(text, limit);
+        if (prefixed.length == limit) return prefixed;
+        int[] contained = findBySubstring(text, limit);
+        String key = text.toLowerCase(Locale.ROOT);
+        int[] found = Arrays.copyOf(prefixed, Math.min(limit, prefixed.length + contained.length));
+        int count = prefixed.length;
+        for (int i = 0; i < contained.length && count < found.length; i++) {
+            if (!lowerLabels[contained[i]].startsWith(key)) found[count++] = contained[i];
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Checks whether the candidate is in every posting list after the first, moving the cursors
+     * forward. The candidates come in increasing order, so each list is walked only once.
+     */
+    private boolean inAll(int candidate, int[] ids, int[] cursors) {
+        for (int l = 1; l < ids.length; l++) {
+            int end = offsets[ids[l] + 1];
+            int c = cursors[l];
+            while (c < end && postings[c] < candidate) c++;
+            cursors[l] = c;
+            if (c == end || postings[c] != candidate) return false;
+        }
+        return true;
+    }
+
+    private int length(int id) {
+        return offsets[id + 1] - offsets[id];
+    }
+
+    /**
+     * Returns the id of a trigram, or -1 if no label has it.
+     */
+    private int idOf(long trigram) {
+        return TrigramTable.find(keys, ids, trigram);
+    }
+
+    /**
+     * Returns the first position in {@link #sorted} whose label is not less than the key.
+     */
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (lowerLabels[sorted[mid]].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long trigram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    /**
+     * The open-addressing table from trigram to trigram id while the index is being built.
+     * The index then keeps its arrays, which are not changed again.
+     */
+    private static final class TrigramTable {
+        long[] keys = new long[1024];
+        int[] ids = new int[1024];
+        int count;
+
+        TrigramTable() {
+            Arrays.fill(ids, -1);
+        }
+
+        /**
+         * Returns the id of a trigram, giving it the next id if it is new.
+         */
+        int add(long trigram) {
+            int id = find(keys, ids, trigram);
+            if (id >= 0) return id;
+            if (count * 2 >= keys.length) grow();
+            int slot = free(keys, ids, trigram);
+            keys[slot] = trigram;
+            ids[slot] = count;
+            return count++;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldIds = ids;
+            keys = new long[oldKeys.length * 2];
+            ids = new int[oldIds.length * 2];
+            Arrays.fill(ids, -1);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldIds[i] < 0) continue;
+                int slot = free(keys, ids, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                ids[slot] = oldIds[i];
+            }
+        }
+
+        /**
+         * Returns the id of a trigram in a table, or -1 if it is not there.
+         */
+        static int find(long[] keys, int[] ids, long trigram) {
+            int mask = keys.length - 1;
+            int slot = home(trigram, mask);
+            while (ids[slot] >= 0) {
+                if (keys[slot] == trigram) return ids[slot];
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the first free slot from the home slot of a trigram that is not in the table.
+         */
+        private static int free(long[] keys, int[] ids, long trigram) {
+            int mask = keys.length - 1;
+            int slot = home(trigram, mask);
+            while (ids[slot] >= 0) slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        private static int home(long trigram, int mask) {
+            return (int) (trigram * 0x9E3779B97F4A7C15L >>> 40) & mask;
+        }
+    }
+}
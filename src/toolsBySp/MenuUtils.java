@@ -1,6 +1,7 @@
 package toolsBySp;
 
-import java.util.Scanner;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
 
 /**
  * This class is used for creating and displaying menus based on an array of options.
@@ -10,6 +11,35 @@ import java.util.Scanner;
  */
 public class MenuUtils {
 
+    private final FastInput input;
+    private int pageSize = 20;
+
+    /**
+     * Creates a MenuUtils that reads the user's choices from the standard input.
+     * Every instance created this way shares the same buffered reader, see {@link FastInput#standardInput()}.
+     */
+    public MenuUtils() {
+        this(FastInput.standardInput());
+    }
+
+    /**
+     * Creates a MenuUtils that reads the user's choices from the given input source.
+     *
+     * @param input The input source the choices are read from.
+     */
+    public MenuUtils(FastInput input) {
+        this.input = input;
+    }
+
+    /**
+     * Sets the number of options shown per page by the paged menus. Defaults to 20.
+     *
+     * @param pageSize The number of options per page.
+     */
+    public void setPageSize(int pageSize) {
+        this.pageSize = Math.max(pageSize, 1);
+    }
+
 	/**
 	 * Displays a menu based on an array of options provided by the user.
 	 * It shows the options to the user and asks them to choose one by entering the corresponding number.
@@ -17,25 +47,29 @@ public class MenuUtils {
 	 *
 	 * @param options An array of strings representing the options in the menu.
 	 * @return The number of the chosen option. The number corresponds directly to the user's input.
+	 *         Returns -1 if the input ends before a valid choice is made.
 	 */
     public int displayMenu(String[] options) {
-        Scanner sc = new Scanner(System.in);
-        
-        // Display all options
+        // Display all options with a single write
+        StringBuilder sb = new StringBuilder(options.length * 24);
         for (int i = 0; i < options.length; i++) {
-            System.out.println((i + 1) + ".- " + options[i]);
+            appendOption(sb, i + 1, options[i]);
         }
+        System.out.print(sb);
         
         // Get the user's choice
         int choice = -1;
         while (choice < 1 || choice > options.length) {
             try {
-                choice = sc.nextInt();
-            } catch (Exception e) {
-                sc.nextLine(); // Clear the buffer
+                choice = input.nextInt();
+            } catch (InputMismatchException e) {
+                // Not a number, ask again
+            } catch (NoSuchElementException e) {
+                return -1; // End of input
+            } finally {
+                input.skipLine(); // Clear the rest of the line
             }
         }
-        sc.close();
         return choice;
     }
     
@@ -47,30 +81,122 @@ public class MenuUtils {
      * @param options An array of strings representing the options in the menu.
      * @param errorMessage A custom message that will be shown to the user if the input is invalid.
      * @return The number of the chosen option. The number corresponds directly to the user's input.
+     *         Returns -1 if the input ends before a valid choice is made.
      */
     public int displayMenu(String[] options, String errorMessage) {
-        Scanner sc = new Scanner(System.in);
-        
-        // Display all options
+        // Display all options with a single write
+        StringBuilder sb = new StringBuilder(options.length * 24);
         for (int i = 0; i < options.length; i++) {
-            System.out.println((i + 1) + ".- " + options[i]);
+            appendOption(sb, i + 1, options[i]);
         }
+        System.out.print(sb);
         
         // Get the user's choice
         int choice = -1;
         while (choice < 1 || choice > options.length) {
             try {
-                choice = sc.nextInt();
+                choice = input.nextInt();
                 if (choice < 1 || choice > options.length) {
                     System.out.println(errorMessage);
                 }
-            } catch (Exception e) {
+            } catch (InputMismatchException e) {
                 System.out.println(errorMessage);
-                sc.nextLine(); // Clear the buffer
+            } catch (NoSuchElementException e) {
+                return -1; // End of input
+            } finally {
+                input.skipLine(); // Clear the rest of the line
             }
         }
-        sc.close();
         return choice;
     }
-}
 
+    /**
+     * Displays a long list of options a page at a time, for menus with too many options to show at once.
+     * Builds a {@link MenuIndex} of the options; to show the same options several times,
+     * build the index once and use {@link #displayMenu(MenuIndex)}.
+     *
+     * @param options An array of strings representing the options in the menu.
+     * @return The number of the chosen option, starting at 1, or -1 if the input ends before a valid choice is made.
+     */
+    public int displayPagedMenu(String[] options) {
+        return displayMenu(new MenuIndex(options));
+    }
+
+    /**
+     * Displays the options of an index a page at a time and lets the user choose one by number
+     * or find it by typing part of its label.
+     * Each page, or list of matches, is written to the standard output with a single write. The user can
+     * enter the number of an option to choose it, press Enter for the next page, enter {@code -} for the
+     * previous page, or type any other text to list the options starting with it, then those containing it.
+     *
+     * @param index The index of the options in the menu.
+     * @return The number of the chosen option, starting at 1, or -1 if the input ends before a valid choice is made.
+     */
+    public int displayMenu(MenuIndex index) {
+        int size = index.size();
+        int pages = Math.max(1, (size + pageSize - 1) / pageSize);
+        int page = 0;
+        int[] matches = null; // The options found by the last search, or null while paging
+        String query = null;
+        StringBuilder sb = new StringBuilder(pageSize * 48);
+
+        while (true) {
+            sb.setLength(0);
+            if (matches == null) {
+                int end = Math.min(size, (page + 1) * pageSize);
+                for (int option = page * pageSize; option < end; option++) {
+                    appendOption(sb, option + 1, index.getLabel(option));
+                }
+                sb.append("Page ").append(page + 1).append('/').append(pages)
+                        .append(" - number to choose, Enter for the next page, - for the previous one, text to search: ");
+            } else {
+                if (matches.length == 0) {
+                    sb.append("No options match \"").append(query).append("\"").append(System.lineSeparator());
+                }
+                for (int option : matches) {
+                    appendOption(sb, option + 1, index.getLabel(option));
+                }
+                sb.append("Number to choose, Enter to go back to the pages, text to search again: ");
+            }
+            System.out.print(sb);
+            System.out.flush();
+
+            String line;
+            try {
+                line = input.nextLine().trim();
+            } catch (NoSuchElementException e) {
+                return -1; // End of input
+            }
+            if (line.isEmpty()) {
+                if (matches == null) page = (page + 1) % pages;
+                matches = null;
+            } else if (line.equals("-")) {
+                if (matches == null) page = (page + pages - 1) % pages;
+                matches = null;
+            } else {
+                int choice = parseChoice(line);
+                if (choice >= 1 && choice <= size) return choice;
+                query = line; // Not an option number, look for it in the labels
+                matches = index.search(line, pageSize);
+            }
+        }
+    }
+
+    private static void appendOption(StringBuilder sb, int number, String label) {
+        sb.append(number).append(".- ").append(label).append(System.lineSeparator());
+    }
+
+    /**
+     * Parses an option number, or returns -1 if the text is not a number.
+     */
+    private static int parseChoice(String text) {
+        if (text.length() > 9) return -1;
+        int value = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,311 @@
+package toolsBySp;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+/**
+ * Validates very large files of records, one record per line, using every core.
+ *
+ * <p>The file is split into chunks of roughly {@link #setChunkSize(int) chunkSize} bytes that always
+ * end on a line boundary. Each chunk is memory-mapped and validated on a fork-join pool, and the
+ * per-chunk counts and invalid-line offsets are merged at the end.</p>
+ *
+ * <p>Lines are handed to the rule as a {@link CharSequence} view over the mapped bytes, so no
+ * {@code String} is created per line. Bytes are read as single characters, which is exact for
+ * the ASCII-only formats checked by {@link InputUtils} (any other byte makes the record invalid).
+ * The rule must be safe to call from several threads at once, as all the {@link InputUtils} checks are.</p>
+ *
+ * <p>Rules that work on raw bytes, such as the {@link ChecksumUtils} validators, can be used through
+ * {@link #validateBytes(Path, ByteRecordPredicate)}: each line is copied into a reusable per-task array and
+ * checked without decoding it at all.</p>
+ *
+ * @author Samuel Pestana
+ */
+public class ParallelFileValidator {
+
+    private final ForkJoinPool pool;
+    private int chunkSize = 8 * 1024 * 1024;
+
+    /**
+     * Creates a validator that runs on the common fork-join pool.
+     */
+    public ParallelFileValidator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a validator that runs on the given fork-join pool.
+     *
+     * @param pool The pool the chunks are validated on.
+     */
+    public ParallelFileValidator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the approximate size of the chunks the file is split into.
+     *
+     * @param chunkSize The chunk size in bytes (8 MB by default).
+     */
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = Math.max(4096, chunkSize);
+    }
+
+    /**
+     * Validates every line of a file. Line endings may be LF or CRLF.
+     *
+     * @param file The file to validate.
+     * @param rule The check applied to each line, such as {@link InputUtils#isValidEmail(CharSequence)}.
+     * @return The counts of valid and invalid records and the offsets of the invalid lines,
+     *         or null if the file cannot be read.
+     */
+    public ParallelValidationReport validate(Path file, Predicate<CharSequence> rule) {
+        return validate(file, rule, null);
+    }
+
+    /**
+     * Validates every line of a file with a rule that works on raw bytes, such as
+     * {@link ChecksumUtils#isValidCreditCard(byte[], int, int)}. Line endings may be LF or CRLF.
+     *
+     * @param file The file to validate.
+     * @param rule The check applied to the bytes of each line.
+     * @return The counts of valid and invalid records and the offsets of the invalid lines,
+     *         or null if the file cannot be read.
+     */
+    public ParallelValidationReport validateBytes(Path file, ByteRecordPredicate rule) {
+        return validate(file, null, rule);
+    }
+
+    private ParallelValidationReport validate(Path file, Predicate<CharSequence> rule, ByteRecordPredicate byteRule) {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+            ChunkResult result = pool.invoke(new ChunkTask(channel, bounds, 0, bounds.length - 1, rule, byteRule));
+            return new ParallelValidationReport(result.valid, result.invalid, System.nanoTime() - start,
+                    Arrays.copyOf(result.offsets, result.offsetCount));
+        } catch (IOException | UncheckedIOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Computes the chunk boundaries: chunk {@code i} spans {@code [bounds[i], bounds[i + 1])}
+     * and every boundary except the last sits just after a line feed.
+     */
+    private long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer window = ByteBuffer.allocate(4096);
+        long position = chunkSize;
+        while (position < size) {
+            long lineEnd = -1;
+            long scan = position;
+            while (lineEnd < 0 && scan < size) {
+                window.clear();
+                int n = channel.read(window, scan);
+                if (n <= 0) break;
+                for (int i = 0; i < n; i++) {
+                    if (window.get(i) == '\n') {
+                        lineEnd = scan + i + 1;
+                        break;
+                    }
+                }
+                scan += n;
+            }
+            if (lineEnd < 0 || lineEnd >= size) break; // The rest of the file is the last chunk
+            checkMappable(bounds.get(bounds.size() - 1), lineEnd);
+            bounds.add(lineEnd);
+            position = lineEnd + chunkSize;
+        }
+        checkMappable(bounds.get(bounds.size() - 1), size);
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Checks that a chunk fits in a single mapped buffer, which is limited to 2 GB.
+     */
+    private static void checkMappable(long start, long end) throws IOException {
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IOException("Line too long to be mapped near offset " + start);
+        }
+    }
+
+    /**
+     * Validates the chunks {@code [from, to)}, splitting the range in halves until a single chunk is left.
+     */
+    private static final class ChunkTask extends RecursiveTask<ChunkResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel channel;
+        private final long[] bounds;
+        private final int from;
+        private final int to;
+        private final transient Predicate<CharSequence> rule;
+        private final transient ByteRecordPredicate byteRule;
+
+        ChunkTask(FileChannel channel, long[] bounds, int from, int to,
+                Predicate<CharSequence> rule, ByteRecordPredicate byteRule) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.rule = rule;
+            this.byteRule = byteRule;
+        }
+
+        @Override
+        protected ChunkResult compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                ChunkTask left = new ChunkTask(channel, bounds, from, mid, rule, byteRule);
+                ChunkTask right = new ChunkTask(channel, bounds, mid, to, rule, byteRule);
+                left.fork();
+                ChunkResult rightResult = right.compute();
+                return left.join().merge(rightResult);
+            }
+            try {
+                return validateChunk(bounds[from], bounds[to]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private ChunkResult validateChunk(long start, long end) throws IOException {
+            ChunkResult result = new ChunkResult();
+            int length = (int) (end - start);
+            if (length == 0) return result;
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            ByteSequence line = new ByteSequence(buffer);
+            byte[] scratch = byteRule != null ? new byte[256] : null;
+            int lineStart = 0;
+            while (lineStart < length) {
+                int lineEnd = lineStart;
+                while (lineEnd < length && buffer.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int contentEnd = lineEnd;
+                if (contentEnd > lineStart && buffer.get(contentEnd - 1) == '\r') {
+                    contentEnd--;
+                }
+
+                boolean valid;
+                int lineLength = contentEnd - lineStart;
+                if (byteRule != null) {
+                    if (scratch.length < lineLength) scratch = new byte[Math.max(lineLength, scratch.length * 2)];
+                    buffer.position(lineStart);
+                    buffer.get(scratch, 0, lineLength);
+                    valid = byteRule.test(scratch, 0, lineLength);
+                } else {
+                    line.reset(lineStart, lineLength);
+                    valid = rule.test(line);
+                }
+                if (valid) {
+                    result.valid++;
+                } else {
+                    result.invalid++;
+                    result.addOffset(start + lineStart);
+                }
+                lineStart = lineEnd + 1;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The counts and invalid-line offsets of one or more consecutive chunks.
+     */
+    private static final class ChunkResult {
+        long valid;
+        long invalid;
+        long[] offsets = new long[16];
+        int offsetCount;
+
+        void addOffset(long offset) {
+            if (offsetCount == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsetCount * 2);
+            }
+            offsets[offsetCount++] = offset;
+        }
+
+        /**
+         * Appends the result of the chunks that follow this one.
+         */
+        ChunkResult merge(ChunkResult next) {
+            valid += next.valid;
+            invalid += next.invalid;
+            if (next.offsetCount > 0) {
+                if (offsets.length < offsetCount + next.offsetCount) {
+                    offsets = Arrays.copyOf(offsets, offsetCount + next.offsetCount);
+                }
+                System.arraycopy(next.offsets, 0, offsets, offsetCount, next.offsetCount);
+                offsetCount += next.offsetCount;
+            }
+            return this;
+        }
+    }
+
+    /**
+     * A reusable read-only view of a range of bytes as characters, one byte per character.
+     */
+    static final class ByteSequence implements CharSequence {
+        private final ByteBuffer buffer;
+        private int offset;
+        private int length;
+
+        ByteSequence(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        void reset(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) throw new IndexOutOfBoundsException("index " + index);
+            return (char) (buffer.get(offset + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) throw new IndexOutOfBoundsException();
+            ByteSequence sub = new ByteSequence(buffer);
+            sub.reset(offset + start, end - start);
+            return sub;
+        }
+
+        @Override
+        public String toString() {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) (buffer.get(offset + i) & 0xFF);
+            }
+            return new String(chars);
+        }
+    }
+}
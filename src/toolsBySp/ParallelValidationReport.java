@@ -0,0 +1,27 @@
+package toolsBySp;
+
+/**
+ * The result of a {@link ParallelFileValidator} run: the counts of a {@link ValidationReport}
+ * plus the position of every invalid line in the file.
+ *
+ * @author Samuel Pestana
+ */
+public class ParallelValidationReport extends ValidationReport {
+
+    private final long[] invalidLineOffsets;
+
+    ParallelValidationReport(long validRecords, long invalidRecords, long elapsedNanos, long[] invalidLineOffsets) {
+        super(validRecords, invalidRecords, elapsedNanos);
+        this.invalidLineOffsets = invalidLineOffsets;
+    }
+
+    /**
+     * Returns the byte offset, from the start of the file, of the first byte of every invalid line,
+     * in ascending order. The offsets can be used to seek straight to the offending records.
+     *
+     * @return the offsets of the invalid lines.
+     */
+    public long[] getInvalidLineOffsets() {
+        return invalidLineOffsets.clone();
+    }
+}
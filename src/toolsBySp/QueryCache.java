@@ -0,0 +1,340 @@
+package toolsBySp;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A cache of query results keyed by SQL text and bound parameters, for read-mostly data such as
+ * reference tables that are looked up over and over.
+ *
+ * <p>Every entry expires after its time to live. The cache also has a memory budget: the size of
+ * each result is estimated when it is stored and the least recently used entries are dropped
+ * while the total is over the budget. Results larger than the whole budget are returned but not
+ * cached. Entries can be tagged, typically with the tables they read, so that
+ * {@link #invalidate(String)} drops every result that depends on a table after it changes.
+ * A query that was already running when one of its tags was invalidated still returns its
+ * result, but the result is not cached, as it may have been read before the change.</p>
+ *
+ * <p>The cached {@link QueryResult}s are shared by every caller; they are read-only, so no caller
+ * can change what the others see.</p>
+ *
+ * <p>Keys hold no database identity: the same query run on two databases would share an entry.
+ * Use one cache per database, and pass it connections to that database only.</p>
+ *
+ * @author Samuel Pestana
+ */
+public class QueryCache {
+
+    private static final Object[] NO_PARAMS = new Object[0];
+    private static final String[] NO_TAGS = new String[0];
+
+    private final long maxBytes;
+    private final long defaultTtlMillis;
+    private final LinkedHashMap<Key, CachedResult> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, Set<Key>> tags = new HashMap<>();
+    private final Map<String, Long> generations = new HashMap<>(); // Times each tag was invalidated
+    private long clearGeneration; // Times the whole cache was cleared
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    /**
+     * Creates a query cache.
+     *
+     * @param maxBytes         The approximate maximum memory used by the cached results, in bytes.
+     * @param defaultTtlMillis The time to live of the entries stored without an explicit one, in milliseconds.
+     */
+    public QueryCache(long maxBytes, long defaultTtlMillis) {
+        this.maxBytes = maxBytes;
+        this.defaultTtlMillis = defaultTtlMillis;
+    }
+
+    /**
+     * Returns the cached result of a query, or runs it and caches the result with the default time to live.
+     *
+     * @param conn   The connection used if the query has to run, to the database this cache serves.
+     * @param sql    The query, with {@code ?} placeholders.
+     * @param params The values of the placeholders, in order.
+     * @return The rows of the query, or null if a SQLException occurs.
+     */
+    public QueryResult query(Connection conn, String sql, Object... params) {
+        return queryTagged(conn, sql, params, defaultTtlMillis, NO_TAGS);
+    }
+
+    /**
+     * Returns the cached result of a query, or runs it and caches the result with the given
+     * time to live and tags.
+     *
+     * @param conn      The connection used if the query has to run, to the database this cache serves.
+     * @param sql       The query, with {@code ?} placeholders.
+     * @param params    The values of the placeholders, in order.
+     * @param ttlMillis How long the result stays valid, in milliseconds.
+     * @param tags      The tags of the result, such as the names of the tables it reads.
+     * @return The rows of the query, or null if a SQLException occurs.
+     */
+    public QueryResult queryTagged(Connection conn, String sql, Object[] params, long ttlMillis, String... tags) {
+        if (params == null) params = NO_PARAMS;
+        QueryResult cached = get(sql, params);
+        if (cached != null) return cached;
+        if (conn == null) return null;
+        if (tags == null) tags = NO_TAGS;
+
+        long[] before = generations(tags);
+        QueryResult result;
+        try {
+            result = QueryResult.execute(conn, sql, params);
+        } catch (SQLException e) {
+            DatabaseMetrics.getDefault().recordError(e);
+            return null;
+        }
+        synchronized (this) {
+            // Skip the result if a tag was invalidated while the query ran
+            if (Arrays.equals(before, generations(tags))) put(sql, params, result, ttlMillis, tags);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a cached result without running the query.
+     *
+     * @param sql    The SQL text of the query.
+     * @param params The values of its placeholders, in order.
+     * @return the cached rows, or null if the query is not cached or has expired.
+     */
+    public synchronized QueryResult get(String sql, Object... params) {
+        Key key = new Key(sql, params == null ? NO_PARAMS : params);
+        CachedResult entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAtNanos >= 0) {
+            remove(key);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.result;
+    }
+
+    /**
+     * Stores a result, replacing any cached result of the same query.
+     *
+     * @param sql       The SQL text of the query.
+     * @param params    The values of its placeholders, in order.
+     * @param result    The rows of the query.
+     * @param ttlMillis How long the result stays valid, in milliseconds.
+     * @param tags      The tags of the result, such as the names of the tables it reads.
+     */
+    public synchronized void put(String sql, Object[] params, QueryResult result, long ttlMillis, String... tags) {
+        Key key = new Key(sql, params == null ? NO_PARAMS : params.clone());
+        remove(key);
+        long size = result.estimateBytes();
+        if (size > maxBytes || ttlMillis <= 0) return;
+
+        String[] entryTags = tags == null ? NO_TAGS : tags.clone();
+        entries.put(key, new CachedResult(result, size,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMillis), entryTags));
+        bytes += size;
+        for (String tag : entryTags) {
+            tags(tag).add(key);
+        }
+
+        // Drop the least recently used entries until the cache fits its budget again
+        Iterator<Map.Entry<Key, CachedResult>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<Key, CachedResult> eldest = it.next();
+            it.remove();
+            forget(eldest.getKey(), eldest.getValue());
+            evictions++;
+        }
+    }
+
+    /**
+     * Drops every cached result with the given tag.
+     *
+     * @param tag The tag, such as the name of a table that has changed.
+     * @return the number of results dropped.
+     */
+    public synchronized int invalidate(String tag) {
+        Long generation = generations.get(tag);
+        generations.put(tag, generation == null ? 1 : generation + 1);
+        Set<Key> keys = tags.remove(tag);
+        if (keys == null) return 0;
+        int removed = 0;
+        for (Key key : keys.toArray(new Key[0])) {
+            if (remove(key)) removed++;
+        }
+        return removed;
+    }
+
+    /**
+     * Drops every cached result.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        tags.clear();
+        bytes = 0;
+        clearGeneration++;
+    }
+
+    /**
+     * Returns the number of times a query was answered from the cache.
+     *
+     * @return the number of cache hits.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of times a query was not cached or had expired.
+     *
+     * @return the number of cache misses.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the fraction of lookups answered from the cache.
+     *
+     * @return the hit ratio between 0 and 1, or 0 if nothing was looked up.
+     */
+    public synchronized double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Returns the number of results dropped to stay within the memory budget.
+     *
+     * @return the number of evictions.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of results found expired.
+     *
+     * @return the number of expirations.
+     */
+    public synchronized long getExpirations() {
+        return expirations;
+    }
+
+    /**
+     * Returns the number of cached results, including expired ones not looked up since.
+     *
+     * @return the size of the cache.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the estimated memory used by the cached results.
+     *
+     * @return the estimated size in bytes.
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    private boolean remove(Key key) {
+        CachedResult entry = entries.remove(key);
+        if (entry == null) return false;
+        forget(key, entry);
+        return true;
+    }
+
+    /**
+     * Updates the byte count and the tag index after an entry has left the map.
+     */
+    private void forget(Key key, CachedResult entry) {
+        bytes -= entry.bytes;
+        for (String tag : entry.tags) {
+            Set<Key> keys = tags.get(tag);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) tags.remove(tag);
+            }
+        }
+    }
+
+    /**
+     * Returns how many times the cache was cleared followed by how many times each tag was invalidated.
+     */
+    private synchronized long[] generations(String[] tags) {
+        long[] result = new long[tags.length + 1];
+        result[0] = clearGeneration;
+        for (int i = 0; i < tags.length; i++) {
+            Long generation = generations.get(tags[i]);
+            result[i + 1] = generation == null ? 0 : generation;
+        }
+        return result;
+    }
+
+    private Set<Key> tags(String tag) {
+        Set<Key> keys = tags.get(tag);
+        if (keys == null) {
+            keys = new HashSet<>();
+            tags.put(tag, keys);
+        }
+        return keys;
+    }
+
+    private static final class CachedResult {
+        final QueryResult result;
+        final long bytes;
+        final long expiresAtNanos;
+        final String[] tags;
+
+        CachedResult(QueryResult result, long bytes, long expiresAtNanos, String[] tags) {
+            this.result = result;
+            this.bytes = bytes;
+            this.expiresAtNanos = expiresAtNanos;
+            this.tags = tags;
+        }
+    }
+
+    /**
+     * The cache key: SQL text plus parameter values.
+     */
+    private static final class Key {
+        final String sql;
+        final Object[] params;
+        final int hash;
+
+        Key(String sql, Object[] params) {
+            this.sql = sql;
+            this.params = params;
+            this.hash = sql.hashCode() * 31 + Arrays.deepHashCode(params);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return hash == k.hash && sql.equals(k.sql) && Arrays.deepEquals(params, k.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
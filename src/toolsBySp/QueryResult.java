@@ -0,0 +1,291 @@
+package toolsBySp;
+
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLXML;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The rows of a query read fully into memory, so they can be used after the connection is released.
+ *
+ * <p>Values that are only locators into the database are read while the rows are being read:
+ * BLOBs become {@code byte[]}, CLOBs, NCLOBs and SQLXML become {@code String}, and SQL arrays
+ * become {@code Object[]}.</p>
+ *
+ * <p>A result is read-only, so it can be shared between threads and by {@link QueryCache}: rows,
+ * {@code byte[]} and {@code Object[]} values are handed out as copies.</p>
+ *
+ * @author Samuel Pestana
+ */
+public class QueryResult {
+
+    private final String[] columnNames;
+    private final List<Object[]> rows;
+
+    QueryResult(String[] columnNames, List<Object[]> rows) {
+        this.columnNames = columnNames;
+        this.rows = rows;
+    }
+
+    /**
+     * Runs a query with the given parameters and reads all of its rows.
+     *
+     * @param conn   The connection to run the query on.
+     * @param sql    The query, with {@code ?} placeholders.
+     * @param params The values of the placeholders, in order.
+     * @return the rows of the query.
+     * @throws SQLException if the query fails.
+     */
+    static QueryResult execute(Connection conn, String sql, Object[] params) throws SQLException {
+        try (PreparedStatement ps = prepare(conn, sql, params); ResultSet rs = ps.executeQuery()) {
+            return from(rs);
+        }
+    }
+
+    /**
+     * Prepares a statement and binds its parameters, closing it if a parameter cannot be bound.
+     *
+     * @param conn   The connection to prepare the statement on.
+     * @param sql    The SQL text, with {@code ?} placeholders.
+     * @param params The values of the placeholders, in order.
+     * @return the prepared statement.
+     * @throws SQLException if the statement cannot be prepared or bound.
+     */
+    static PreparedStatement prepare(Connection conn, String sql, Object[] params) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(sql);
+        try {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            return ps;
+        } catch (SQLException e) {
+            ps.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the remaining rows of a result set, reading LOB, SQLXML and array values in full.
+     *
+     * @param rs The result set to read; it is not closed.
+     * @return the rows read.
+     * @throws SQLException if the result set cannot be read.
+     */
+    static QueryResult from(ResultSet rs) throws SQLException {
+        ResultSetMetaData rsmd = rs.getMetaData();
+        int cols = rsmd.getColumnCount();
+        String[] names = new String[cols];
+        for (int i = 1; i <= cols; i++) {
+            names[i - 1] = rsmd.getColumnLabel(i);
+        }
+        List<Object[]> rows = new ArrayList<>();
+        while (rs.next()) {
+            Object[] row = new Object[cols];
+            for (int i = 1; i <= cols; i++) {
+                row[i - 1] = materialize(rs.getObject(i));
+            }
+            rows.add(row);
+        }
+        return new QueryResult(names, rows);
+    }
+
+    /**
+     * Reads a value that may be a locator into the database, so it stays valid once the
+     * connection is released. The locator is freed afterwards.
+     *
+     * @param value The value returned by the driver.
+     * @return the value itself, or its contents for LOB, SQLXML and array values.
+     * @throws SQLException if the contents cannot be read.
+     */
+    static Object materialize(Object value) throws SQLException {
+        if (value instanceof Blob) {
+            Blob blob = (Blob) value;
+            try {
+                return blob.getBytes(1, (int) blob.length());
+            } finally {
+                free(blob);
+            }
+        }
+        if (value instanceof Clob) { // NClob too
+            Clob clob = (Clob) value;
+            try {
+                return clob.getSubString(1, (int) clob.length());
+            } finally {
+                free(clob);
+            }
+        }
+        if (value instanceof SQLXML) {
+            SQLXML xml = (SQLXML) value;
+            try {
+                return xml.getString();
+            } finally {
+                free(xml);
+            }
+        }
+        if (value instanceof Array) {
+            Array array = (Array) value;
+            try {
+                Object contents = array.getArray();
+                if (contents instanceof Object[]) {
+                    Object[] elements = (Object[]) contents;
+                    for (int i = 0; i < elements.length; i++) {
+                        elements[i] = materialize(elements[i]);
+                    }
+                }
+                return contents;
+            } finally {
+                free(array);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Frees a LOB, SQLXML or array locator, ignoring drivers that do not support it.
+     */
+    private static void free(Object locator) {
+        try {
+            if (locator instanceof Blob) {
+                ((Blob) locator).free();
+            } else if (locator instanceof Clob) {
+                ((Clob) locator).free();
+            } else if (locator instanceof SQLXML) {
+                ((SQLXML) locator).free();
+            } else if (locator instanceof Array) {
+                ((Array) locator).free();
+            }
+        } catch (SQLException | AbstractMethodError e) {
+            // Older drivers; the locator is released with the result set
+        }
+    }
+
+    /**
+     * Returns the column labels, in query order.
+     *
+     * @return a copy of the column labels.
+     */
+    public String[] getColumnNames() {
+        return columnNames.clone();
+    }
+
+    /**
+     * Returns the number of columns.
+     *
+     * @return the number of columns.
+     */
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the number of rows.
+     */
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    /**
+     * Returns every row, each one with a value per column.
+     *
+     * @return an unmodifiable view of the rows, which returns a copy of a row each time it is read.
+     */
+    public List<Object[]> getRows() {
+        return new AbstractList<Object[]>() {
+            @Override
+            public Object[] get(int index) {
+                Object[] row = rows.get(index).clone();
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = copyOf(row[i]);
+                }
+                return row;
+            }
+
+            @Override
+            public int size() {
+                return rows.size();
+            }
+        };
+    }
+
+    /**
+     * Returns a value by row and column index.
+     *
+     * @param row    The row index, starting at 0.
+     * @param column The column index, starting at 0.
+     * @return the value, or null for SQL NULL.
+     */
+    public Object getValue(int row, int column) {
+        return copyOf(rows.get(row)[column]);
+    }
+
+    /**
+     * Returns a value by row index and column label, ignoring case.
+     *
+     * @param row    The row index, starting at 0.
+     * @param column The column label.
+     * @return the value, or null for SQL NULL or if there is no such column.
+     */
+    public Object getValue(int row, String column) {
+        int index = indexOf(column);
+        return index < 0 ? null : copyOf(rows.get(row)[index]);
+    }
+
+    /**
+     * Copies the mutable values a row can hold, so callers cannot change a shared result.
+     */
+    private static Object copyOf(Object value) {
+        if (value instanceof byte[]) return ((byte[]) value).clone();
+        if (value instanceof Object[]) return ((Object[]) value).clone();
+        return value;
+    }
+
+    /**
+     * Estimates the heap used by the rows, for caches with a memory budget. Strings count two
+     * bytes per character, byte arrays their length, and other values a fixed amount.
+     *
+     * @return the approximate size of the result in bytes.
+     */
+    long estimateBytes() {
+        long bytes = 64;
+        for (String name : columnNames) {
+            bytes += 40 + 2L * name.length();
+        }
+        for (Object[] row : rows) {
+            bytes += 24 + 4L * row.length; // Array header and references
+            for (Object value : row) {
+                if (value == null) continue;
+                if (value instanceof String) {
+                    bytes += 40 + 2L * ((String) value).length();
+                } else if (value instanceof byte[]) {
+                    bytes += 16 + ((byte[]) value).length;
+                } else {
+                    bytes += 24;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the index of a column label, ignoring case.
+     *
+     * @param column The column label.
+     * @return the column index, or -1 if there is no such column.
+     */
+    public int indexOf(String column) {
+        for (int i = 0; i < columnNames.length; i++) {
+            if (columnNames[i].equalsIgnoreCase(column)) return i;
+        }
+        return -1;
+    }
+}
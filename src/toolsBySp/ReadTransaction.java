@@ -0,0 +1,70 @@
+package toolsBySp;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Wraps a streaming read in a transaction, since some drivers (PostgreSQL among them) only honor
+ * the fetch size inside one. On a connection in auto-commit mode, auto-commit is turned off until
+ * {@link #close()}, which rolls back and turns it on again. A transaction the caller already has
+ * open is used as it is and left open.
+ *
+ * @author Samuel Pestana
+ */
+final class ReadTransaction implements AutoCloseable {
+
+    private final Connection conn;
+    private final boolean ownsTransaction;
+
+    private ReadTransaction(Connection conn, boolean ownsTransaction) {
+        this.conn = conn;
+        this.ownsTransaction = ownsTransaction;
+    }
+
+    /**
+     * Starts a read transaction on the connection, unless one is already open.
+     *
+     * @param conn The connection the read runs on.
+     * @return the transaction, to be closed when the read ends.
+     * @throws SQLException if the auto-commit mode cannot be read or changed.
+     */
+    static ReadTransaction begin(Connection conn) throws SQLException {
+        boolean ownsTransaction = conn.getAutoCommit();
+        if (ownsTransaction) conn.setAutoCommit(false);
+        return new ReadTransaction(conn, ownsTransaction);
+    }
+
+    /**
+     * Creates a forward-only, read-only statement for the read.
+     *
+     * @param fetchSize The fetch size hint passed to the driver.
+     * @return the statement.
+     * @throws SQLException if the statement cannot be created.
+     */
+    Statement createStatement(int fetchSize) throws SQLException {
+        Statement st = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            st.setFetchSize(fetchSize);
+            return st;
+        } catch (SQLException e) {
+            st.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Ends the transaction if {@link #begin(Connection)} started it.
+     */
+    @Override
+    public void close() {
+        if (!ownsTransaction) return;
+        try {
+            conn.rollback(); // Nothing was written, just end the read transaction
+            conn.setAutoCommit(true);
+        } catch (SQLException e) {
+            // The connection is unusable, the caller will find out on its next call
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package toolsBySp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+
+/**
+ * Streams the rows of a query to a file as CSV or JSON Lines.
+ *
+ * <p>Rows are encoded as UTF-8 straight into a single reusable byte buffer, which is written to a
+ * {@link FileChannel} whenever it fills up, so memory use does not depend on the size of the result.
+ * When the exporter runs the query itself, it uses a forward-only, read-only cursor with the
+ * configured fetch size so the driver streams the rows instead of loading them all at once.
+ * On a connection in auto-commit mode it reads inside a short transaction that it rolls back
+ * afterwards; a transaction the caller already has open is left untouched.</p>
+ *
+ * @author Samuel Pestana
+ */
+public class ResultSetExporter {
+
+    private static final byte[] CRLF = { '\r', '\n' };
+    private static final byte[] NULL = { 'n', 'u', 'l', 'l' };
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    // How a column is written in JSON
+    private static final int KIND_STRING = 0;
+    private static final int KIND_NUMBER = 1;
+    private static final int KIND_BOOLEAN = 2;
+
+    private int fetchSize = 1000;
+    private int bufferSize = 256 * 1024;
+
+    /**
+     * Sets the number of rows the driver fetches from the database in each round trip
+     * when the exporter runs the query itself.
+     *
+     * @param fetchSize The fetch size (1000 by default).
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    /**
+     * Sets the size of the byte buffer rows are encoded into before being written to the file.
+     *
+     * @param bufferSize The buffer size in bytes (256K by default).
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = Math.max(1024, bufferSize);
+    }
+
+    /**
+     * Runs a query with a streaming cursor and writes its rows to a CSV file.
+     *
+     * @param conn The connection used to run the query.
+     * @param sql  The query to export.
+     * @param file The file to write; it is created or truncated.
+     * @return The number of rows exported, or -1 if a SQLException or IOException occurs.
+     */
+    public long exportCsv(Connection conn, String sql, Path file) {
+        return export(conn, sql, file, false);
+    }
+
+    /**
+     * Runs a query with a streaming cursor and writes its rows to a JSON Lines file.
+     *
+     * @param conn The connection used to run the query.
+     * @param sql  The query to export.
+     * @param file The file to write; it is created or truncated.
+     * @return The number of rows exported, or -1 if a SQLException or IOException occurs.
+     */
+    public long exportJsonLines(Connection conn, String sql, Path file) {
+        return export(conn, sql, file, true);
+    }
+
+    /**
+     * Writes the remaining rows of a {@link ResultSet} to a CSV file (RFC 4180: a header line with
+     * the column labels, CRLF line endings, fields quoted only when needed, null values left empty).
+     * Empty strings are written as {@code ""}, so they are not read back as null by {@link CsvImportPipeline}.
+     *
+     * @param rs   The {@code ResultSet} to export.
+     * @param file The file to write; it is created or truncated.
+     * @return The number of rows exported, or -1 if a SQLException or IOException occurs.
+     */
+    public long exportCsv(ResultSet rs, Path file) {
+        long start = System.nanoTime();
+        try (Sink sink = new Sink(file, bufferSize)) {
+            long rows = writeCsv(rs, sink);
+            DatabaseMetrics.getDefault().recordRowsStreamed(rows, System.nanoTime() - start);
+            return rows;
+        } catch (SQLException e) {
+            DatabaseMetrics.getDefault().recordError(e);
+            return -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Writes the remaining rows of a {@link ResultSet} to a JSON Lines file, one JSON object per row
+     * keyed by column label. Numeric and boolean columns are written as JSON numbers and booleans,
+     * everything else as strings.
+     *
+     * @param rs   The {@code ResultSet} to export.
+     * @param file The file to write; it is created or truncated.
+     * @return The number of rows exported, or -1 if a SQLException or IOException occurs.
+     */
+    public long exportJsonLines(ResultSet rs, Path file) {
+        long start = System.nanoTime();
+        try (Sink sink = new Sink(file, bufferSize)) {
+            long rows = writeJsonLines(rs, sink);
+            DatabaseMetrics.getDefault().recordRowsStreamed(rows, System.nanoTime() - start);
+            return rows;
+        } catch (SQLException e) {
+            DatabaseMetrics.getDefault().recordError(e);
+            return -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private long export(Connection conn, String sql, Path file, boolean json) {
+        if (conn == null) return -1;
+        try (ReadTransaction tx = ReadTransaction.begin(conn); Statement st = tx.createStatement(fetchSize)) {
+            long start = System.nanoTime();
+            try (ResultSet rs = st.executeQuery(sql)) {
+                DatabaseMetrics.getDefault().recordQuery(st, sql, System.nanoTime() - start);
+                rs.setFetchSize(fetchSize);
+                return json ? exportJsonLines(rs, file) : exportCsv(rs, file);
+            }
+        } catch (SQLException e) {
+            DatabaseMetrics.getDefault().recordError(e);
+            return -1;
+        }
+    }
+
+    private long writeCsv(ResultSet rs, Sink sink) throws SQLException, IOException {
+        ResultSetMetaData rsmd = rs.getMetaData();
+        int cols = rsmd.getColumnCount();
+        for (int i = 1; i <= cols; i++) {
+            if (i > 1) sink.put((byte) ',');
+            writeCsvField(sink, rsmd.getColumnLabel(i));
+        }
+        sink.put(CRLF);
+
+        long rows = 0;
+        while (rs.next()) {
+            for (int i = 1; i <= cols; i++) {
+                if (i > 1) sink.put((byte) ',');
+                String value = rs.getString(i);
+                if (value != null) writeCsvField(sink, value);
+            }
+            sink.put(CRLF);
+            rows++;
+        }
+        return rows;
+    }
+
+    private static void writeCsvField(Sink sink, String value) throws IOException {
+        boolean quote = value.isEmpty(); // An empty unquoted field stands for null
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            sink.putUtf8(value, 0, value.length());
+            return;
+        }
+        sink.put((byte) '"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                sink.putUtf8(value, start, i + 1); // Write up to and including the quote, then double it
+                start = i;
+            }
+        }
+        sink.putUtf8(value, start, value.length());
+        sink.put((byte) '"');
+    }
+
+    private long writeJsonLines(ResultSet rs, Sink sink) throws SQLException, IOException {
+        ResultSetMetaData rsmd = rs.getMetaData();
+        int cols = rsmd.getColumnCount();
+
+        // The "label": prefix of every field is encoded once for the whole export
+        byte[][] keys = new byte[cols][];
+        int[] kinds = new int[cols];
+        for (int i = 1; i <= cols; i++) {
+            StringBuilder key = new StringBuilder(i == 1 ? "{" : ",");
+            appendJsonString(key, rsmd.getColumnLabel(i));
+            key.append(':');
+            keys[i - 1] = key.toString().getBytes(StandardCharsets.UTF_8);
+            kinds[i - 1] = jsonKind(rsmd.getColumnType(i));
+        }
+
+        long rows = 0;
+        while (rs.next()) {
+            for (int i = 1; i <= cols; i++) {
+                sink.put(keys[i - 1]);
+                if (kinds[i - 1] == KIND_BOOLEAN) {
+                    boolean b = rs.getBoolean(i);
+                    if (rs.wasNull()) sink.put(NULL);
+                    else sink.putAscii(b ? "true" : "false");
+                    continue;
+                }
+                String value = rs.getString(i);
+                if (value == null) {
+                    sink.put(NULL);
+                } else if (kinds[i - 1] == KIND_NUMBER && isJsonNumber(value)) {
+                    sink.putAscii(value);
+                } else {
+                    writeJsonString(sink, value);
+                }
+            }
+            if (cols == 0) sink.put((byte) '{');
+            sink.put((byte) '}');
+            sink.put((byte) '\n');
+            rows++;
+        }
+        return rows;
+    }
+
+    private static int jsonKind(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return KIND_NUMBER;
+            case Types.BOOLEAN:
+            case Types.BIT:
+                return KIND_BOOLEAN;
+            default:
+                return KIND_STRING;
+        }
+    }
+
+    /**
+     * Checks that a driver's text for a numeric value is a valid JSON number
+     * (NaN and Infinity are not, and are written as strings instead).
+     */
+    private static boolean isJsonNumber(String value) {
+        int n = value.length();
+        if (n == 0) return false;
+        for (int i = 0; i < n; i++) {
+            char c = value.charAt(i);
+            if (!((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E')) {
+                return false;
+            }
+        }
+        char first = value.charAt(0);
+        return first == '-' || (first >= '0' && first <= '9');
+    }
+
+    private static void writeJsonString(Sink sink, String value) throws IOException {
+        sink.put((byte) '"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '"' && c != '\\' && c >= 0x20) continue;
+            sink.putUtf8(value, start, i);
+            start = i + 1;
+            sink.put((byte) '\\');
+            switch (c) {
+                case '"':  sink.put((byte) '"'); break;
+                case '\\': sink.put((byte) '\\'); break;
+                case '\n': sink.put((byte) 'n'); break;
+                case '\r': sink.put((byte) 'r'); break;
+                case '\t': sink.put((byte) 't'); break;
+                default:
+                    sink.put((byte) 'u');
+                    sink.put((byte) '0');
+                    sink.put((byte) '0');
+                    sink.put(HEX[c >> 4]);
+                    sink.put(HEX[c & 0xF]);
+                    break;
+            }
+        }
+        sink.putUtf8(value, start, value.length());
+        sink.put((byte) '"');
+    }
+
+    private static void appendJsonString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * A reusable byte buffer that encodes text as UTF-8 and writes it to a file channel when full.
+     */
+    private static final class Sink implements AutoCloseable {
+        private final FileChannel channel;
+        private final byte[] buffer;
+        private final ByteBuffer view;
+        private int position;
+
+        Sink(Path file, int size) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffer = new byte[size];
+            this.view = ByteBuffer.wrap(buffer);
+        }
+
+        void put(byte b) throws IOException {
+            if (position == buffer.length) drain();
+            buffer[position++] = b;
+        }
+
+        void put(byte[] bytes) throws IOException {
+            if (buffer.length - position < bytes.length) drain();
+            if (bytes.length > buffer.length) {
+                channel.write(ByteBuffer.wrap(bytes));
+                return;
+            }
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void putAscii(String s) throws IOException {
+            for (int i = 0; i < s.length(); i++) {
+                put((byte) s.charAt(i));
+            }
+        }
+
+        void putUtf8(String s, int from, int to) throws IOException {
+            for (int i = from; i < to; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    if (position == buffer.length) drain();
+                    buffer[position++] = (byte) c;
+                    continue;
+                }
+                if (buffer.length - position < 4) drain();
+                if (c < 0x800) {
+                    buffer[position++] = (byte) (0xC0 | (c >> 6));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    buffer[position++] = (byte) (0xF0 | (cp >> 18));
+                    buffer[position++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    buffer[position++] = '?'; // Unpaired surrogate, same replacement as String.getBytes
+                } else {
+                    buffer[position++] = (byte) (0xE0 | (c >> 12));
+                    buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        private void drain() throws IOException {
+            view.clear().limit(position);
+            while (view.hasRemaining()) {
+                channel.write(view);
+            }
+            position = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
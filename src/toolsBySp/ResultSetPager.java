@@ -0,0 +1,331 @@
+package toolsBySp;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+
+/**
+ * Shows large query results a page at a time, holding only a bounded number of rows in memory.
+ *
+ * <p>Rows are read with the configured fetch size and written through a {@link ResultSetRenderer},
+ * a page at a time. Between pages the pager waits for the user: Enter shows the next page and
+ * {@code q} stops. Without an input source every page is written straight away, which still keeps
+ * memory bounded.</p>
+ *
+ * <p>Column widths are computed from the column names and a sample of the first rows, capped at
+ * a maximum width, instead of from {@link ResultSetMetaData#getColumnDisplaySize(int)}, which
+ * returns huge values for TEXT and CLOB columns. Longer values are cut and end with "...".</p>
+ *
+ * <p>For tables with an indexed, unique key, {@link #browseKeyset} reads each page with its own
+ * query, {@code WHERE key > ? ORDER BY key LIMIT n}, so every page is an index range scan and
+ * no cursor stays open while the user reads. The generated SQL uses {@code LIMIT}, which MySQL,
+ * MariaDB, PostgreSQL, SQLite and H2 support.</p>
+ *
+ * @author Samuel Pestana
+ */
+public class ResultSetPager {
+
+    private static final String PROMPT = "-- More: Enter for the next page, q to quit --";
+
+    private final Appendable out;
+    private int pageSize = 50;
+    private int fetchSize = 50;
+    private int sampleSize = 100;
+    private int maxColumnWidth = 40;
+
+    /**
+     * Creates a pager that writes to the given target.
+     *
+     * @param out The target the pages are written to, such as {@code System.out}.
+     */
+    public ResultSetPager(Appendable out) {
+        this.out = out;
+    }
+
+    /**
+     * Sets the number of rows shown per page. Defaults to 50.
+     *
+     * @param pageSize The number of rows per page.
+     */
+    public void setPageSize(int pageSize) {
+        this.pageSize = Math.max(pageSize, 1);
+    }
+
+    /**
+     * Sets the number of rows the driver fetches from the database at once. Defaults to 50.
+     *
+     * @param fetchSize The fetch size hint passed to the driver.
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = Math.max(fetchSize, 1);
+    }
+
+    /**
+     * Sets the number of rows read ahead to compute the column widths. Defaults to 100.
+     *
+     * @param sampleSize The number of rows sampled.
+     */
+    public void setSampleSize(int sampleSize) {
+        this.sampleSize = Math.max(sampleSize, 1);
+    }
+
+    /**
+     * Sets the maximum width of a column. Defaults to 40.
+     *
+     * @param maxColumnWidth The maximum number of characters shown per cell.
+     */
+    public void setMaxColumnWidth(int maxColumnWidth) {
+        this.maxColumnWidth = Math.max(maxColumnWidth, 4);
+    }
+
+    /**
+     * Runs a query and shows its rows a page at a time.
+     * On a connection in auto-commit mode, auto-commit is turned off while reading, since some drivers
+     * (PostgreSQL among them) only honor the fetch size inside a transaction. A transaction the caller
+     * already has open is used as it is and left open.
+     *
+     * @param conn  The connection to run the query on.
+     * @param sql   The query to show.
+     * @param input The input source the user answers from, or null to write every page without waiting.
+     * @return The number of rows shown, or -1 if a SQLException or IOException occurs.
+     */
+    public long browse(Connection conn, String sql, FastInput input) {
+        if (conn == null) return -1;
+        try (ReadTransaction tx = ReadTransaction.begin(conn); Statement st = tx.createStatement(fetchSize)) {
+            long start = System.nanoTime();
+            try (ResultSet rs = st.executeQuery(sql)) {
+                DatabaseMetrics.getDefault().recordQuery(st, sql, System.nanoTime() - start);
+                return browse(rs, input);
+            }
+        } catch (SQLException e) {
+            DatabaseMetrics.getDefault().recordError(e);
+            return -1;
+        }
+    }
+
+    /**
+     * Shows the remaining rows of a {@link ResultSet} a page at a time.
+     *
+     * @param rs    The {@code ResultSet} to show; it is not closed.
+     * @param input The input source the user answers from, or null to write every page without waiting.
+     * @return The number of rows shown, or -1 if a SQLException or IOException occurs.
+     */
+    public long browse(ResultSet rs, FastInput input) {
+        if (rs == null) return -1;
+        ResultSetRenderer renderer = new ResultSetRenderer(out);
+        long start = System.nanoTime();
+        long waiting = 0;
+        long shown = 0;
+        try {
+            rs.setFetchSize(fetchSize);
+            String[] names = columnNames(rs.getMetaData());
+
+            // Only the sampled rows are buffered, the rest are written as they are read
+            ArrayDeque<String[]> sample = new ArrayDeque<>();
+            String[] row;
+            while (sample.size() < sampleSize && (row = readRow(rs, names.length)) != null) {
+                sample.add(row);
+            }
+            int[] widths = widths(names, sample);
+            renderer.writeHeader(names, widths);
+
+            int onPage = 0;
+            while ((row = !sample.isEmpty() ? sample.poll() : readRow(rs, names.length)) != null) {
+                if (onPage == pageSize) {
+                    renderer.flush();
+                    long promptStart = System.nanoTime();
+                    boolean more = nextPage(renderer, input);
+                    waiting += System.nanoTime() - promptStart;
+                    if (!more) break;
+                    onPage = 0;
+                }
+                renderer.writeRow(clip(row, widths), widths);
+                onPage++;
+                shown++;
+            }
+            renderer.flush();
+        } catch (SQLException e) {
+            DatabaseMetrics.getDefault().recordError(e);
+            return -1;
+        } catch (IOException e) {
+            return -1;
+        }
+        DatabaseMetrics.getDefault().recordRowsStreamed(shown, System.nanoTime() - start - waiting);
+        return shown;
+    }
+
+    /**
+     * Shows a table a page at a time with keyset pagination: every page is read by its own query
+     * that continues after the last key of the previous page. Each query reads one row more than
+     * a page, so the user is not asked for a page that turns out to be empty.
+     *
+     * <p>The key column must be unique and NOT NULL: rows sharing a key with the last row of a page
+     * would be skipped, and a null key stops the browsing with an error.</p>
+     *
+     * @param conn      The connection to run the queries on.
+     * @param table     The table to show.
+     * @param columns   The columns to select, separated by commas, or {@code *}; they must include the key column.
+     * @param keyColumn The unique, NOT NULL, indexed column the pages are ordered by.
+     * @param input     The input source the user answers from, or null to write every page without waiting.
+     * @return The number of rows shown, or -1 if a SQLException or IOException occurs.
+     */
+    public long browseKeyset(Connection conn, String table, String columns, String keyColumn, FastInput input) {
+        if (conn == null) return -1;
+        String firstSql = keysetQuery(table, columns, keyColumn, false);
+        String nextSql = keysetQuery(table, columns, keyColumn, true);
+        ResultSetRenderer renderer = new ResultSetRenderer(out);
+        int[] widths = null;
+        boolean first = true;
+        Object lastKey = null;
+        long shown = 0;
+        try {
+            while (true) {
+                String sql = first ? firstSql : nextSql;
+                ArrayDeque<String[]> page = new ArrayDeque<>();
+                boolean more = false;
+                String[] names;
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setFetchSize(Math.min(fetchSize, pageSize + 1));
+                    if (!first) ps.setObject(1, lastKey);
+                    long start = System.nanoTime();
+                    try (ResultSet rs = ps.executeQuery()) {
+                        DatabaseMetrics.getDefault().recordQuery(ps, sql, System.nanoTime() - start);
+                        names = columnNames(rs.getMetaData());
+                        int keyIndex = rs.findColumn(unqualified(keyColumn));
+                        String[] row;
+                        while ((row = readRow(rs, names.length)) != null) {
+                            if (page.size() == pageSize) {
+                                more = true; // The extra row only tells that there is a next page
+                                break;
+                            }
+                            page.add(row);
+                            lastKey = rs.getObject(keyIndex);
+                            if (lastKey == null) throw new SQLException("Null value in key column " + keyColumn);
+                        }
+                    }
+                }
+                first = false;
+
+                if (widths == null) {
+                    widths = widths(names, page);
+                    renderer.writeHeader(names, widths);
+                }
+                for (String[] row : page) {
+                    renderer.writeRow(clip(row, widths), widths);
+                }
+                shown += page.size();
+                renderer.flush();
+
+                if (!more || !nextPage(renderer, input)) break;
+            }
+        } catch (SQLException e) {
+            DatabaseMetrics.getDefault().recordError(e);
+            return -1;
+        } catch (IOException e) {
+            return -1;
+        }
+        return shown;
+    }
+
+    /**
+     * Builds the query that reads one page of a table with keyset pagination:
+     * {@code SELECT columns FROM table [WHERE key > ?] ORDER BY key LIMIT pageSize + 1}.
+     * The row after the page is only read to know whether there is a next page.
+     *
+     * @param table     The table to read.
+     * @param columns   The columns to select, separated by commas, or {@code *}.
+     * @param keyColumn The unique, NOT NULL, indexed column the pages are ordered by.
+     * @param afterKey  Whether the query continues after a key, bound as its only parameter;
+     *                  false for the query of the first page.
+     * @return the SQL text of the query.
+     */
+    public String keysetQuery(String table, String columns, String keyColumn, boolean afterKey) {
+        StringBuilder sql = new StringBuilder(64)
+                .append("SELECT ").append(columns).append(" FROM ").append(table);
+        if (afterKey) {
+            sql.append(" WHERE ").append(keyColumn).append(" > ?");
+        }
+        return sql.append(" ORDER BY ").append(keyColumn).append(" LIMIT ").append(pageSize + 1).toString();
+    }
+
+    /**
+     * Shows the prompt and waits for the user's answer.
+     *
+     * @return true to show the next page, false to stop.
+     */
+    private boolean nextPage(ResultSetRenderer renderer, FastInput input) throws IOException {
+        if (input == null) return true;
+        renderer.writeLine(PROMPT);
+        renderer.flush();
+        try {
+            String answer = input.nextLine().trim();
+            return !answer.equalsIgnoreCase("q");
+        } catch (NoSuchElementException e) {
+            return false; // End of input
+        }
+    }
+
+    /**
+     * Computes each column width from its name and the sampled values, capped at the maximum width.
+     */
+    private int[] widths(String[] names, Iterable<String[]> sample) {
+        int[] widths = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            widths[i] = Math.max(names[i].length(), 4); // Room for "NULL"
+        }
+        for (String[] row : sample) {
+            for (int i = 0; i < row.length; i++) {
+                if (row[i] != null && row[i].length() > widths[i]) widths[i] = row[i].length();
+            }
+        }
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = Math.min(widths[i], Math.max(maxColumnWidth, names[i].length()));
+        }
+        return widths;
+    }
+
+    /**
+     * Cuts the values wider than their column, ending them with "...".
+     */
+    private static String[] clip(String[] row, int[] widths) {
+        for (int i = 0; i < row.length; i++) {
+            if (row[i] != null && row[i].length() > widths[i]) {
+                row[i] = row[i].substring(0, widths[i] - 3) + "...";
+            }
+        }
+        return row;
+    }
+
+    private static String[] columnNames(ResultSetMetaData rsmd) throws SQLException {
+        String[] names = new String[rsmd.getColumnCount()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = rsmd.getColumnLabel(i + 1);
+        }
+        return names;
+    }
+
+    /**
+     * Reads the next row as strings, or returns null after the last row.
+     */
+    private static String[] readRow(ResultSet rs, int cols) throws SQLException {
+        if (!rs.next()) return null;
+        String[] row = new String[cols];
+        for (int i = 0; i < cols; i++) {
+            row[i] = rs.getString(i + 1);
+        }
+        return row;
+    }
+
+    /**
+     * Removes the table qualifier of a column name, since result set labels do not have it.
+     */
+    private static String unqualified(String column) {
+        return column.substring(column.lastIndexOf('.') + 1);
+    }
+}
@@ -0,0 +1,242 @@
+package toolsBySp;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Renders tabular data, such as the contents of a {@link ResultSet}, as left-aligned
+ * columns into any {@link Appendable} (a {@link Writer}, a {@code PrintStream}, a {@code StringBuilder}...).
+ *
+ * <p>Output is collected in a single character buffer and handed to the target in large chunks,
+ * and cells are padded by copying from a precomputed run of spaces, so rendering a row costs
+ * a few array copies instead of a format string and a console write per cell.</p>
+ *
+ * @author Samuel Pestana
+ */
+public class ResultSetRenderer {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final char[] SPACES = run(' ', 256);
+    private static final char[] DASHES = run('-', 256);
+
+    private final Appendable out;
+    private final char[] buffer;
+    private int position;
+
+    /**
+     * Creates a renderer that writes to the given target with a 64K buffer.
+     *
+     * @param out The target the rendered text is written to.
+     */
+    public ResultSetRenderer(Appendable out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a renderer that writes to the given target.
+     *
+     * @param out        The target the rendered text is written to.
+     * @param bufferSize The number of characters collected before they are written to the target.
+     */
+    public ResultSetRenderer(Appendable out, int bufferSize) {
+        this.out = out;
+        this.buffer = new char[Math.max(bufferSize, 256)];
+    }
+
+    /**
+     * Renders the whole {@link ResultSet}: a header with the column names, a separator line and one line per row.
+     * Each column is as wide as the larger of its name and its display size, and {@code NULL} is shown for null values.
+     * The output is flushed when the rendering finishes, and also when reading the rows fails, so the
+     * target holds every row read before the failure.
+     *
+     * @param rs The {@code ResultSet} to render.
+     * @return {@code true} if the ResultSet contains data and was rendered successfully,
+     *         {@code false} if it is empty, null, or an error occurs.
+     */
+    public boolean render(ResultSet rs) {
+        if (rs == null) return false;
+
+        try {
+            if (!rs.isBeforeFirst()) {
+                return false;
+            }
+
+            ResultSetMetaData rsmd = rs.getMetaData();
+            int cols = rsmd.getColumnCount();
+            String[] names = new String[cols];
+            int[] widths = new int[cols];
+            for (int i = 1; i <= cols; i++) {
+                names[i - 1] = rsmd.getColumnName(i);
+                widths[i - 1] = Math.max(names[i - 1].length(), rsmd.getColumnDisplaySize(i));
+            }
+
+            long start = System.nanoTime();
+            long rows = 0;
+            writeHeader(names, widths);
+            while (rs.next()) {
+                for (int i = 1; i <= cols; i++) {
+                    writeCell(rs.getString(i), widths[i - 1]);
+                }
+                endRow();
+                rows++;
+            }
+            flush();
+            DatabaseMetrics.getDefault().recordRowsStreamed(rows, System.nanoTime() - start);
+            return true;
+        } catch (SQLException e) {
+            DatabaseMetrics.getDefault().recordError(e);
+            flushQuietly();
+            return false;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Flushes what was rendered before an error, ignoring a failure of the target.
+     */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            // The target is broken as well, nothing more can be written
+        }
+    }
+
+    /**
+     * Writes the column names followed by a separator line of dashes.
+     *
+     * @param names  The column names.
+     * @param widths The width of each column.
+     * @throws IOException if the target cannot be written.
+     */
+    public void writeHeader(String[] names, int[] widths) throws IOException {
+        for (int i = 0; i < names.length; i++) {
+            writeCell(names[i], widths[i]);
+        }
+        endRow();
+        for (int i = 0; i < widths.length; i++) {
+            repeat(DASHES, widths[i]);
+            append('\t');
+        }
+        endRow();
+    }
+
+    /**
+     * Writes a whole row of values.
+     *
+     * @param values The values of the row; null values are shown as {@code NULL}.
+     * @param widths The width of each column.
+     * @throws IOException if the target cannot be written.
+     */
+    public void writeRow(String[] values, int[] widths) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            writeCell(values[i], widths[i]);
+        }
+        endRow();
+    }
+
+    /**
+     * Writes a single cell, left-aligned and padded with spaces to the given width, followed by a tab.
+     * Values longer than the width are written in full.
+     *
+     * @param value The value of the cell; null is shown as {@code NULL}.
+     * @param width The width of the column.
+     * @throws IOException if the target cannot be written.
+     */
+    public void writeCell(String value, int width) throws IOException {
+        String text = value != null ? value : "NULL";
+        append(text);
+        repeat(SPACES, width - text.length());
+        append('\t');
+    }
+
+    /**
+     * Writes a line of free text, such as a prompt between pages of rows.
+     *
+     * @param text The text of the line.
+     * @throws IOException if the target cannot be written.
+     */
+    void writeLine(String text) throws IOException {
+        append(text);
+        endRow();
+    }
+
+    /**
+     * Ends the current row with a line separator.
+     *
+     * @throws IOException if the target cannot be written.
+     */
+    public void endRow() throws IOException {
+        append(LINE_SEPARATOR);
+    }
+
+    /**
+     * Writes everything collected so far to the target and flushes it if it is {@link Flushable}.
+     *
+     * @throws IOException if the target cannot be written.
+     */
+    public void flush() throws IOException {
+        drain();
+        if (out instanceof Flushable) {
+            ((Flushable) out).flush();
+        }
+    }
+
+    private void append(String text) throws IOException {
+        int length = text.length();
+        int offset = 0;
+        while (offset < length) {
+            if (position == buffer.length) drain();
+            int n = Math.min(length - offset, buffer.length - position);
+            text.getChars(offset, offset + n, buffer, position);
+            position += n;
+            offset += n;
+        }
+    }
+
+    private void append(char c) throws IOException {
+        if (position == buffer.length) drain();
+        buffer[position++] = c;
+    }
+
+    /**
+     * Appends {@code count} characters taken from a precomputed run of the same character.
+     */
+    private void repeat(char[] run, int count) throws IOException {
+        while (count > 0) {
+            if (position == buffer.length) drain();
+            int n = Math.min(count, Math.min(run.length, buffer.length - position));
+            System.arraycopy(run, 0, buffer, position, n);
+            position += n;
+            count -= n;
+        }
+    }
+
+    /**
+     * Hands the buffered characters to the target.
+     */
+    private void drain() throws IOException {
+        if (position == 0) return;
+        if (out instanceof Writer) {
+            ((Writer) out).write(buffer, 0, position);
+        } else {
+            out.append(CharBuffer.wrap(buffer, 0, position));
+        }
+        position = 0;
+    }
+
+    private static char[] run(char c, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = c;
+        }
+        return chars;
+    }
+}
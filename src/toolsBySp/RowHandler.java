@@ -0,0 +1,21 @@
+package toolsBySp;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Receives the rows of a query one at a time, such as the streaming queries of {@link AsyncQueryExecutor}.
+ *
+ * @author Samuel Pestana
+ */
+@FunctionalInterface
+public interface RowHandler {
+
+    /**
+     * Handles the current row. The result set must not be advanced or closed by the handler.
+     *
+     * @param rs the result set positioned on the row
+     * @throws SQLException if a column cannot be read; it stops the query
+     */
+    void handle(ResultSet rs) throws SQLException;
+}
@@ -0,0 +1,44 @@
+package toolsBySp;
+
+/**
+ * The portable {@link ChecksumKernel}: one record at a time with the validators of {@link ChecksumUtils}.
+ *
+ * @author Samuel Pestana
+ */
+class ScalarChecksumKernel implements ChecksumKernel {
+
+    private final ChecksumUtils checksums = new ChecksumUtils();
+
+    @Override
+    public int luhn(byte[] data, int offset, int length, int stride, int count, boolean[] results) {
+        int valid = 0;
+        for (int i = 0; i < count; i++) {
+            boolean ok = checksums.isValidLuhn(data, offset + i * stride, length);
+            results[i] = ok;
+            if (ok) valid++;
+        }
+        return valid;
+    }
+
+    @Override
+    public int isbn10(byte[] data, int offset, int stride, int count, boolean[] results) {
+        int valid = 0;
+        for (int i = 0; i < count; i++) {
+            boolean ok = checksums.isValidISBN10(data, offset + i * stride, 10);
+            results[i] = ok;
+            if (ok) valid++;
+        }
+        return valid;
+    }
+
+    @Override
+    public int isbn13(byte[] data, int offset, int stride, int count, boolean[] results) {
+        int valid = 0;
+        for (int i = 0; i < count; i++) {
+            boolean ok = checksums.isValidISBN13(data, offset + i * stride, 13);
+            results[i] = ok;
+            if (ok) valid++;
+        }
+        return valid;
+    }
+}
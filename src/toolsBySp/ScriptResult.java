@@ -0,0 +1,114 @@
+package toolsBySp;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The outcome of a script run by {@link SqlScriptRunner}.
+ *
+ * @author Samuel Pestana
+ */
+public class ScriptResult {
+
+    private final List<StatementTiming> timings;
+    private final int committedGroups;
+    private final int totalGroups;
+    private final String failedGroup;
+    private final String failedSql;
+    private final SQLException error;
+    private final long elapsedNanos;
+
+    ScriptResult(List<StatementTiming> timings, int committedGroups, int totalGroups,
+            String failedGroup, String failedSql, SQLException error, long elapsedNanos) {
+        this.timings = timings;
+        this.committedGroups = committedGroups;
+        this.totalGroups = totalGroups;
+        this.failedGroup = failedGroup;
+        this.failedSql = failedSql;
+        this.error = error;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Checks whether every group was committed.
+     *
+     * @return true if the script ran without errors.
+     */
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+    /**
+     * Returns the time of every statement that was executed successfully, in the order they finished.
+     * The statements of a group that failed are included, although they were rolled back.
+     *
+     * @return the statement timings.
+     */
+    public List<StatementTiming> getTimings() {
+        return timings;
+    }
+
+    /**
+     * Returns the number of groups whose transaction was committed.
+     *
+     * @return the number of committed groups.
+     */
+    public int getCommittedGroups() {
+        return committedGroups;
+    }
+
+    /**
+     * Returns the number of groups of the script.
+     *
+     * @return the number of groups.
+     */
+    public int getTotalGroups() {
+        return totalGroups;
+    }
+
+    /**
+     * Returns the name of the group that failed first.
+     *
+     * @return the group name, or null if the script ran without errors.
+     */
+    public String getFailedGroup() {
+        return failedGroup;
+    }
+
+    /**
+     * Returns the statement that failed first.
+     *
+     * @return the SQL text, or null if the script ran without errors or no connection could be borrowed.
+     */
+    public String getFailedSql() {
+        return failedSql;
+    }
+
+    /**
+     * Returns the error that stopped the script.
+     *
+     * @return the exception, or null if the script ran without errors.
+     */
+    public SQLException getError() {
+        return error;
+    }
+
+    /**
+     * Returns the time the whole script took, in milliseconds.
+     *
+     * @return the elapsed time in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    @Override
+    public String toString() {
+        if (error == null) {
+            return String.format("%d of %d groups committed, %d statements in %d ms",
+                    committedGroups, totalGroups, timings.size(), getElapsedMillis());
+        }
+        return String.format("%d of %d groups committed, group %s failed after %d ms: %s",
+                committedGroups, totalGroups, failedGroup, getElapsedMillis(), error.getMessage());
+    }
+}
@@ -0,0 +1,473 @@
+package toolsBySp;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs SQL scripts on several pooled connections at once, following the dependencies declared
+ * between groups of statements.
+ *
+ * <p>The statements of a script are organized in groups. Each group runs on its own connection as
+ * one transaction: its statements run in order and are committed together, or rolled back together
+ * if one fails. A group starts as soon as every group it depends on has been committed, so independent
+ * groups run in parallel, up to the given number of connections. Groups are declared in the script
+ * with line comments:</p>
+ *
+ * <pre>
+ * -- @group customers
+ * CREATE TABLE customer (id INT PRIMARY KEY, name VARCHAR(100));
+ * CREATE INDEX customer_name ON customer (name);
+ *
+ * -- @group orders
+ * -- @depends customers
+ * CREATE TABLE orders (id INT PRIMARY KEY, customer_id INT REFERENCES customer (id));
+ * </pre>
+ *
+ * <p>Statements before the first {@code @group} directive are independent of each other: each one
+ * is a group of its own, with no dependencies. Groups can also be added from code with
+ * {@link #addGroup(String, List, String...)}.</p>
+ *
+ * <p>The run fails fast: after the first error no new group starts, groups already running stop
+ * before their next statement and roll back, and the groups committed so far stay committed.
+ * Keep in mind that MySQL, MariaDB and Oracle commit DDL statements implicitly, so only the data
+ * changes of a failed group can be rolled back on those databases.</p>
+ *
+ * @author Samuel Pestana
+ */
+public class SqlScriptRunner {
+
+    private static final String DIRECTIVE = "--"; // Prefix of directive tokens, statements never start with it
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final ConnectionPool pool;
+    private final int parallelism;
+    private final Map<String, Group> groups = new LinkedHashMap<>();
+
+    /**
+     * Creates a runner that borrows its connections from a pool.
+     *
+     * @param pool        The pool the connections are borrowed from.
+     * @param parallelism The maximum number of groups running at the same time.
+     */
+    public SqlScriptRunner(ConnectionPool pool, int parallelism) {
+        this.pool = pool;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Adds the statements of a script, split on semicolons outside quotes and comments,
+     * grouped by their {@code @group} and {@code @depends} directives.
+     * A group declared again in a later script gets the new statements appended.
+     *
+     * @param script The SQL script.
+     * @return The number of statements added.
+     */
+    public int addScript(String script) {
+        Group current = null;
+        int added = 0;
+        for (String token : tokens(script, true)) {
+            if (token.startsWith(DIRECTIVE)) {
+                String directive = token.substring(DIRECTIVE.length());
+                if (directive.startsWith("@group")) {
+                    String name = directive.substring("@group".length()).trim();
+                    current = groups.get(name);
+                    if (current == null) {
+                        current = new Group(name);
+                        groups.put(name, current);
+                    }
+                } else if (directive.startsWith("@depends") && current != null) {
+                    for (String dependency : directive.substring("@depends".length()).trim().split("[,\\s]+")) {
+                        if (!dependency.isEmpty()) current.dependsOn.add(dependency);
+                    }
+                }
+                continue;
+            }
+            if (current == null) {
+                Group single = new Group(anonymousName());
+                single.statements.add(token);
+                groups.put(single.name, single);
+            } else {
+                current.statements.add(token);
+            }
+            added++;
+        }
+        return added;
+    }
+
+    /**
+     * Adds the statements of a script file, see {@link #addScript(String)}.
+     *
+     * @param file The UTF-8 SQL script.
+     * @return The number of statements added, or -1 if an IOException occurs.
+     */
+    public int addScript(Path file) {
+        try {
+            return addScript(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Adds a group of statements that run in order in one transaction.
+     *
+     * @param name       The name of the group, referenced by the groups that depend on it.
+     * @param statements The statements of the group, without trailing semicolons.
+     * @param dependsOn  The names of the groups that must be committed before this one starts.
+     * @throws IllegalArgumentException if a group with that name already exists.
+     */
+    public void addGroup(String name, List<String> statements, String... dependsOn) {
+        if (groups.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate group: " + name);
+        }
+        Group group = new Group(name);
+        group.statements.addAll(statements);
+        group.dependsOn.addAll(Arrays.asList(dependsOn));
+        groups.put(name, group);
+    }
+
+    /**
+     * Returns the number of groups added so far.
+     *
+     * @return the number of groups.
+     */
+    public int getGroupCount() {
+        return groups.size();
+    }
+
+    /**
+     * Runs every group, in parallel where the dependencies allow it, and waits until they are done
+     * or one of them fails.
+     *
+     * @return The outcome of the run, with the time of each statement.
+     * @throws IllegalStateException if a group depends on an unknown group or the dependencies form a cycle.
+     */
+    public ScriptResult run() {
+        checkDependencies();
+        long start = System.nanoTime();
+        Run run = new Run();
+        if (groups.isEmpty()) return run.result(start);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, groups.size()), r -> {
+            Thread t = new Thread(r, "toolsBySp-script-" + THREAD_COUNT.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            synchronized (run) {
+                run.executor = executor;
+                for (Group group : groups.values()) {
+                    run.waiting.put(group.name, group.dependsOn.size());
+                    for (String dependency : group.dependsOn) {
+                        run.dependents(dependency).add(group);
+                    }
+                }
+                for (Group group : groups.values()) {
+                    if (group.dependsOn.isEmpty()) run.submit(group);
+                }
+                while (run.running > 0) {
+                    run.wait();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.failed(null, null, new SQLException("Interrupted while running the script"), false);
+        } finally {
+            executor.shutdown();
+        }
+        return run.result(start);
+    }
+
+    /**
+     * Splits a script into statements on the semicolons outside quotes and comments.
+     * Line comments are dropped; block comments, which may hold optimizer hints, are kept.
+     * Single, double and back quotes, with doubled quotes as escapes, and PostgreSQL
+     * dollar-quoted bodies such as {@code $$ ... $$} are recognized.
+     *
+     * @param script The SQL script.
+     * @return The statements, trimmed and without their semicolons.
+     */
+    public static List<String> splitStatements(String script) {
+        return tokens(script, false);
+    }
+
+    /**
+     * Runs the statements of a group in one transaction and reports the outcome to the run.
+     * The outcome is reported whatever is thrown, since {@link #run()} waits for every group it started.
+     */
+    private void runGroup(Group group, Run run) {
+        String sql = null;
+        boolean skipped = false;
+        boolean done = false;
+        SQLException error = null;
+        try {
+            Connection conn = pool.getConnection();
+            if (conn == null) throw new SQLException("No connection available from the pool", "08001");
+            try (Connection c = conn; Statement st = c.createStatement()) {
+                c.setAutoCommit(false);
+                try {
+                    for (String statement : group.statements) {
+                        if (run.isFailed()) {
+                            skipped = true; // Another group failed, do not leave half of this one behind
+                            break;
+                        }
+                        sql = statement;
+                        long start = System.nanoTime();
+                        boolean rows = st.execute(statement);
+                        long elapsed = System.nanoTime() - start;
+                        DatabaseMetrics.getDefault().recordQuery(st, statement, elapsed);
+                        run.timing(new StatementTiming(group.name, statement, elapsed, rows ? -1 : st.getUpdateCount()));
+                    }
+                    if (skipped) {
+                        c.rollback();
+                    } else {
+                        c.commit();
+                    }
+                    done = true;
+                } catch (SQLException | RuntimeException e) {
+                    try {
+                        c.rollback();
+                    } catch (SQLException ignored) {
+                        // The connection is broken, the pool will discard it
+                    }
+                    throw e;
+                }
+            }
+        } catch (SQLException e) {
+            if (!done) {
+                DatabaseMetrics.getDefault().recordError(e);
+                error = e;
+            }
+            // Otherwise only closing failed, after the transaction had ended
+        } catch (RuntimeException e) {
+            if (!done) error = new SQLException("Unexpected error: " + e, e);
+        } finally {
+            if (done && error == null) {
+                run.finished(group, !skipped);
+            } else {
+                run.failed(group, sql, error != null ? error
+                        : new SQLException("Group " + group.name + " stopped unexpectedly"), true);
+            }
+        }
+    }
+
+    /**
+     * Checks that every dependency names a known group and that there are no cycles.
+     */
+    private void checkDependencies() {
+        Map<String, Integer> waiting = new HashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+        List<String> ready = new ArrayList<>();
+        for (Group group : groups.values()) {
+            for (String dependency : group.dependsOn) {
+                if (!groups.containsKey(dependency)) {
+                    throw new IllegalStateException("Group " + group.name + " depends on unknown group " + dependency);
+                }
+                List<String> list = dependents.get(dependency);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    dependents.put(dependency, list);
+                }
+                list.add(group.name);
+            }
+            waiting.put(group.name, group.dependsOn.size());
+            if (group.dependsOn.isEmpty()) ready.add(group.name);
+        }
+        int visited = 0;
+        while (!ready.isEmpty()) {
+            String name = ready.remove(ready.size() - 1);
+            visited++;
+            List<String> list = dependents.get(name);
+            if (list == null) continue;
+            for (String dependent : list) {
+                int left = waiting.get(dependent) - 1;
+                waiting.put(dependent, left);
+                if (left == 0) ready.add(dependent);
+            }
+        }
+        if (visited < groups.size()) {
+            throw new IllegalStateException("The group dependencies form a cycle");
+        }
+    }
+
+    private String anonymousName() {
+        int n = groups.size() + 1;
+        while (groups.containsKey("#" + n)) n++;
+        return "#" + n;
+    }
+
+    /**
+     * Splits a script into statements. With {@code directives}, the line comments starting with
+     * {@code @} are returned too, in place, as tokens starting with {@link #DIRECTIVE}.
+     */
+    private static List<String> tokens(String script, boolean directives) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        int n = script.length();
+        int i = 0;
+        while (i < n) {
+            char c = script.charAt(i);
+            int end;
+            if (c == '\'' || c == '"' || c == '`') {
+                end = i + 1;
+                while (end < n) {
+                    if (script.charAt(end) == c) {
+                        if (end + 1 < n && script.charAt(end + 1) == c) {
+                            end += 2; // Doubled quote
+                            continue;
+                        }
+                        end++;
+                        break;
+                    }
+                    end++;
+                }
+                sb.append(script, i, end);
+            } else if (c == '-' && i + 1 < n && script.charAt(i + 1) == '-') {
+                end = script.indexOf('\n', i);
+                if (end < 0) end = n;
+                String comment = script.substring(i + 2, end).trim();
+                if (directives && comment.startsWith("@")) {
+                    tokens.add(DIRECTIVE + comment);
+                }
+                sb.append('\n');
+            } else if (c == '/' && i + 1 < n && script.charAt(i + 1) == '*') {
+                end = script.indexOf("*/", i + 2);
+                end = end < 0 ? n : end + 2;
+                sb.append(script, i, end);
+            } else if (c == '$' && (end = dollarQuoteEnd(script, i)) > 0) {
+                sb.append(script, i, end);
+            } else if (c == ';') {
+                addStatement(tokens, sb);
+                end = i + 1;
+            } else {
+                sb.append(c);
+                end = i + 1;
+            }
+            i = end;
+        }
+        addStatement(tokens, sb);
+        return tokens;
+    }
+
+    /**
+     * Returns the end of the dollar-quoted string starting at {@code start}, such as
+     * {@code $body$ ... $body$}, or -1 if there is none there.
+     */
+    private static int dollarQuoteEnd(String script, int start) {
+        if (start > 0 && (Character.isLetterOrDigit(script.charAt(start - 1)) || script.charAt(start - 1) == '_')) {
+            return -1; // A $ inside an identifier
+        }
+        int tagEnd = start + 1;
+        while (tagEnd < script.length() && (Character.isLetterOrDigit(script.charAt(tagEnd)) || script.charAt(tagEnd) == '_')) {
+            tagEnd++;
+        }
+        if (tagEnd >= script.length() || script.charAt(tagEnd) != '$') return -1;
+        String tag = script.substring(start, tagEnd + 1);
+        if (tag.length() > 2 && Character.isDigit(tag.charAt(1))) return -1; // A positional parameter like $1
+        int close = script.indexOf(tag, tagEnd + 1);
+        return close < 0 ? script.length() : close + tag.length();
+    }
+
+    private static void addStatement(List<String> tokens, StringBuilder sb) {
+        String statement = sb.toString().trim();
+        if (!statement.isEmpty()) tokens.add(statement);
+        sb.setLength(0);
+    }
+
+    private static final class Group {
+        final String name;
+        final List<String> statements = new ArrayList<>();
+        final Set<String> dependsOn = new LinkedHashSet<>();
+
+        Group(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * The state of one run, shared by the worker threads. Every method holds the monitor of the run.
+     */
+    private final class Run {
+        ExecutorService executor;
+        final Map<String, Integer> waiting = new HashMap<>();
+        final Map<String, List<Group>> dependents = new HashMap<>();
+        final List<StatementTiming> timings = new ArrayList<>();
+        int running;
+        int committed;
+        Group failedGroup;
+        String failedSql;
+        SQLException error;
+
+        synchronized List<Group> dependents(String name) {
+            List<Group> list = dependents.get(name);
+            if (list == null) {
+                list = new ArrayList<>();
+                dependents.put(name, list);
+            }
+            return list;
+        }
+
+        synchronized void submit(Group group) {
+            running++;
+            executor.execute(() -> runGroup(group, this));
+        }
+
+        synchronized boolean isFailed() {
+            return error != null;
+        }
+
+        synchronized void timing(StatementTiming timing) {
+            timings.add(timing);
+        }
+
+        synchronized void finished(Group group, boolean commit) {
+            running--;
+            if (commit) {
+                committed++;
+                if (error == null) {
+                    List<Group> next = dependents.get(group.name);
+                    if (next != null) {
+                        for (Group dependent : next) {
+                            int left = waiting.get(dependent.name) - 1;
+                            waiting.put(dependent.name, left);
+                            if (left == 0) submit(dependent);
+                        }
+                    }
+                }
+            }
+            notifyAll();
+        }
+
+        synchronized void failed(Group group, String sql, SQLException e, boolean wasRunning) {
+            if (wasRunning) running--;
+            if (error == null) {
+                failedGroup = group;
+                failedSql = sql;
+                error = e;
+            }
+            notifyAll();
+        }
+
+        synchronized ScriptResult result(long start) {
+            return new ScriptResult(Collections.unmodifiableList(new ArrayList<>(timings)), committed, groups.size(),
+                    failedGroup == null ? null : failedGroup.name, failedSql, error, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,446 @@
+package toolsBySp;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A cache of {@link PreparedStatement}s for a single connection, so repeated SQL text is
+ * parsed and planned by the database only once.
+ *
+ * <p>Statements are keyed by SQL text, result set type and concurrency. The cache holds at most
+ * {@code maxSize} statements and closes the least recently used one when it is full.
+ * Statements returned by {@link #prepare(String)} can be closed as usual, for example with
+ * try-with-resources: closing them closes their open result set, clears their parameters, restores
+ * the max rows, max field size, fetch size, fetch direction and query timeout they were prepared
+ * with, and hands them back to the cache instead of closing them on the server.</p>
+ *
+ * <p>If the same SQL is prepared again while the cached statement is still in use, a separate,
+ * uncached statement is returned so both can be used at the same time.</p>
+ *
+ * <p>When the connection changes hands, for example when it goes back to a {@link ConnectionPool},
+ * {@link #releaseAll()} takes back the statements the previous owner never closed, so they are
+ * cached again and can no longer run on the next owner's session.</p>
+ *
+ * @author Samuel Pestana
+ */
+public class StatementCache implements AutoCloseable {
+
+    private final Connection conn;
+    private final int maxSize;
+    private final LinkedHashMap<Key, CachedStatement> entries;
+
+    private final List<PreparedStatement> toClose = new ArrayList<>(); // Evicted while the lock was held
+    private final Set<Lease> leases = Collections.newSetFromMap(new IdentityHashMap<>()); // Handed out, not closed
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private boolean closed;
+
+    /**
+     * Creates a statement cache for the given connection.
+     *
+     * @param conn    The connection the statements are prepared on.
+     * @param maxSize The maximum number of statements kept open.
+     */
+    public StatementCache(Connection conn, int maxSize) {
+        this.conn = conn;
+        this.maxSize = Math.max(1, maxSize);
+        this.entries = new LinkedHashMap<Key, CachedStatement>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedStatement> eldest) {
+                if (size() <= StatementCache.this.maxSize) return false;
+                evictions++;
+                markEvicted(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns a prepared statement for the given SQL, reusing a cached one if possible.
+     *
+     * @param sql The SQL text of the statement.
+     * @return A prepared statement; closing it returns it to the cache.
+     * @throws SQLException if the statement cannot be prepared or the cache is closed.
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        return prepare(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    }
+
+    /**
+     * Returns a prepared statement for the given SQL, result set type and concurrency,
+     * reusing a cached one if possible.
+     *
+     * @param sql                  The SQL text of the statement.
+     * @param resultSetType        A result set type, such as {@link ResultSet#TYPE_FORWARD_ONLY}.
+     * @param resultSetConcurrency A concurrency type, such as {@link ResultSet#CONCUR_READ_ONLY}.
+     * @return A prepared statement; closing it returns it to the cache.
+     * @throws SQLException if the statement cannot be prepared or the cache is closed.
+     */
+    public PreparedStatement prepare(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return prepare(sql, resultSetType, resultSetConcurrency, null);
+    }
+
+    /**
+     * Returns a prepared statement whose {@code getConnection()} reports the given connection,
+     * such as the wrapper a {@link ConnectionPool} hands out, instead of the one the cache prepares on.
+     */
+    PreparedStatement prepare(String sql, int resultSetType, int resultSetConcurrency, Connection owner) throws SQLException {
+        Key key = new Key(sql, resultSetType, resultSetConcurrency);
+        CachedStatement entry;
+        synchronized (this) {
+            if (closed) throw new SQLException("Statement cache is closed");
+            entry = entries.get(key);
+            if (entry != null && !entry.inUse && !entry.statement.isClosed()) {
+                hits++;
+                entry.inUse = true;
+                return lease(entry, owner);
+            }
+            misses++;
+        }
+
+        PreparedStatement statement = conn.prepareStatement(sql, resultSetType, resultSetConcurrency);
+        CachedStatement fresh;
+        try {
+            fresh = new CachedStatement(sql, statement);
+        } catch (SQLException e) {
+            closeQuietly(statement);
+            throw e;
+        }
+        fresh.inUse = true;
+        synchronized (this) {
+            CachedStatement current = entries.get(key);
+            if (closed || (current != null && current.inUse)) {
+                fresh.evicted = true; // Not cached, it is really closed when the caller closes it
+            } else {
+                if (current != null) markEvicted(current);
+                entries.put(key, fresh);
+            }
+        }
+        closePending();
+        return lease(fresh, owner);
+    }
+
+    /**
+     * Returns the number of times a cached statement was reused.
+     *
+     * @return the number of cache hits.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of times a statement had to be prepared on the database.
+     *
+     * @return the number of cache misses.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of statements closed to make room for newer ones.
+     *
+     * @return the number of evictions.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of statements currently cached.
+     *
+     * @return the size of the cache.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Closes and forgets every cached statement whose SQL text matches, used when the
+     * statements become invalid, for example after a schema change.
+     *
+     * @param sql The SQL text of the statements to discard.
+     */
+    public void invalidate(String sql) {
+        List<CachedStatement> toEvict = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<Key, CachedStatement>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, CachedStatement> e = it.next();
+                if (e.getKey().sql.equals(sql)) {
+                    toEvict.add(e.getValue());
+                    it.remove();
+                }
+            }
+        }
+        for (CachedStatement entry : toEvict) {
+            entry.evict();
+        }
+    }
+
+    /**
+     * Takes back every statement handed out and not closed yet, as if its holder had closed it.
+     * The holder's references fail from then on, like closed statements.
+     */
+    public void releaseAll() {
+        List<Lease> outstanding;
+        synchronized (this) {
+            if (leases.isEmpty()) return;
+            outstanding = new ArrayList<>(leases);
+            leases.clear();
+        }
+        for (Lease lease : outstanding) {
+            lease.revoke();
+        }
+    }
+
+    /**
+     * Closes every cached statement. Statements still in use are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        List<CachedStatement> toEvict;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            toEvict = new ArrayList<>(entries.values());
+            entries.clear();
+        }
+        for (CachedStatement entry : toEvict) {
+            entry.evict();
+        }
+    }
+
+    /**
+     * Marks an entry as evicted while the cache lock is held. If it is not in use, its statement
+     * is queued for {@link #closePending()}, so the round trip to the server happens outside the lock.
+     */
+    private void markEvicted(CachedStatement entry) {
+        entry.evicted = true;
+        if (!entry.inUse) toClose.add(entry.statement);
+    }
+
+    /**
+     * Closes the statements evicted while the lock was held.
+     */
+    private void closePending() {
+        List<PreparedStatement> statements;
+        synchronized (this) {
+            if (toClose.isEmpty()) return;
+            statements = new ArrayList<>(toClose);
+            toClose.clear();
+        }
+        for (PreparedStatement statement : statements) {
+            closeQuietly(statement);
+        }
+    }
+
+    private PreparedStatement lease(CachedStatement entry, Connection owner) {
+        Lease lease = new Lease(entry, owner);
+        synchronized (this) {
+            leases.add(lease);
+        }
+        return (PreparedStatement) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class, DatabaseMetrics.Timed.class },
+                lease);
+    }
+
+    /**
+     * The cache key: SQL text plus result set type and concurrency.
+     */
+    private static final class Key {
+        final String sql;
+        final int type;
+        final int concurrency;
+        final int hash;
+
+        Key(String sql, int type, int concurrency) {
+            this.sql = sql;
+            this.type = type;
+            this.concurrency = concurrency;
+            this.hash = (sql.hashCode() * 31 + type) * 31 + concurrency;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return type == k.type && concurrency == k.concurrency && sql.equals(k.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * A physical statement, the settings it was prepared with and whether it is currently handed out.
+     */
+    private final class CachedStatement {
+        final String sql;
+        final PreparedStatement statement;
+        final int maxRows;
+        final int maxFieldSize;
+        final int fetchSize;
+        final int fetchDirection;
+        final int queryTimeout;
+        boolean inUse;    // Guarded by the cache
+        boolean evicted;  // Guarded by the cache
+
+        CachedStatement(String sql, PreparedStatement statement) throws SQLException {
+            this.sql = sql;
+            this.statement = statement;
+            this.maxRows = statement.getMaxRows();
+            this.maxFieldSize = statement.getMaxFieldSize();
+            this.fetchSize = statement.getFetchSize();
+            this.fetchDirection = statement.getFetchDirection();
+            this.queryTimeout = statement.getQueryTimeout();
+        }
+
+        /**
+         * Removes the statement from the cache, closing it now or when it is returned.
+         * Called after the entry has been unlinked, without the cache lock held.
+         */
+        void evict() {
+            boolean closeNow;
+            synchronized (StatementCache.this) {
+                evicted = true;
+                closeNow = !inUse;
+            }
+            if (closeNow) closeQuietly(statement);
+        }
+
+        /**
+         * Takes the statement back from the caller.
+         */
+        void release() {
+            boolean closeNow;
+            synchronized (StatementCache.this) {
+                inUse = false;
+                closeNow = evicted;
+            }
+            if (closeNow) {
+                closeQuietly(statement);
+                return;
+            }
+            try {
+                // Nothing the borrower did may leak to the next one
+                ResultSet rs = statement.getResultSet();
+                if (rs != null) rs.close();
+                statement.clearParameters();
+                statement.clearBatch();
+                statement.clearWarnings();
+                if (statement.getMaxRows() != maxRows) statement.setMaxRows(maxRows);
+                if (statement.getMaxFieldSize() != maxFieldSize) statement.setMaxFieldSize(maxFieldSize);
+                if (statement.getFetchSize() != fetchSize) statement.setFetchSize(fetchSize);
+                if (statement.getFetchDirection() != fetchDirection) statement.setFetchDirection(fetchDirection);
+                if (statement.getQueryTimeout() != queryTimeout) statement.setQueryTimeout(queryTimeout);
+            } catch (SQLException e) {
+                closeQuietly(statement); // The next prepare sees it closed and replaces it
+            }
+        }
+    }
+
+    /**
+     * Forwards every call to the cached statement until the caller closes it,
+     * timing the {@code execute} calls for {@link DatabaseMetrics}.
+     */
+    private final class Lease implements InvocationHandler {
+        private final Connection owner; // Reported by getConnection(), or null for the cache's connection
+        private CachedStatement entry;
+
+        Lease(CachedStatement entry, Connection owner) {
+            this.entry = entry;
+            this.owner = owner;
+        }
+
+        /**
+         * Hands the statement back to the cache, once.
+         */
+        void revoke() {
+            CachedStatement e;
+            synchronized (this) {
+                e = entry;
+                entry = null;
+            }
+            if (e != null) e.release();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (StatementCache.this) {
+                        leases.remove(this);
+                    }
+                    revoke();
+                    return null;
+                case "isClosed":
+                    synchronized (this) {
+                        return entry == null || entry.statement.isClosed();
+                    }
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    synchronized (this) {
+                        return entry == null ? "CachedStatement[closed]" : entry.statement.toString();
+                    }
+                default:
+                    break;
+            }
+
+            PreparedStatement statement;
+            String sql;
+            synchronized (this) {
+                if (entry == null) throw new SQLException("Statement is closed");
+                statement = entry.statement;
+                sql = entry.sql;
+            }
+            if (owner != null && method.getName().equals("getConnection")) return owner;
+            boolean timed = method.getName().startsWith("execute");
+            long start = timed ? System.nanoTime() : 0;
+            try {
+                Object result = method.invoke(statement, args);
+                if (timed) DatabaseMetrics.getDefault().recordQuery(sql, System.nanoTime() - start);
+                return result;
+            } catch (InvocationTargetException ex) {
+                if (ex.getCause() instanceof SQLException) {
+                    DatabaseMetrics.getDefault().recordError((SQLException) ex.getCause());
+                }
+                throw ex.getCause();
+            }
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // Nothing else can be done with a statement that fails to close
+        }
+    }
+}
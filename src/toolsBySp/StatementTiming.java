@@ -0,0 +1,62 @@
+package toolsBySp;
+
+/**
+ * How long one statement of a script run by {@link SqlScriptRunner} took.
+ *
+ * @author Samuel Pestana
+ */
+public class StatementTiming {
+
+    private final String group;
+    private final String sql;
+    private final long elapsedNanos;
+    private final int updateCount;
+
+    StatementTiming(String group, String sql, long elapsedNanos, int updateCount) {
+        this.group = group;
+        this.sql = sql;
+        this.elapsedNanos = elapsedNanos;
+        this.updateCount = updateCount;
+    }
+
+    /**
+     * Returns the name of the group the statement belongs to.
+     *
+     * @return the group name.
+     */
+    public String getGroup() {
+        return group;
+    }
+
+    /**
+     * Returns the SQL text of the statement.
+     *
+     * @return the statement.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Returns the time the statement took to execute.
+     *
+     * @return the execution time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the number of rows changed by the statement.
+     *
+     * @return the update count, or -1 if the statement returned rows or its count is unknown.
+     */
+    public int getUpdateCount() {
+        return updateCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[%s] %.3f ms: %s", group, elapsedNanos / 1_000_000.0, sql);
+    }
+}
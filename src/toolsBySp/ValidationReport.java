@@ -0,0 +1,71 @@
+package toolsBySp;
+
+/**
+ * The counts produced by a bulk validation run, see {@link BulkValidator}.
+ *
+ * @author Samuel Pestana
+ */
+public class ValidationReport {
+
+    private final long validRecords;
+    private final long invalidRecords;
+    private final long elapsedNanos;
+
+    ValidationReport(long validRecords, long invalidRecords, long elapsedNanos) {
+        this.validRecords = validRecords;
+        this.invalidRecords = invalidRecords;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the number of records checked.
+     *
+     * @return the total number of records.
+     */
+    public long getTotalRecords() {
+        return validRecords + invalidRecords;
+    }
+
+    /**
+     * Returns the number of records that passed the validation.
+     *
+     * @return the number of valid records.
+     */
+    public long getValidRecords() {
+        return validRecords;
+    }
+
+    /**
+     * Returns the number of records that failed the validation.
+     *
+     * @return the number of invalid records.
+     */
+    public long getInvalidRecords() {
+        return invalidRecords;
+    }
+
+    /**
+     * Returns the time spent validating, in milliseconds.
+     *
+     * @return the elapsed time in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    /**
+     * Returns the validation throughput.
+     *
+     * @return the number of records checked per second.
+     */
+    public double getRecordsPerSecond() {
+        if (elapsedNanos <= 0) return 0;
+        return getTotalRecords() * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d records, %d valid, %d invalid in %d ms",
+                getTotalRecords(), validRecords, invalidRecords, getElapsedMillis());
+    }
+}
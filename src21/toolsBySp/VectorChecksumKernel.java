@@ -0,0 +1,235 @@
+package toolsBySp;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The {@link ChecksumKernel} of the Java 21 build, written with the incubating Vector API.
+ *
+ * <p>The records are processed transposed, one record per byte lane: for a block of as many records
+ * as the vector has lanes (64 with AVX-512, 32 with AVX2), the same digit of every record is
+ * collected into one vector with contiguous loads and lane shuffles, no byte gathers.
+ * From there each add, compare or masked subtract advances the whole block at once. Sums are kept
+ * small enough for a byte by reducing them modulo 10 or 11 with conditional subtractions.</p>
+ *
+ * <p>Collecting a digit costs a load and a shuffle for every vector the block spans, about
+ * {@code stride} of them, so wide records are cheaper to check one by one: when a block spans more
+ * than one and a half vectors per digit of the record, the whole batch goes through {@link ChecksumUtils}.
+ * Records left over after the last full block go through it too. Only compiled by
+ * the {@code java-21} profile; {@link BatchChecksumUtils} loads it reflectively and falls back to
+ * {@link ScalarChecksumKernel} if the JVM was started without {@code --add-modules jdk.incubator.vector}.</p>
+ *
+ * @author Samuel Pestana
+ */
+class VectorChecksumKernel implements ChecksumKernel {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    private final ChecksumUtils checksums = new ChecksumUtils();
+
+    VectorChecksumKernel() {
+        if (LANES < 32) {
+            // Without 256-bit vectors the shuffles cost more than the scalar loop saves
+            throw new UnsupportedOperationException("Vectors of " + LANES + " bytes are too narrow");
+        }
+    }
+
+    @Override
+    public int luhn(byte[] data, int offset, int length, int stride, int count, boolean[] results) {
+        int valid = 0;
+        int done = 0;
+        // Longer numbers could overflow the byte sums
+        if (length >= 2 && length <= 28 && worthTransposing(stride, length)) {
+            Transpose transpose = new Transpose(stride, length);
+            for (; fits(data, offset, stride, done, count, transpose); done += LANES) {
+                int start = offset + done * stride;
+                ByteVector sum = ByteVector.zero(SPECIES);
+                VectorMask<Byte> bad = SPECIES.maskAll(false);
+                for (int j = 0; j < length; j++) {
+                    ByteVector digit = transpose.digit(data, start, j).sub((byte) '0');
+                    bad = bad.or(digit.compare(VectorOperators.UNSIGNED_GT, 9));
+                    if (((length - 1 - j) & 1) == 1) {
+                        digit = digit.add(digit);
+                        digit = digit.lanewise(VectorOperators.SUB, (byte) 9, digit.compare(VectorOperators.GT, 9));
+                    }
+                    sum = sum.add(digit); // At most 28 * 9 = 252, kept unsigned
+                }
+                sum = mod10(sum);
+                valid += store(sum, bad, results, done);
+            }
+        }
+        for (int i = done; i < count; i++) {
+            results[i] = checksums.isValidLuhn(data, offset + i * stride, length);
+            if (results[i]) valid++;
+        }
+        return valid;
+    }
+
+    @Override
+    public int isbn10(byte[] data, int offset, int stride, int count, boolean[] results) {
+        int valid = 0;
+        int done = 0;
+        if (worthTransposing(stride, 10)) {
+            Transpose transpose = new Transpose(stride, 10);
+            for (; fits(data, offset, stride, done, count, transpose); done += LANES) {
+                int start = offset + done * stride;
+                ByteVector sum = ByteVector.zero(SPECIES);
+                VectorMask<Byte> bad = SPECIES.maskAll(false);
+                for (int j = 0; j < 9; j++) {
+                    ByteVector digit = transpose.digit(data, start, j).sub((byte) '0');
+                    bad = bad.or(digit.compare(VectorOperators.UNSIGNED_GT, 9));
+                    sum = mod11(sum.add(digit.mul((byte) (10 - j)))); // At most 10 + 90, then back below 11
+                }
+                ByteVector check = transpose.digit(data, start, 9);
+                VectorMask<Byte> isX = check.compare(VectorOperators.EQ, (byte) 'X');
+                ByteVector digit = check.sub((byte) '0');
+                bad = bad.or(digit.compare(VectorOperators.UNSIGNED_GT, 9).andNot(isX));
+                sum = mod11(sum.add(digit.blend((byte) 10, isX)));
+                valid += store(sum, bad, results, done);
+            }
+        }
+        for (int i = done; i < count; i++) {
+            results[i] = checksums.isValidISBN10(data, offset + i * stride, 10);
+            if (results[i]) valid++;
+        }
+        return valid;
+    }
+
+    @Override
+    public int isbn13(byte[] data, int offset, int stride, int count, boolean[] results) {
+        int valid = 0;
+        int done = 0;
+        if (worthTransposing(stride, 13)) {
+            Transpose transpose = new Transpose(stride, 13);
+            for (; fits(data, offset, stride, done, count, transpose); done += LANES) {
+                int start = offset + done * stride;
+                ByteVector sum = ByteVector.zero(SPECIES);
+                VectorMask<Byte> bad = SPECIES.maskAll(false);
+                for (int j = 0; j < 13; j++) {
+                    ByteVector digit = transpose.digit(data, start, j).sub((byte) '0');
+                    bad = bad.or(digit.compare(VectorOperators.UNSIGNED_GT, 9));
+                    sum = sum.add((j & 1) == 0 ? digit : digit.mul((byte) 3)); // At most 7 * 9 + 6 * 27 = 225
+                }
+                sum = mod10(sum);
+                valid += store(sum, bad, results, done);
+            }
+        }
+        for (int i = done; i < count; i++) {
+            results[i] = checksums.isValidISBN13(data, offset + i * stride, 13);
+            if (results[i]) valid++;
+        }
+        return valid;
+    }
+
+    /**
+     * Checks whether transposing the records is cheaper than checking them one by one. On AVX-512,
+     * BatchChecksumBenchmark put the break-even point for 16-digit numbers between a stride of 17,
+     * where the vector kernel is ahead, and 32, where it is about 20% behind and falls further
+     * behind as the stride grows.
+     */
+    private static boolean worthTransposing(int stride, int length) {
+        long vectors = ((LANES - 1) * (long) stride + length + LANES - 1) / LANES;
+        return vectors * 2 <= length * 3L;
+    }
+
+    /**
+     * Checks whether a whole block starting at record {@code first} is part of the batch and
+     * can be loaded without reading past the end of the array.
+     */
+    private static boolean fits(byte[] data, int offset, int stride, int first, int count, Transpose transpose) {
+        return first + LANES <= count
+                && offset + (long) first * stride + (long) transpose.vectors * LANES <= data.length;
+    }
+
+    /**
+     * Subtracts {@code step} from the lanes holding at least {@code step}, comparing as unsigned bytes.
+     */
+    private static ByteVector reduce(ByteVector sum, int step) {
+        return sum.lanewise(VectorOperators.SUB, (byte) step,
+                sum.compare(VectorOperators.UNSIGNED_GE, (byte) step));
+    }
+
+    private static ByteVector mod10(ByteVector sum) {
+        sum = reduce(sum, 160);
+        sum = reduce(sum, 80);
+        sum = reduce(sum, 40);
+        sum = reduce(sum, 20);
+        return reduce(sum, 10);
+    }
+
+    private static ByteVector mod11(ByteVector sum) {
+        sum = reduce(sum, 88);
+        sum = reduce(sum, 44);
+        sum = reduce(sum, 22);
+        return reduce(sum, 11);
+    }
+
+    /**
+     * Stores the results of a block: a record is valid if all its characters were digits
+     * and its sum reduced to 0.
+     */
+    private static int store(ByteVector sum, VectorMask<Byte> bad, boolean[] results, int first) {
+        VectorMask<Byte> ok = sum.compare(VectorOperators.EQ, (byte) 0).andNot(bad);
+        ok.intoArray(results, first);
+        return ok.trueCount();
+    }
+
+    /**
+     * The shuffles that move digit {@code j} of every record of a block into its own lane.
+     * Record {@code l} starts {@code l * stride} bytes into the block, so its digit {@code j}
+     * is in loaded vector {@code (j + l * stride) / LANES}.
+     */
+    private static final class Transpose {
+        final int vectors;
+        final int[] firstVector;
+        final VectorShuffle<Byte>[][] shuffles;
+        final VectorMask<Byte>[][] masks;
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Transpose(int stride, int length) {
+            vectors = ((LANES - 1) * stride + length + LANES - 1) / LANES;
+            firstVector = new int[length];
+            shuffles = new VectorShuffle[length][];
+            masks = new VectorMask[length][];
+            int[] indexes = new int[LANES];
+            boolean[] lanes = new boolean[LANES];
+            for (int j = 0; j < length; j++) {
+                firstVector[j] = j / LANES;
+                int lastVector = (j + (LANES - 1) * stride) / LANES;
+                int n = lastVector - firstVector[j] + 1;
+                shuffles[j] = new VectorShuffle[n];
+                masks[j] = new VectorMask[n];
+                for (int k = 0; k < n; k++) {
+                    int vector = firstVector[j] + k;
+                    for (int lane = 0; lane < LANES; lane++) {
+                        int position = j + lane * stride;
+                        lanes[lane] = position / LANES == vector;
+                        indexes[lane] = lanes[lane] ? position % LANES : 0;
+                    }
+                    shuffles[j][k] = VectorShuffle.fromArray(SPECIES, indexes, 0);
+                    masks[j][k] = VectorMask.fromArray(SPECIES, lanes, 0);
+                }
+            }
+        }
+
+        /**
+         * Collects digit {@code j} of the block starting at {@code start}. The vectors are loaded
+         * again for every digit rather than kept in an array, which would box them; the loads hit L1.
+         */
+        ByteVector digit(byte[] data, int start, int j) {
+            int first = start + firstVector[j] * LANES;
+            VectorShuffle<Byte>[] shuffle = shuffles[j];
+            VectorMask<Byte>[] mask = masks[j];
+            ByteVector digit = ByteVector.fromArray(SPECIES, data, first).rearrange(shuffle[0]);
+            for (int k = 1; k < shuffle.length; k++) {
+                ByteVector loaded = ByteVector.fromArray(SPECIES, data, first + k * LANES);
+                digit = digit.blend(loaded.rearrange(shuffle[k]), mask[k]);
+            }
+            return digit;
+        }
+    }
+}
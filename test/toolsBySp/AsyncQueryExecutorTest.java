@@ -0,0 +1,127 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link AsyncQueryExecutor} against an in-memory H2 database.
+ *
+ * @author Samuel Pestana
+ */
+class AsyncQueryExecutorTest {
+
+    private ConnectionPool pool;
+    private AsyncQueryExecutor executor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        pool = new ConnectionPool("jdbc:h2:mem:async;DB_CLOSE_DELAY=-1", "sa", "", 0, 4);
+        executor = new AsyncQueryExecutor(pool, 2);
+        executor.updateAsync("CREATE TABLE item (id INT PRIMARY KEY, name VARCHAR(20))").get();
+        for (int i = 1; i <= 5; i++) {
+            executor.updateAsync("INSERT INTO item VALUES (?, ?)", i, "item " + i).get();
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        executor.updateAsync("DROP ALL OBJECTS").get();
+        executor.close();
+        pool.close();
+    }
+
+    @Test
+    void runsQueriesAndUpdates() throws Exception {
+        QueryResult result = executor.queryAsync("SELECT id, name FROM item WHERE id > ? ORDER BY id", 3).get();
+        assertEquals(2, result.getRowCount());
+        assertEquals("item 4", result.getValue(0, "NAME"));
+        assertEquals(3, executor.updateAsync("DELETE FROM item WHERE id <= ?", 3).get().intValue());
+
+        AtomicInteger sum = new AtomicInteger();
+        long rows = executor.streamAsync("SELECT id FROM item", rs -> sum.addAndGet(rs.getInt(1))).get();
+        assertEquals(2, rows);
+        assertEquals(9, sum.get());
+    }
+
+    @Test
+    void readsLocatorsBeforeTheConnectionIsReleased() throws Exception {
+        executor.updateAsync("CREATE TABLE doc (id INT, data BLOB, body CLOB, tags VARCHAR(10) ARRAY)").get();
+        executor.updateAsync("INSERT INTO doc VALUES (1, X'CAFE', 'some text', ARRAY['a', 'b'])").get();
+
+        QueryResult result = executor.queryAsync("SELECT data, body, tags FROM doc").get();
+        assertEquals(pool.getTotalConnections(), pool.getIdleConnections()); // Every connection is back in the pool
+        assertArrayEquals(new byte[] {(byte) 0xCA, (byte) 0xFE}, (byte[]) result.getValue(0, 0));
+        assertEquals("some text", result.getValue(0, 1));
+        assertArrayEquals(new Object[] {"a", "b"}, (Object[]) result.getValue(0, 2));
+    }
+
+    @Test
+    void failedQueriesCompleteWithTheirSqlException() {
+        CompletableFuture<QueryResult> future = executor.queryAsync("SELECT * FROM missing");
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(SQLException.class, e.getCause());
+        assertEquals(0, executor.getActiveQueries());
+    }
+
+    @Test
+    void capsTheQueriesRunningAtTheSameTime() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.streamAsync("SELECT id FROM item WHERE id = 1", rs -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+            }));
+        }
+        for (CompletableFuture<Long> future : futures) {
+            assertEquals(1, future.get().longValue());
+        }
+        assertTrue(peak.get() <= 2, "peak " + peak.get());
+        assertTrue(pool.getTotalConnections() <= 2);
+    }
+
+    @Test
+    void usesVirtualThreadsOnlyWhenTheJvmHasThem() throws Exception {
+        boolean supported;
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            supported = true;
+        } catch (NoSuchMethodException e) {
+            supported = false;
+        }
+        assertEquals(supported, executor.isUsingVirtualThreads());
+
+        ExecutorService own = Executors.newSingleThreadExecutor();
+        try (AsyncQueryExecutor custom = new AsyncQueryExecutor(pool, 1, own)) {
+            assertFalse(custom.isUsingVirtualThreads());
+            assertEquals(5, custom.queryAsync("SELECT * FROM item").get().getRowCount());
+        }
+        assertFalse(own.isShutdown()); // Not ours to shut down
+        own.shutdown();
+        assertThrows(IllegalArgumentException.class, () -> new AsyncQueryExecutor(pool, 0));
+    }
+}
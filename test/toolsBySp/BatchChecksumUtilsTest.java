@@ -0,0 +1,120 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link BatchChecksumUtils} agrees with {@link ChecksumUtils} record by record, with
+ * the kernel this JVM picks (vectorized under {@code -Pjava-21}) and with the scalar one.
+ *
+ * @author Samuel Pestana
+ */
+class BatchChecksumUtilsTest {
+
+    private final ChecksumUtils checksums = new ChecksumUtils();
+    private final BatchChecksumUtils[] batches = {new BatchChecksumUtils(), new BatchChecksumUtils(new ScalarChecksumKernel())};
+
+    /**
+     * Packs {@code count} random records, mostly digits so a good share pass, at the given stride.
+     * The bytes between records are line feeds.
+     */
+    private static byte[] records(Random random, int offset, int length, int stride, int count, boolean isbn10) {
+        byte[] data = new byte[offset + Math.max(0, (count - 1) * stride + length) + random.nextInt(3)];
+        Arrays.fill(data, (byte) '\n');
+        for (int i = 0; i < count; i++) {
+            int start = offset + i * stride;
+            for (int j = 0; j < length; j++) {
+                int pick = random.nextInt(40);
+                data[start + j] = (byte) (pick == 0 ? 'a' : pick == 1 ? '/' : pick == 2 ? ':' : '0' + pick % 10);
+            }
+            if (isbn10 && random.nextInt(10) == 0) data[start + length - 1] = 'X';
+        }
+        return data;
+    }
+
+    @Test
+    void luhnMatchesTheScalarChecksForEveryLengthAndStride() {
+        Random random = new Random(17);
+        for (int length = 1; length <= 30; length++) {
+            for (int stride = length; stride <= length + 24; stride += 1 + random.nextInt(4)) {
+                int count = 1 + random.nextInt(300);
+                int offset = random.nextInt(5);
+                byte[] data = records(random, offset, length, stride, count, false);
+                boolean[] expected = new boolean[count];
+                int valid = 0;
+                for (int i = 0; i < count; i++) {
+                    expected[i] = checksums.isValidLuhn(data, offset + i * stride, length);
+                    if (expected[i]) valid++;
+                }
+                for (BatchChecksumUtils batch : batches) {
+                    boolean[] results = new boolean[count];
+                    String where = "length " + length + ", stride " + stride + ", vectorized " + batch.isVectorized();
+                    assertEquals(valid, batch.validateLuhn(data, offset, length, stride, count, results), where);
+                    assertArrayEquals(expected, results, where);
+                }
+            }
+        }
+    }
+
+    @Test
+    void creditCardsMatchTheScalarChecks() {
+        Random random = new Random(18);
+        for (int length = 14; length <= 17; length++) {
+            byte[] data = records(random, 0, length, length + 1, 1000, false);
+            boolean[] expected = new boolean[1000];
+            for (int i = 0; i < 1000; i++) {
+                expected[i] = checksums.isValidCreditCard(data, i * (length + 1), length);
+            }
+            for (BatchChecksumUtils batch : batches) {
+                boolean[] results = new boolean[1000];
+                batch.validateCreditCards(data, 0, length, length + 1, 1000, results);
+                assertArrayEquals(expected, results, "length " + length);
+            }
+        }
+    }
+
+    @Test
+    void isbnsMatchTheScalarChecks() {
+        Random random = new Random(19);
+        for (int stride : new int[] {10, 11, 13, 14, 15, 40}) {
+            int count = 500 + random.nextInt(100);
+            byte[] tens = records(random, 1, 10, stride, count, true);
+            byte[] thirteens = stride >= 13 ? records(random, 1, 13, stride, count, false) : null;
+            boolean[] expected10 = new boolean[count];
+            boolean[] expected13 = new boolean[count];
+            for (int i = 0; i < count; i++) {
+                expected10[i] = checksums.isValidISBN10(tens, 1 + i * stride, 10);
+                if (thirteens != null) expected13[i] = checksums.isValidISBN13(thirteens, 1 + i * stride, 13);
+            }
+            for (BatchChecksumUtils batch : batches) {
+                boolean[] results = new boolean[count];
+                batch.validateISBN10(tens, 1, stride, count, results);
+                assertArrayEquals(expected10, results, "ISBN-10, stride " + stride);
+                if (thirteens == null) continue;
+                batch.validateISBN13(thirteens, 1, stride, count, results);
+                assertArrayEquals(expected13, results, "ISBN-13, stride " + stride);
+            }
+        }
+    }
+
+    @Test
+    void rejectsBatchesOutsideTheArray() {
+        for (BatchChecksumUtils batch : batches) {
+            byte[] data = new byte[32];
+            boolean[] results = new boolean[4];
+            assertThrows(ArrayIndexOutOfBoundsException.class, () -> batch.validateLuhn(data, 0, 16, 16, 3, results));
+            assertThrows(ArrayIndexOutOfBoundsException.class, () -> batch.validateLuhn(data, 0, 16, 8, 2, results));
+            assertThrows(ArrayIndexOutOfBoundsException.class, () -> batch.validateISBN13(data, 0, 13, 5, results));
+            assertThrows(ArrayIndexOutOfBoundsException.class, () -> batch.validateCreditCards(data, 0, 12, 12, 3, results));
+            assertEquals(0, batch.validateISBN10(data, 0, 10, 0, results));
+        }
+        assertFalse(new BatchChecksumUtils(new ScalarChecksumKernel()).isVectorized());
+    }
+}
@@ -0,0 +1,115 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link BulkLoader} against an in-memory H2 database.
+ *
+ * @author Samuel Pestana
+ */
+class BulkLoaderTest {
+
+    private Connection conn;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:bulk", "sa", "");
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE item (id INT PRIMARY KEY, qty INT, added DATE)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    private int count() throws SQLException {
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM item")) {
+            assertTrue(rs.next());
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    void loadsEveryRowInMultiRowStatements() throws SQLException {
+        BulkLoader loader = new BulkLoader(conn, "item", "id", "qty", "added");
+        loader.setBatchSize(10);
+        loader.setRowsPerStatement(4);
+        BulkLoadResult result = loader.load(IntStream.range(0, 105).mapToObj(i -> new Object[] {i, i * 2, null}));
+        assertEquals(105, result.getRowsRead());
+        assertEquals(105, result.getRowsLoaded());
+        assertEquals(0, result.getFailedRows());
+        assertEquals(105, count());
+        assertTrue(conn.getAutoCommit());
+    }
+
+    @Test
+    void rollsBackAFailedBatchAndSkipsUnbindableRows() throws SQLException {
+        BulkLoader loader = new BulkLoader(conn, "item", "id", "qty", "added");
+        loader.setBatchSize(2);
+        BulkLoadResult result = loader.load(Arrays.asList(
+                new Object[] {1, 1, null},
+                new Object[] {2, 2, null},
+                new Object[] {3, 3},
+                new Object[] {4, 4, null},
+                new Object[] {4, 5, null},
+                new Object[] {6, 6, null}).iterator());
+        assertEquals(6, result.getRowsRead());
+        assertEquals(3, result.getRowsLoaded());
+        assertEquals(3, result.getFailedRows());
+        assertEquals(1, result.getFailedBatches());
+        assertEquals(3, count());
+    }
+
+    @Test
+    void leavesTheCallersTransactionToTheCaller() throws SQLException {
+        conn.setAutoCommit(false);
+        try (Statement st = conn.createStatement()) {
+            st.execute("INSERT INTO item VALUES (100, 0, NULL)");
+        }
+        BulkLoader loader = new BulkLoader(conn, "item", "id", "qty", "added");
+        loader.setBatchSize(2);
+        BulkLoadResult result = loader.load(Arrays.asList(
+                new Object[] {1, 1, null},
+                new Object[] {2, 2, null},
+                new Object[] {100, 3, null},
+                new Object[] {4, 4, null}).iterator());
+        assertEquals(2, result.getRowsLoaded());
+        assertEquals(2, result.getFailedRows());
+        assertFalse(conn.getAutoCommit());
+        assertEquals(3, count());
+        conn.rollback();
+        assertEquals(0, count());
+    }
+
+    @Test
+    void bulkInsertCommitsOnlyTransactionsItStarted() throws SQLException {
+        DatabaseUtils db = new DatabaseUtils();
+        BulkLoadResult own = db.bulkInsert(conn, "item", new String[] {"id", "qty", "added"},
+                Arrays.asList(new Object[] {1, 1, null}, new Object[] {2, 2, null}).iterator(), 1);
+        assertEquals(2, own.getRowsLoaded());
+        assertTrue(conn.getAutoCommit());
+
+        conn.setAutoCommit(false);
+        BulkLoadResult callers = db.bulkInsert(conn, "item", new String[] {"id", "qty", "added"},
+                Arrays.asList(new Object[] {3, 3, null}, new Object[] {4, 4, null}).iterator(), 1);
+        assertEquals(2, callers.getRowsLoaded());
+        conn.rollback();
+        assertEquals(2, count());
+    }
+}
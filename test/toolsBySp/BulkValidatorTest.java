@@ -0,0 +1,69 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link BulkValidator}.
+ *
+ * @author Samuel Pestana
+ */
+class BulkValidatorTest {
+
+    @TempDir
+    Path dir;
+
+    private final InputUtils input = new InputUtils();
+    private final BulkValidator validator = new BulkValidator();
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void reportsEachRecordWithItsLineNumber() {
+        List<String> valid = new ArrayList<>();
+        List<String> invalid = new ArrayList<>();
+        ValidationReport report = validator.validate(stream("0123456789\r\n12ab\n\n912345678901\n"),
+                input::isValidPhoneNumberStrict,
+                (record, line) -> valid.add(line + ":" + record),
+                (record, line) -> invalid.add(line + ":" + record));
+
+        assertEquals(4, report.getTotalRecords());
+        assertEquals(2, report.getValidRecords());
+        assertEquals(2, report.getInvalidRecords());
+        assertEquals(Arrays.asList("1:0123456789", "4:912345678901"), valid);
+        assertEquals(Arrays.asList("2:12ab", "3:"), invalid);
+    }
+
+    @Test
+    void countsWithoutConsumers() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            text.append(i % 3 == 0 ? "user" + i + "@example.com" : "not an email").append('\n');
+        }
+        Path file = dir.resolve("emails.txt");
+        Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+
+        ValidationReport report = validator.validate(file, input::isValidEmail, null, null);
+        assertEquals(10_000, report.getTotalRecords());
+        assertEquals(3334, report.getValidRecords());
+    }
+
+    @Test
+    void returnsNullForAMissingFile() {
+        assertNull(validator.validate(dir.resolve("missing.txt"), input::isValidEmail, null, null));
+    }
+}
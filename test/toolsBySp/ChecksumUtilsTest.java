@@ -0,0 +1,94 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link ChecksumUtils}.
+ *
+ * @author Samuel Pestana
+ */
+class ChecksumUtilsTest {
+
+    private final ChecksumUtils checksums = new ChecksumUtils();
+
+    /**
+     * Places the text in the middle of a larger array, so the byte validators must honor the offset.
+     */
+    private static byte[] padded(String text) {
+        return ("##" + text + "##").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void validatesCreditCards() {
+        assertTrue(checksums.isValidCreditCard("4539578763621486"));
+        assertTrue(checksums.isValidCreditCard("378282246310005"));
+        assertFalse(checksums.isValidCreditCard("4539578763621487"));
+        assertFalse(checksums.isValidCreditCard("4539 5787 6362 1486"));
+        assertFalse(checksums.isValidCreditCard("79927398713")); // Valid Luhn, wrong length
+        assertFalse(checksums.isValidCreditCard((CharSequence) null));
+
+        assertTrue(checksums.isValidCreditCard(padded("4539578763621486"), 2, 16));
+        assertFalse(checksums.isValidCreditCard(padded("4539578763621486"), 1, 16));
+    }
+
+    @Test
+    void validatesLuhnNumbersOfAnyLength() {
+        assertTrue(checksums.isValidLuhn("79927398713"));
+        assertTrue(checksums.isValidLuhn("00"));
+        assertFalse(checksums.isValidLuhn("0"));
+        assertFalse(checksums.isValidLuhn("7992739871a"));
+        assertTrue(checksums.isValidLuhn(padded("79927398713"), 2, 11));
+    }
+
+    @Test
+    void validatesIsbns() {
+        assertTrue(checksums.isValidISBN10("0306406152"));
+        assertTrue(checksums.isValidISBN10("080442957X"));
+        assertFalse(checksums.isValidISBN10("0306406153"));
+        assertFalse(checksums.isValidISBN10("080442957x"));
+        assertTrue(checksums.isValidISBN13("9780306406157"));
+        assertFalse(checksums.isValidISBN13("9780306406158"));
+        assertTrue(checksums.isValidISBN("0306406152"));
+        assertTrue(checksums.isValidISBN("9780306406157"));
+        assertFalse(checksums.isValidISBN("978-0306406157"));
+        assertFalse(checksums.isValidISBN((CharSequence) null));
+
+        assertTrue(checksums.isValidISBN(padded("080442957X"), 2, 10));
+        assertTrue(checksums.isValidISBN(padded("9780306406157"), 2, 13));
+        assertFalse(checksums.isValidISBN13(padded("9780306406157"), 2, 12));
+    }
+
+    @Test
+    void byteAndCharValidatorsAgree() {
+        Random random = new Random(42);
+        String alphabet = "0123456789X-";
+        for (int n = 0; n < 20_000; n++) {
+            int length = 9 + random.nextInt(9);
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < length; i++) {
+                // Mostly digits, so a good share of the samples pass
+                text.append(random.nextInt(20) == 0 ? alphabet.charAt(10 + random.nextInt(2)) : alphabet.charAt(random.nextInt(10)));
+            }
+            String s = text.toString();
+            byte[] bytes = padded(s);
+            assertEquals(checksums.isValidLuhn(s), checksums.isValidLuhn(bytes, 2, length), s);
+            assertEquals(checksums.isValidCreditCard(s), checksums.isValidCreditCard(bytes, 2, length), s);
+            assertEquals(checksums.isValidISBN(s), checksums.isValidISBN(bytes, 2, length), s);
+        }
+    }
+
+    @Test
+    void inputUtilsUsesTheSameChecks() {
+        InputUtils input = new InputUtils();
+        assertTrue(input.isValidCreditCard("4539578763621486"));
+        assertTrue(input.isValidISBN("080442957X"));
+        assertFalse(input.isValidISBN13("9780306406158"));
+    }
+}
@@ -0,0 +1,159 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link ColumnarResult} against an in-memory H2 database, with more rows than the initial
+ * capacity of the columns and of their null bitmaps.
+ *
+ * @author Samuel Pestana
+ */
+class ColumnarResultTest {
+
+    private static final int ROWS = 3000;
+
+    private static Connection conn;
+    private static ColumnarResult result;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:columnar", "sa", "");
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE sale (id INT, qty INT, total BIGINT, price DOUBLE, amount DECIMAL(10, 2), status VARCHAR(10))");
+            // Nulls every 7 rows, plus on the edges of the bitmap words and of the initial capacity
+            st.execute("INSERT INTO sale SELECT X,"
+                    + " CASE WHEN MOD(X, 7) = 0 OR X IN (63, 64, 1023, 1024, 2999) THEN NULL ELSE MOD(X * 31, 100) END,"
+                    + " X * 1000000000,"
+                    + " CASE WHEN MOD(X, 5) = 0 THEN NULL ELSE X / 4.0 END,"
+                    + " X / 100.0,"
+                    + " CASE MOD(X, 4) WHEN 0 THEN 'open' WHEN 1 THEN 'closed' WHEN 2 THEN 'held' ELSE NULL END"
+                    + " FROM SYSTEM_RANGE(0, " + (ROWS - 1) + ")");
+            try (ResultSet rs = st.executeQuery("SELECT * FROM sale ORDER BY id")) {
+                result = ColumnarResult.from(rs);
+            }
+        }
+    }
+
+    @AfterAll
+    static void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    private static boolean qtyIsNull(int row) {
+        return row % 7 == 0 || row == 63 || row == 64 || row == 1023 || row == 1024 || row == 2999;
+    }
+
+    @Test
+    void storesEachColumnInItsPrimitiveType() {
+        assertEquals(ROWS, result.getRowCount());
+        assertEquals(6, result.getColumnCount());
+        assertEquals(ColumnarResult.ColumnType.INT, result.getColumnType(1));
+        assertEquals(ColumnarResult.ColumnType.LONG, result.getColumnType(2));
+        assertEquals(ColumnarResult.ColumnType.DOUBLE, result.getColumnType(3));
+        assertEquals(ColumnarResult.ColumnType.DOUBLE, result.getColumnType(4)); // Has decimals
+        assertEquals(ColumnarResult.ColumnType.STRING, result.getColumnType(5));
+        assertEquals(5, result.indexOf("status"));
+        assertEquals(3, result.getDistinctCount(5));
+
+        assertEquals(2_999_000_000_000L, result.getLong(2999, 2));
+        assertEquals(12.34, result.getDouble(1234, 4), 1e-9);
+        assertEquals("held", result.getString(2, 5));
+        assertEquals(Integer.valueOf(31), result.getObject(1, 1));
+        assertThrows(IllegalStateException.class, () -> result.getInt(0, 5));
+        assertThrows(IllegalStateException.class, () -> result.getLong(0, 3));
+    }
+
+    @Test
+    void marksExactlyTheNullValues() {
+        for (int row = 0; row < ROWS; row++) {
+            assertEquals(qtyIsNull(row), result.isNull(row, 1), "row " + row);
+            assertEquals(row % 5 == 0, result.isNull(row, 3), "row " + row);
+            assertEquals(row % 4 == 3, result.isNull(row, 5), "row " + row);
+            assertFalse(result.isNull(row, 2));
+        }
+        assertNull(result.getObject(1024, 1));
+        assertNull(result.getString(3, 5));
+        assertEquals(0, result.getInt(1024, 1));
+    }
+
+    @Test
+    void sortsLikeAStableComparatorWithNullsLast() {
+        for (boolean ascending : new boolean[] {true, false}) {
+            Comparator<Integer> byQty = Comparator.comparingInt(row -> result.getInt(row, 1));
+            Comparator<Integer> order = (a, b) -> {
+                boolean nullA = result.isNull(a, 1);
+                boolean nullB = result.isNull(b, 1);
+                if (nullA || nullB) return nullA == nullB ? 0 : (nullA ? 1 : -1);
+                return ascending ? byQty.compare(a, b) : byQty.compare(b, a);
+            };
+            List<Integer> expected = new ArrayList<>();
+            for (int row = 0; row < ROWS; row++) {
+                expected.add(row);
+            }
+            expected.sort(order); // List.sort is stable too
+            int[] sorted = result.sortedOrder(1, ascending);
+            for (int i = 0; i < ROWS; i++) {
+                assertEquals(expected.get(i).intValue(), sorted[i], "position " + i);
+            }
+        }
+    }
+
+    @Test
+    void sortsByTwoColumnsWhenSortedTwice() {
+        int[] order = result.sortedOrder(result.sortedOrder(0, false), 5, true);
+        String previous = result.getString(order[0], 5);
+        int previousId = result.getInt(order[0], 0);
+        for (int i = 1; i < order.length; i++) {
+            String status = result.getString(order[i], 5);
+            int id = result.getInt(order[i], 0);
+            if (previous == null) {
+                assertNull(status); // Nulls last
+            } else if (previous.equals(status)) {
+                assertTrue(id < previousId); // Ties keep the descending id order
+            } else if (status != null) {
+                assertTrue(previous.compareTo(status) < 0);
+            }
+            previous = status;
+            previousId = id;
+        }
+        assertEquals("closed", result.getString(order[0], 5));
+    }
+
+    @Test
+    void filtersSkipNullValues() {
+        int[] small = result.filterInt(1, qty -> qty < 10);
+        for (int row : small) {
+            assertTrue(!result.isNull(row, 1) && result.getInt(row, 1) < 10);
+        }
+        assertTrue(small.length > 0);
+        assertEquals(0, result.filterInt(1, qty -> qty >= 100).length);
+
+        int expectedZero = 0;
+        for (int row = 0; row < ROWS; row++) {
+            if (!qtyIsNull(row) && result.getInt(row, 1) == 0) expectedZero++;
+        }
+        assertEquals(expectedZero, result.filterInt(1, qty -> qty == 0).length); // Nulls read as 0 but never match
+
+        assertEquals(ROWS / 4, result.filterString(5, "open"::equals).length);
+        assertEquals(ROWS - ROWS / 5, result.filterDouble(3, price -> true).length);
+        assertArrayEquals(new int[] {2999}, result.filterLong(2, total -> total > 2_998_000_000_000L));
+    }
+}
@@ -0,0 +1,205 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link ConnectionPool} against an in-memory H2 database.
+ *
+ * @author Samuel Pestana
+ */
+class ConnectionPoolTest {
+
+    private static final String URL = "jdbc:h2:mem:pool;DB_CLOSE_DELAY=-1";
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ConnectionPool(URL, "sa", "", 1, 3);
+        pool.setWaitTimeoutMillis(200);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void opensTheMinimumNumberOfConnections() {
+        assertEquals(1, pool.getTotalConnections());
+        assertEquals(1, pool.getIdleConnections());
+    }
+
+    @Test
+    void closingABorrowedConnectionReturnsItToThePool() throws SQLException {
+        Connection conn = pool.getConnection();
+        assertNotNull(conn);
+        assertEquals(0, pool.getIdleConnections());
+        conn.close();
+        assertTrue(conn.isClosed());
+        assertEquals(1, pool.getIdleConnections());
+        assertEquals(1, pool.getTotalConnections());
+        assertThrows(SQLException.class, conn::createStatement);
+    }
+
+    @Test
+    void givesUpAfterTheWaitTimeoutWhenExhausted() throws SQLException {
+        Connection a = pool.getConnection();
+        Connection b = pool.getConnection();
+        Connection c = pool.getConnection();
+        assertEquals(3, pool.getTotalConnections());
+        assertNull(pool.getConnection());
+        a.close();
+        b.close();
+        c.close();
+        assertEquals(3, pool.getIdleConnections());
+    }
+
+    @Test
+    void rollsBackTransactionsLeftOpenByTheBorrower() throws SQLException {
+        try (Connection conn = pool.getConnection(); Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS leftover (id INT)");
+            st.execute("DELETE FROM leftover");
+            conn.setAutoCommit(false);
+            st.execute("INSERT INTO leftover VALUES (1)");
+        }
+        try (Connection conn = pool.getConnection(); Statement st = conn.createStatement();
+                ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM leftover")) {
+            assertTrue(conn.getAutoCommit());
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void closesLeftoverStatementsAndResetsTheSession() throws SQLException {
+        Statement leaked;
+        ResultSet open;
+        int isolation;
+        String schema;
+        int holdability;
+        try (Connection conn = pool.getConnection()) {
+            isolation = conn.getTransactionIsolation();
+            schema = conn.getSchema();
+            holdability = conn.getHoldability();
+            leaked = conn.createStatement();
+            open = leaked.executeQuery("SELECT 1");
+            leaked.execute("CREATE SCHEMA IF NOT EXISTS other");
+            conn.setReadOnly(true);
+            conn.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+            conn.setSchema("OTHER");
+            conn.setHoldability(ResultSet.CLOSE_CURSORS_AT_COMMIT);
+        }
+        try (Connection conn = pool.getConnection()) {
+            assertEquals(1, pool.getTotalConnections()); // The same physical connection
+            assertTrue(leaked.isClosed());
+            assertTrue(open.isClosed());
+            assertFalse(conn.isReadOnly());
+            assertEquals(isolation, conn.getTransactionIsolation());
+            assertEquals(schema, conn.getSchema());
+            assertEquals(holdability, conn.getHoldability());
+        }
+    }
+
+    @Test
+    void reusesCachedStatementsAcrossBorrowers() throws SQLException {
+        pool.setStatementCacheSize(8);
+        String sql = "SELECT ? AS pooled_value";
+        for (int i = 0; i < 3; i++) {
+            try (Connection conn = pool.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setInt(1, i);
+                try (ResultSet rs = ps.executeQuery()) {
+                    assertTrue(rs.next());
+                    assertEquals(i, rs.getInt(1));
+                }
+            }
+        }
+        assertEquals(3, DatabaseMetrics.getDefault().getQueryLatency(sql).getCount());
+    }
+
+    @Test
+    void takesBackCachedStatementsTheBorrowerNeverClosed() throws SQLException {
+        pool.setStatementCacheSize(8);
+        String sql = "SELECT ? AS leaked_value";
+        PreparedStatement leaked;
+        try (Connection conn = pool.getConnection()) {
+            leaked = conn.prepareStatement(sql);
+            leaked.setInt(1, 1);
+        }
+        assertTrue(leaked.isClosed());
+        assertThrows(SQLException.class, leaked::executeQuery);
+        try (Connection conn = pool.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, 2);
+            try (ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next());
+                assertEquals(2, rs.getInt(1));
+            }
+        }
+    }
+
+    @Test
+    void statementsReportTheBorrowedConnection() throws SQLException {
+        pool.setStatementCacheSize(8);
+        Connection conn = pool.getConnection();
+        try (Statement st = conn.createStatement();
+                PreparedStatement cached = conn.prepareStatement("SELECT 1");
+                PreparedStatement uncached = conn.prepareStatement("SELECT 1", Statement.RETURN_GENERATED_KEYS)) {
+            assertSame(conn, st.getConnection());
+            assertSame(conn, cached.getConnection());
+            assertSame(conn, uncached.getConnection());
+            st.getConnection().close();
+        }
+        assertTrue(conn.isClosed());
+        assertEquals(1, pool.getIdleConnections());
+        assertEquals(1, pool.getTotalConnections());
+    }
+
+    @Test
+    void warmUpCountsTheConnectionsItOpened() {
+        assertEquals(2, pool.warmUp(3));
+        assertEquals(3, pool.getIdleConnections());
+        assertEquals(0, pool.warmUp(10));
+    }
+
+    @Test
+    void warmUpOfAnUnreachableDatabaseFreesEverySlot() {
+        ConnectionPool broken = new ConnectionPool("jdbc:unknown:nothing", "", "", 0, 4);
+        try {
+            assertEquals(0, broken.warmUp(3));
+            assertEquals(0, broken.getTotalConnections());
+        } finally {
+            broken.close();
+        }
+    }
+
+    @Test
+    void aClosedPoolHandsOutNothing() {
+        pool.close();
+        assertNull(pool.getConnection());
+        assertEquals(-1, pool.warmUp(2));
+    }
+
+    @Test
+    void unwrapReturnsTheBorrowedConnection() throws SQLException {
+        try (Connection conn = pool.getConnection()) {
+            assertSame(conn, conn.unwrap(Connection.class));
+            assertFalse(conn.isClosed());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link CsvImportPipeline} against an in-memory H2 database.
+ *
+ * @author Samuel Pestana
+ */
+class CsvImportPipelineTest {
+
+    @TempDir
+    Path dir;
+
+    private Connection conn;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:csv", "sa", "");
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE customer (id INT PRIMARY KEY, name VARCHAR(50), email VARCHAR(80), born DATE)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = dir.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private CsvImportPipeline pipeline() {
+        CsvImportPipeline pipeline = new CsvImportPipeline(conn, "customer", "id", "name", "email", "born");
+        pipeline.setRule("email", new InputUtils()::isValidEmail);
+        pipeline.setBatchSize(2);
+        return pipeline;
+    }
+
+    private int count(String sql) throws SQLException {
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    void importsValidRowsAndRejectsTheRest() throws IOException, SQLException {
+        Path csv = write("in.csv", "id,name,email,born\r\n"
+                + "1,\"Silva, Ana\",ana@example.com,1990-01-31\r\n"
+                + "2,Rui,not-an-email,1985-05-05\r\n"
+                + "3,Zé\r\n"
+                + "\r\n"
+                + "4,Eva,eva@example.com,2000-02-29\r\n");
+        Path rejects = dir.resolve("rejects.csv");
+        CsvImportResult result = pipeline().run(csv, rejects);
+
+        assertNotNull(result);
+        assertTrue(result.isComplete(), result::toString);
+        assertEquals(4, result.getRowsRead());
+        assertEquals(2, result.getRowsRejected());
+        assertEquals(2, result.getRowsLoaded());
+        assertEquals(0, result.getFailedRows());
+        assertEquals(2, count("SELECT COUNT(*) FROM customer"));
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery("SELECT name FROM customer WHERE id = 1")) {
+            assertTrue(rs.next());
+            assertEquals("Silva, Ana", rs.getString(1));
+        }
+
+        List<String> lines = Files.readAllLines(rejects, StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        assertEquals("id,name,email,born,reject_reason", lines.get(0));
+        assertTrue(lines.get(1).startsWith("2,Rui,not-an-email,1985-05-05,"));
+        assertTrue(lines.get(1).endsWith("invalid email"));
+        assertTrue(lines.get(2).startsWith("3,Zé,"));
+        assertTrue(lines.get(2).endsWith("expected 4 fields but got 2"));
+    }
+
+    @Test
+    void insertsEmptyFieldsAsNull() throws IOException, SQLException {
+        CsvImportPipeline pipeline = new CsvImportPipeline(conn, "customer", "id", "name", "email", "born");
+        pipeline.setHeader(false);
+        CsvImportResult result = pipeline.run(write("in.csv", "1,,,\n"), null);
+        assertEquals(1, result.getRowsLoaded());
+        assertEquals(1, count("SELECT COUNT(*) FROM customer WHERE name IS NULL AND email IS NULL AND born IS NULL"));
+    }
+
+    @Test
+    void countsTheRowsOfRefusedBatchesAsFailed() throws IOException, SQLException {
+        CsvImportResult result = pipeline().run(write("in.csv", "id,name,email,born\n"
+                + "1,A,a@example.com,\n"
+                + "2,B,b@example.com,\n"
+                + "2,C,c@example.com,\n"
+                + "4,D,d@example.com,\n"
+                + "5,E,e@example.com,\n"), null);
+        assertTrue(result.isComplete());
+        assertEquals(5, result.getRowsRead());
+        assertEquals(3, result.getRowsLoaded());
+        assertEquals(2, result.getFailedRows());
+        assertEquals(3, count("SELECT COUNT(*) FROM customer"));
+    }
+
+    @Test
+    void stopsAndReportsAFailingRule() throws IOException, SQLException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 1; i <= 2000; i++) {
+            csv.append(i).append(",n").append(i).append(",x@example.com,\n");
+        }
+        CsvImportPipeline pipeline = pipeline();
+        pipeline.setHeader(false);
+        pipeline.setRule("name", value -> {
+            if (value.toString().equals("n1500")) throw new IllegalStateException("rule failure");
+            return true;
+        });
+        CsvImportResult result = pipeline.run(write("in.csv", csv.toString()), null);
+
+        assertNotNull(result);
+        assertFalse(result.isComplete());
+        assertTrue(result.getFailure() instanceof IllegalStateException);
+        assertTrue(result.getRowsLoaded() < 1500);
+        assertEquals(result.getRowsLoaded(), count("SELECT COUNT(*) FROM customer"));
+        assertTrue(result.toString().contains("stopped by"));
+    }
+
+    @Test
+    void returnsNullWhenTheFileCannotBeOpened() {
+        assertNull(pipeline().run(dir.resolve("missing.csv"), null));
+    }
+}
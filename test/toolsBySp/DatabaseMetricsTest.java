@@ -0,0 +1,121 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link DatabaseMetrics}, on its own and as fed by the pool and the helpers.
+ *
+ * @author Samuel Pestana
+ */
+class DatabaseMetricsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordsQueriesRowsAndErrors() {
+        DatabaseMetrics metrics = new DatabaseMetrics();
+        metrics.recordQuery("SELECT 1", 2_000);
+        metrics.recordQuery("SELECT 1", 4_000);
+        metrics.recordRowsStreamed(500, 1_000_000);
+        metrics.recordError(new SQLException("duplicate", "23505"));
+        metrics.recordError(new SQLException("no state"));
+        metrics.recordConnectionAcquired(10_000);
+
+        assertEquals(2, metrics.getQueryCounts().get("SELECT 1").longValue());
+        assertEquals(3.0, metrics.getQueryMeanMicros().get("SELECT 1"), 1e-9);
+        assertEquals(500, metrics.getRowsStreamed());
+        assertEquals(500_000, metrics.getRowsPerSecond(), 1e-6);
+        assertEquals(1, metrics.getErrorCounts().get("23505").longValue());
+        assertEquals(1, metrics.getErrorCounts().get(DatabaseMetrics.UNKNOWN_SQL_STATE).longValue());
+        assertEquals(1, metrics.getConnectionAcquireCount());
+
+        metrics.reset();
+        assertNull(metrics.getQueryLatency("SELECT 1"));
+        assertEquals(0, metrics.getRowsStreamed());
+        assertTrue(metrics.getErrorCounts().isEmpty());
+    }
+
+    @Test
+    void boundsTheNumberOfTrackedStatements() {
+        DatabaseMetrics metrics = new DatabaseMetrics();
+        for (int i = 0; i < DatabaseMetrics.MAX_TRACKED_STATEMENTS + 10; i++) {
+            metrics.recordQuery("SELECT " + i, 1_000);
+        }
+        assertEquals(DatabaseMetrics.MAX_TRACKED_STATEMENTS + 1, metrics.getQueryCounts().size());
+        assertEquals(10, metrics.getQueryLatency(DatabaseMetrics.OTHER_STATEMENTS).getCount());
+    }
+
+    @Test
+    void recordsNothingWhileDisabled() {
+        DatabaseMetrics metrics = new DatabaseMetrics();
+        metrics.setEnabled(false);
+        metrics.recordQuery("SELECT 1", 1_000);
+        metrics.recordConnectionAcquired(1_000);
+        assertTrue(metrics.getQueryCounts().isEmpty());
+        assertEquals(0, metrics.getConnectionAcquireCount());
+    }
+
+    @Test
+    void notifiesListenersAndIgnoresTheirFailures() {
+        DatabaseMetrics metrics = new DatabaseMetrics();
+        List<String> events = new ArrayList<>();
+        metrics.addListener(new DatabaseListener() {
+            @Override
+            public void queryExecuted(String sql, long nanos) {
+                throw new IllegalStateException("broken listener");
+            }
+        });
+        DatabaseListener recorder = new DatabaseListener() {
+            @Override
+            public void queryExecuted(String sql, long nanos) {
+                events.add(sql);
+            }
+
+            @Override
+            public void error(SQLException e) {
+                events.add(e.getSQLState());
+            }
+        };
+        metrics.addListener(recorder);
+        metrics.recordQuery("SELECT 1", 1_000);
+        metrics.recordError(new SQLException("timeout", "57014"));
+        metrics.removeListener(recorder);
+        metrics.recordQuery("SELECT 2", 1_000);
+
+        assertEquals(2, events.size());
+        assertEquals("SELECT 1", events.get(0));
+        assertEquals("57014", events.get(1));
+        assertEquals(1, metrics.getQueryCounts().get("SELECT 2").longValue());
+    }
+
+    @Test
+    void poolStatementsAreTimedOnceEvenThroughTheHelpers() throws SQLException {
+        DatabaseMetrics metrics = DatabaseMetrics.getDefault();
+        String created = "SELECT 'plain statement' AS metrics_test";
+        String exported = "SELECT 'exported' AS metrics_test";
+        try (ConnectionPool pool = new ConnectionPool("jdbc:h2:mem:metrics", "sa", "", 1, 1)) {
+            long acquired = metrics.getConnectionAcquireCount();
+            try (Connection conn = pool.getConnection(); Statement st = conn.createStatement()) {
+                st.executeQuery(created).close();
+                st.addBatch("SELECT 1");
+                assertEquals(1, new ResultSetExporter().exportCsv(conn, exported, dir.resolve("out.csv")));
+            }
+            assertEquals(acquired + 1, metrics.getConnectionAcquireCount());
+        }
+        assertEquals(1, metrics.getQueryLatency(created).getCount());
+        assertEquals(1, metrics.getQueryLatency(exported).getCount());
+    }
+}
@@ -0,0 +1,74 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link DateFormatterCache}.
+ *
+ * @author Samuel Pestana
+ */
+class DateFormatterCacheTest {
+
+    @Test
+    void returnsTheSameFormatterForTheSamePatternAndLocale() {
+        DateFormatterCache cache = new DateFormatterCache(4);
+        DateTimeFormatter first = cache.get("dd/MM/yyyy", Locale.UK);
+        assertSame(first, cache.get("dd/MM/yyyy", Locale.UK));
+        assertNotSame(first, cache.get("dd/MM/yyyy", Locale.FRANCE));
+        assertEquals(2, cache.size());
+        assertEquals("09/03/2024", first.format(LocalDate.of(2024, 3, 9)));
+    }
+
+    @Test
+    void staysWithinItsMaximumSize() {
+        DateFormatterCache cache = new DateFormatterCache(3);
+        String[] patterns = {"yyyy", "MM", "dd", "yyyy-MM", "MM-dd", "dd/MM"};
+        for (String pattern : patterns) {
+            cache.get(pattern, Locale.ROOT);
+            assertTrue(cache.size() <= 3);
+        }
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void rejectsInvalidPatternsWithoutCachingThem() {
+        DateFormatterCache cache = new DateFormatterCache(4);
+        assertThrows(IllegalArgumentException.class, () -> cache.get("{bad}"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void canBeSharedByManyThreads() throws Exception {
+        DateFormatterCache cache = new DateFormatterCache(8);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                String pattern = i % 2 == 0 ? "dd/MM/yyyy" : "yyyy.MM.dd";
+                results.add(executor.submit(() -> LocalDate.of(2024, 3, 9).format(cache.get(pattern, Locale.ROOT))));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i % 2 == 0 ? "09/03/2024" : "2024.03.09", results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(2, cache.size());
+    }
+}
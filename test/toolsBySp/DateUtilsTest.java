@@ -0,0 +1,88 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link DateUtils} against {@link DateTimeFormatter#ISO_LOCAL_DATE}.
+ *
+ * @author Samuel Pestana
+ */
+class DateUtilsTest {
+
+    private final DateUtils dates = new DateUtils(new DateFormatterCache(8));
+
+    private static LocalDate reference(String text) {
+        try {
+            return LocalDate.parse(text, DateTimeFormatter.ISO_LOCAL_DATE);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    @Test
+    void formatsAndParsesEveryDayLikeTheIsoFormatter() {
+        StringBuilder out = new StringBuilder();
+        for (LocalDate date = LocalDate.of(1896, 1, 1); date.getYear() < 2104; date = date.plusDays(1)) {
+            String iso = date.format(DateTimeFormatter.ISO_LOCAL_DATE);
+            assertEquals(iso, dates.formatIsoDate(date));
+            out.setLength(0);
+            assertEquals(iso, dates.formatIsoDate(date, out).toString());
+            assertEquals(date, dates.parseIsoDate(iso));
+        }
+    }
+
+    @Test
+    void rejectsWhatTheIsoFormatterRejects() {
+        String[] samples = {
+            "2023-02-29", "2024-02-29", "1900-02-29", "2000-02-29", "2023-04-31", "2023-13-01",
+            "2023-00-10", "2023-01-00", "2023-1-01", "2023/01/01", "20a3-01-01", "-2023-01-01",
+            "+10000-01-01", "0000-01-01", "2023-01-01 ", "", "2023-01-32", "９９９９-01-01"
+        };
+        for (String sample : samples) {
+            assertEquals(reference(sample), dates.parseIsoDate(sample), sample);
+            assertEquals(reference(sample) != null, dates.isValidIsoDate(sample), sample);
+        }
+        assertNull(dates.parseIsoDate(null));
+        assertFalse(dates.isValidIsoDate(null));
+    }
+
+    @Test
+    void fallsBackToTheFormatterOutsideFourDigitYears() {
+        for (LocalDate date : new LocalDate[] {LocalDate.of(0, 1, 1), LocalDate.of(-44, 3, 15), LocalDate.of(12345, 6, 7)}) {
+            String iso = date.format(DateTimeFormatter.ISO_LOCAL_DATE);
+            assertEquals(iso, dates.formatIsoDate(date));
+            assertEquals(iso, dates.format(date, "uuuu-MM-dd"));
+            assertEquals(date, dates.parseIsoDate(iso));
+        }
+        // "yyyy" is the year of era, so year 0 is printed as 0001 (BC)
+        assertEquals("0001-01-01", dates.format(LocalDate.of(0, 1, 1), "yyyy-MM-dd"));
+    }
+
+    @Test
+    void formatsOtherPatternsWithCachedFormatters() {
+        LocalDate date = LocalDate.of(2024, 3, 9);
+        assertEquals("09/03/2024", dates.format(date, "dd/MM/yyyy"));
+        Locale portugal = new Locale("pt", "PT"); // Month names differ between the JDK 8 and CLDR locale data
+        String pattern = "d 'de' MMMM 'de' yyyy";
+        assertEquals(date.format(DateTimeFormatter.ofPattern(pattern, portugal)), dates.format(date, pattern, portugal));
+        assertEquals("2024-03-09", dates.format(date, "yyyy-MM-dd", Locale.ROOT));
+        assertThrows(IllegalArgumentException.class, () -> dates.format(date, "bad pattern {"));
+    }
+
+    @Test
+    void inputUtilsFormatsThroughTheSameCache() {
+        assertEquals("2024-03-09", new InputUtils().formatDate(LocalDate.of(2024, 3, 9), "yyyy-MM-dd"));
+        assertTrue(new DateUtils().isValidIsoDate("2024-02-29"));
+    }
+}
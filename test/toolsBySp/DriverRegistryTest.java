@@ -0,0 +1,123 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link DriverRegistry} with the H2 driver on the test class path.
+ *
+ * @author Samuel Pestana
+ */
+class DriverRegistryTest {
+
+    private static final String TEST_URL = "jdbc:toolsbysp-test:db";
+
+    @Test
+    void discoversTheDriversOnTheClassPath() {
+        DriverRegistry registry = new DriverRegistry();
+        assertTrue(registry.discover() >= 1);
+        assertEquals(registry.discover(), registry.discover());
+    }
+
+    @Test
+    void cachesTheDriverOfEachPrefix() throws SQLException {
+        DriverRegistry registry = new DriverRegistry();
+        Driver driver = registry.getDriver("jdbc:h2:mem:registry");
+        assertInstanceOf(org.h2.Driver.class, driver);
+        assertSame(driver, registry.getDriver("jdbc:h2:mem:another"));
+        try (Connection conn = registry.connect("jdbc:h2:mem:registry", "sa", "")) {
+            assertTrue(conn.isValid(1));
+        }
+    }
+
+    @Test
+    void findsNoDriverForUnknownUrls() {
+        DriverRegistry registry = new DriverRegistry();
+        assertNull(registry.getDriver("jdbc:nothing:here"));
+        assertNull(registry.getDriver(null));
+        SQLException e = assertThrows(SQLException.class, () -> registry.connect("jdbc:nothing:here", null, null));
+        assertEquals("08001", e.getSQLState());
+    }
+
+    @Test
+    void findsADriverLoadedAfterDiscovery() throws SQLException {
+        DriverRegistry registry = new DriverRegistry();
+        registry.discover();
+        assertNull(registry.getDriver(TEST_URL));
+        assertTrue(registry.loadDriver(TestDriver.class.getName()));
+        try {
+            assertTrue(registry.loadDriver(TestDriver.class.getName())); // Only loaded once
+            assertSame(TestDriver.instance, registry.getDriver(TEST_URL));
+        } finally {
+            DriverManager.deregisterDriver(TestDriver.instance);
+        }
+        assertFalse(registry.loadDriver("com.example.MissingDriver"));
+        assertFalse(registry.loadDriver(null));
+    }
+
+    /**
+     * A driver that registers itself when its class is loaded, like the drivers that predate service files.
+     */
+    public static final class TestDriver implements Driver {
+        static TestDriver instance;
+
+        static {
+            instance = new TestDriver();
+            try {
+                DriverManager.registerDriver(instance);
+            } catch (SQLException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        @Override
+        public Connection connect(String url, Properties info) {
+            return null;
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith("jdbc:toolsbysp-test:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return Logger.getGlobal();
+        }
+    }
+}
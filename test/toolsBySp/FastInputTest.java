@@ -0,0 +1,96 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link FastInput}, with the smallest buffer so tokens and lines span several reads.
+ *
+ * @author Samuel Pestana
+ */
+class FastInputTest {
+
+    private static FastInput input(String text) {
+        return new FastInput(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8, 16);
+    }
+
+    @Test
+    void parsesIntsIncludingTheLimits() {
+        FastInput in = input("42 -7 +3\n2147483647\t-2147483648");
+        assertEquals(42, in.nextInt());
+        assertEquals(-7, in.nextInt());
+        assertEquals(3, in.nextInt());
+        assertEquals(Integer.MAX_VALUE, in.nextInt());
+        assertEquals(Integer.MIN_VALUE, in.nextInt());
+        assertFalse(in.hasNext());
+        assertThrows(NoSuchElementException.class, in::nextInt);
+    }
+
+    @Test
+    void consumesTokensThatAreNotInts() {
+        FastInput in = input("2147483648 12a - 5");
+        assertThrows(InputMismatchException.class, in::nextInt);
+        assertThrows(InputMismatchException.class, in::nextInt);
+        assertThrows(InputMismatchException.class, in::nextInt);
+        assertEquals(5, in.nextInt());
+    }
+
+    @Test
+    void readsOtherTokenTypes() {
+        FastInput in = input("3.5 -1e3 TRUE false maybe 2.5f");
+        assertEquals(3.5, in.nextDouble());
+        assertEquals(-1000.0, in.nextDouble());
+        assertTrue(in.nextBoolean());
+        assertFalse(in.nextBoolean());
+        assertThrows(InputMismatchException.class, in::nextBoolean);
+        assertEquals(2.5f, in.nextFloat());
+    }
+
+    @Test
+    void mixesTokensAndLinesLikeAScanner() {
+        FastInput in = input("7\r\nJosé da Silva, a name longer than the buffer\r\n\nlast");
+        assertEquals(7, in.nextInt());
+        assertEquals("", in.nextLine()); // The rest of the line holding the number
+        assertEquals("José da Silva, a name longer than the buffer", in.nextLine());
+        assertEquals("", in.nextLine());
+        assertEquals("last", in.nextLine());
+        assertThrows(NoSuchElementException.class, in::nextLine);
+    }
+
+    @Test
+    void skipsTheRestOfALine() {
+        FastInput in = input("bad input here\n12\n");
+        in.skipLine();
+        assertEquals(12, in.nextInt());
+        in.skipLine();
+        in.skipLine(); // Nothing left, does nothing
+        assertFalse(in.hasNext());
+    }
+
+    @Test
+    void promptsSharingOneInputSeeEachOthersLines() {
+        FastInput in = input("12 extra words\nnot a number\nAna Silva\nyes\n");
+        InputUtils prompts = new InputUtils(in);
+        InputUtils others = new InputUtils(in);
+        assertEquals(12, prompts.askForInt());
+        assertEquals(-1, others.askForInt());
+        assertEquals("Ana Silva", prompts.askForString());
+        assertEquals(Boolean.TRUE, others.askForBoolean());
+        assertEquals(-1, prompts.askForInt());
+    }
+
+    @Test
+    void sharesOneStandardInput() {
+        assertSame(FastInput.standardInput(), FastInput.standardInput());
+    }
+}
@@ -0,0 +1,75 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link LatencyHistogram}.
+ *
+ * @author Samuel Pestana
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void reportsCountMeanAndMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getMeanNanos());
+        assertEquals(0, histogram.getPercentileNanos(99));
+        histogram.record(100);
+        histogram.record(300);
+        histogram.record(-5); // Recorded as 0
+        assertEquals(3, histogram.getCount());
+        assertEquals(400 / 3.0, histogram.getMeanNanos(), 1e-9);
+        assertEquals(300, histogram.getMaxNanos());
+    }
+
+    @Test
+    void percentilesAreTheTopOfTheirPowerOfTwoBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1_000); // Bucket [512, 1023]
+        }
+        histogram.record(5_000_000);
+        assertEquals(1_023, histogram.getPercentileNanos(50));
+        assertEquals(1_023, histogram.getPercentileNanos(99));
+        assertEquals(5_000_000, histogram.getPercentileNanos(100)); // Capped at the maximum
+        assertEquals(1_023, histogram.getPercentileNanos(-3));
+    }
+
+    @Test
+    void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getPercentileNanos(50));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxNanos());
+        assertEquals(0, histogram.getPercentileNanos(50));
+    }
+
+    @Test
+    void countsEveryValueRecordedConcurrently() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int base = t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(base * 10_000 + i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(80_000, histogram.getCount());
+        assertEquals(79_999, histogram.getMaxNanos());
+        assertEquals(79_999 / 2.0, histogram.getMeanNanos(), 1e-6);
+    }
+}
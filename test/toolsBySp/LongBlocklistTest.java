@@ -0,0 +1,106 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link LongBlocklist}, with and without its Bloom filter.
+ *
+ * @author Samuel Pestana
+ */
+class LongBlocklistTest {
+
+    @TempDir
+    Path dir;
+
+    private int files; // A new file per build, as a mapped file cannot be truncated on every platform
+
+    private LongBlocklist build(String text, boolean bloomFilter) throws IOException {
+        Path source = dir.resolve("numbers.txt");
+        Path target = dir.resolve("numbers" + files++ + ".bl");
+        Files.write(source, text.getBytes(StandardCharsets.US_ASCII));
+        assertTrue(LongBlocklist.build(source, target) >= 0);
+        return LongBlocklist.open(target, bloomFilter);
+    }
+
+    @Test
+    void keepsLeadingZerosAndSkipsInvalidLines() throws IOException {
+        String text = "0034\r\n34\n34\n12a4\n\n123456789012345678\n99999999999999999\n-5\n007";
+        for (boolean bloomFilter : new boolean[] {false, true}) {
+            LongBlocklist list = build(text, bloomFilter);
+            assertEquals(4, list.size());
+            assertEquals(bloomFilter, list.hasBloomFilter());
+            assertTrue(list.contains("0034"));
+            assertTrue(list.contains("34"));
+            assertTrue(list.contains("99999999999999999"));
+            assertTrue(list.contains("007")); // The last line has no line break
+            assertFalse(list.contains("034"));
+            assertFalse(list.contains("7"));
+            assertFalse(list.contains("12a4"));
+            assertFalse(list.contains("123456789012345678"));
+            assertFalse(list.contains((CharSequence) null));
+            byte[] bytes = "x0034x".getBytes(StandardCharsets.US_ASCII);
+            assertTrue(list.contains(bytes, 1, 4));
+            assertFalse(list.contains(bytes, 0, 4));
+        }
+    }
+
+    @Test
+    void answersLikeAHashSet() throws IOException {
+        Random random = new Random(5);
+        Set<String> numbers = new HashSet<>();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            String number = String.format("%016d", random.nextLong() & 0xFFFFFFFFFFFL);
+            numbers.add(number);
+            text.append(number).append('\n');
+        }
+        for (boolean bloomFilter : new boolean[] {false, true}) {
+            LongBlocklist list = build(text.toString(), bloomFilter);
+            assertEquals(numbers.size(), list.size());
+            for (String number : numbers) {
+                assertTrue(list.contains(number), number);
+            }
+            for (int i = 0; i < 50_000; i++) {
+                String number = String.format("%016d", random.nextLong() & 0xFFFFFFFFFFFL);
+                assertEquals(numbers.contains(number), list.contains(number), number);
+            }
+        }
+    }
+
+    @Test
+    void encodesTextAndBytesAlike() {
+        assertEquals(LongBlocklist.encode("0034"), LongBlocklist.encode("x0034".getBytes(StandardCharsets.US_ASCII), 1, 4));
+        assertEquals(34L << 5 | 4, LongBlocklist.encode("0034"));
+        assertEquals(-1, LongBlocklist.encode(""));
+        assertEquals(-1, LongBlocklist.encode("1-2"));
+        assertEquals(-1, LongBlocklist.encode("123456789012345678"));
+    }
+
+    @Test
+    void handlesEmptyAndInvalidFiles() throws IOException {
+        LongBlocklist empty = build("not a number\n", true);
+        assertEquals(0, empty.size());
+        assertFalse(empty.hasBloomFilter());
+        assertFalse(empty.contains("1"));
+
+        Path bad = dir.resolve("bad.bl");
+        Files.write(bad, new byte[] {1, 2, 3});
+        assertNull(LongBlocklist.open(bad, false));
+        assertNull(LongBlocklist.open(dir.resolve("missing.bl"), false));
+        assertEquals(-1, LongBlocklist.build(dir.resolve("missing.txt"), dir.resolve("out.bl")));
+    }
+}
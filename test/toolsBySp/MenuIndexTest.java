@@ -0,0 +1,92 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link MenuIndex} against plain scans of the labels.
+ *
+ * @author Samuel Pestana
+ */
+class MenuIndexTest {
+
+    private static String[] randomLabels(int count, long seed) {
+        Random random = new Random(seed);
+        String letters = "abcdefghijklmnopqrstuvwxyzAEIOU -çé";
+        String[] labels = new String[count];
+        for (int i = 0; i < count; i++) {
+            char[] label = new char[1 + random.nextInt(20)];
+            for (int j = 0; j < label.length; j++) {
+                label[j] = letters.charAt(random.nextInt(j == 0 ? 26 : letters.length()));
+            }
+            labels[i] = new String(label);
+        }
+        return labels;
+    }
+
+    private static int[] scan(String[] labels, String text, int limit) {
+        String key = text.toLowerCase(Locale.ROOT);
+        List<Integer> found = new ArrayList<>();
+        for (int i = 0; i < labels.length && found.size() < limit; i++) {
+            if (labels[i] != null && labels[i].toLowerCase(Locale.ROOT).contains(key)) found.add(i);
+        }
+        return found.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Test
+    void substringLookupsMatchAScan() {
+        String[] labels = randomLabels(5_000, 1); // Thousands of trigrams, so the table grows
+        MenuIndex index = new MenuIndex(labels);
+        Random random = new Random(2);
+        for (int q = 0; q < 2_000; q++) {
+            String label = labels[random.nextInt(labels.length)];
+            int from = random.nextInt(label.length());
+            String text = label.substring(from, Math.min(label.length(), from + 1 + random.nextInt(6)));
+            if (random.nextBoolean()) text = text.toUpperCase(Locale.ROOT);
+            int limit = 1 + random.nextInt(50);
+            assertArrayEquals(scan(labels, text, limit), index.findBySubstring(text, limit), text);
+        }
+        assertEquals(0, index.findBySubstring("qqqqqq", 10).length);
+    }
+
+    @Test
+    void prefixLookupsAreInAlphabeticalOrder() {
+        String[] labels = {"Settings", "save as", "Search", "Exit", "Save", "select all"};
+        MenuIndex index = new MenuIndex(labels);
+        assertArrayEquals(new int[] {4, 1}, index.findByPrefix("SAV", 10));
+        assertArrayEquals(new int[] {4, 1, 2, 5, 0}, index.findByPrefix("s", 10));
+        assertArrayEquals(new int[] {4, 1}, index.findByPrefix("s", 2));
+        assertArrayEquals(new int[0], index.findByPrefix("x", 10));
+        assertArrayEquals(new int[0], index.findByPrefix(null, 10));
+
+        String[] many = randomLabels(3_000, 3);
+        MenuIndex large = new MenuIndex(many);
+        int[] found = large.findByPrefix("b", Integer.MAX_VALUE);
+        String[] sorted = Arrays.stream(many).map(l -> l.toLowerCase(Locale.ROOT)).filter(l -> l.startsWith("b")).sorted().toArray(String[]::new);
+        assertEquals(sorted.length, found.length);
+        for (int i = 0; i < found.length; i++) {
+            assertEquals(sorted[i], many[found[i]].toLowerCase(Locale.ROOT));
+        }
+    }
+
+    @Test
+    void searchListsPrefixMatchesFirst() {
+        String[] labels = {"Print preview", "Reprint", "Print", "Blueprint", null};
+        MenuIndex index = new MenuIndex(labels);
+        assertEquals(5, index.size());
+        assertArrayEquals(new int[] {2, 0, 1, 3}, index.search("print", 10));
+        assertArrayEquals(new int[] {2, 0, 1}, index.search("PRINT", 3));
+        assertArrayEquals(new int[] {0, 1, 2, 3}, index.findBySubstring("RINT", 10)); // Menu order
+        assertArrayEquals(new int[0], index.search("print", 0));
+        assertNull(index.getLabel(4));
+    }
+}
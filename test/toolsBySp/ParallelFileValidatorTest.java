@@ -0,0 +1,152 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link ParallelFileValidator}, in particular records around the chunk boundaries.
+ *
+ * @author Samuel Pestana
+ */
+class ParallelFileValidatorTest {
+
+    private static final int CHUNK = 4096; // The smallest chunk size
+
+    @TempDir
+    Path dir;
+
+    private final InputUtils input = new InputUtils();
+    private final ChecksumUtils checksums = new ChecksumUtils();
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    private ParallelFileValidator validator() {
+        ParallelFileValidator validator = new ParallelFileValidator(pool);
+        validator.setChunkSize(CHUNK);
+        return validator;
+    }
+
+    private Path write(String text) throws IOException {
+        Path file = dir.resolve("records.txt");
+        Files.write(file, text.getBytes(StandardCharsets.ISO_8859_1));
+        return file;
+    }
+
+    /**
+     * Validates the text line by line on a single thread, returning the valid count followed by the
+     * offsets of the invalid lines.
+     */
+    private long[] expected(String text, String lineEnd) {
+        long[] result = new long[1];
+        int offset = 0;
+        for (String line : text.split(lineEnd, -1)) {
+            if (offset == text.length()) break; // No record after the final line end
+            if (input.isValidPhoneNumberStrict(line)) {
+                result[0]++;
+            } else {
+                result = Arrays.copyOf(result, result.length + 1);
+                result[result.length - 1] = offset;
+            }
+            offset += line.length() + lineEnd.length();
+        }
+        return result;
+    }
+
+    private void assertMatches(String text, String lineEnd) throws IOException {
+        long[] expected = expected(text, lineEnd);
+        ParallelValidationReport report = validator().validate(write(text), input::isValidPhoneNumberStrict);
+        assertEquals(expected[0], report.getValidRecords());
+        assertEquals(expected.length - 1, report.getInvalidRecords());
+        assertArrayEquals(Arrays.copyOfRange(expected, 1, expected.length), report.getInvalidLineOffsets());
+    }
+
+    private static String records(int count, long seed, String lineEnd) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int length = 5 + random.nextInt(12); // 10 to 15 digits are valid
+            for (int j = 0; j < length; j++) {
+                text.append((char) ('0' + random.nextInt(10)));
+            }
+            if (random.nextInt(7) == 0) text.append('x');
+            text.append(lineEnd);
+        }
+        return text.toString();
+    }
+
+    @Test
+    void matchesASequentialScanAcrossManyChunks() throws IOException {
+        assertMatches(records(20_000, 1, "\n"), "\n");
+    }
+
+    @Test
+    void handlesCrlfLineEndings() throws IOException {
+        assertMatches(records(20_000, 2, "\r\n"), "\r\n");
+    }
+
+    @Test
+    void validatesALastLineWithoutALineEnd() throws IOException {
+        String text = records(2_000, 3, "\n") + "12345";
+        ParallelValidationReport report = validator().validate(write(text), input::isValidPhoneNumberStrict);
+        long[] offsets = report.getInvalidLineOffsets();
+        assertEquals(text.length() - 5, offsets[offsets.length - 1]);
+        assertEquals(expected(text + "\n", "\n").length - 1, report.getInvalidRecords());
+    }
+
+    @Test
+    void keepsRecordsWholeWhenALineEndsExactlyOnAChunkBoundary() throws IOException {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < CHUNK * 20) {
+            text.append("0123456789012\n");
+        }
+        // A line feed at CHUNK - 1 makes the first boundary search start exactly at the start of a record
+        String padded = text.substring(0, CHUNK - 1) + "\n" + text.substring(CHUNK);
+        assertMatches(padded, "\n");
+    }
+
+    @Test
+    void validatesALineLongerThanAChunk() throws IOException {
+        char[] digits = new char[CHUNK * 3];
+        Arrays.fill(digits, '7');
+        String text = "0123456789\n" + new String(digits) + "\n0123456789\n";
+        ParallelValidationReport report = validator().validate(write(text), input::isValidPhoneNumberStrict);
+        assertEquals(2, report.getValidRecords());
+        assertArrayEquals(new long[] {11}, report.getInvalidLineOffsets());
+    }
+
+    @Test
+    void checksRawBytesWithAByteRule() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            text.append(i % 2 == 0 ? "4539578763621486" : "4539578763621487").append('\n');
+        }
+        ParallelValidationReport report = validator().validateBytes(write(text.toString()), checksums::isValidCreditCard);
+        assertEquals(2_500, report.getValidRecords());
+        assertEquals(2_500, report.getInvalidRecords());
+        assertEquals(17, report.getInvalidLineOffsets()[0]);
+    }
+
+    @Test
+    void handlesEmptyAndMissingFiles() throws IOException {
+        ParallelValidationReport empty = validator().validate(write(""), input::isValidEmail);
+        assertEquals(0, empty.getTotalRecords());
+        assertNull(validator().validate(dir.resolve("missing.txt"), input::isValidEmail));
+    }
+}
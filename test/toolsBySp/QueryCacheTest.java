@@ -0,0 +1,162 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link QueryCache} against an in-memory H2 database.
+ *
+ * @author Samuel Pestana
+ */
+class QueryCacheTest {
+
+    private static QueryCache invalidatedCache; // Invalidated from inside a query, see Hooks
+
+    private Connection conn;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:querycache", "sa", "");
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE country (code CHAR(2) PRIMARY KEY, name VARCHAR(40), flag BINARY(2))");
+            st.execute("INSERT INTO country VALUES ('PT', 'Portugal', X'0102'), ('ES', 'Spain', X'0304')");
+            st.execute("CREATE ALIAS INVALIDATE_COUNTRY FOR \"toolsBySp.QueryCacheTest$Hooks.invalidateCountry\"");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        conn.close();
+        invalidatedCache = null;
+    }
+
+    /**
+     * Called by H2 while a query runs, to invalidate its tag in the middle of it.
+     * H2 only calls public methods of public classes.
+     */
+    public static final class Hooks {
+        public static int invalidateCountry() {
+            invalidatedCache.invalidate("country");
+            return 1;
+        }
+    }
+
+    private static QueryResult result(int rows, int textLength) {
+        List<Object[]> list = new ArrayList<>();
+        char[] text = new char[textLength];
+        for (int i = 0; i < rows; i++) {
+            list.add(new Object[] {new String(text)});
+        }
+        return new QueryResult(new String[] {"TXT"}, list);
+    }
+
+    @Test
+    void answersRepeatedQueriesFromTheCache() {
+        QueryCache cache = new QueryCache(1 << 20, 60_000);
+        QueryResult first = cache.query(conn, "SELECT name FROM country WHERE code = ?", "PT");
+        assertEquals("Portugal", first.getValue(0, "NAME"));
+        assertSame(first, cache.query(conn, "SELECT name FROM country WHERE code = ?", "PT"));
+        assertEquals("Spain", cache.query(conn, "SELECT name FROM country WHERE code = ?", "ES").getValue(0, 0));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertNull(cache.query(conn, "SELECT * FROM missing"));
+        assertNull(cache.query(null, "SELECT 1"));
+    }
+
+    @Test
+    void sharedResultsCannotBeChangedByTheirCallers() {
+        QueryCache cache = new QueryCache(1 << 20, 60_000);
+        QueryResult result = cache.query(conn, "SELECT code, flag FROM country ORDER BY code");
+        Object[] row = result.getRows().get(0);
+        row[0] = "XX";
+        ((byte[]) row[1])[0] = 9;
+        ((byte[]) result.getValue(0, 1))[1] = 9;
+        assertThrows(UnsupportedOperationException.class, () -> result.getRows().remove(0));
+
+        QueryResult again = cache.query(conn, "SELECT code, flag FROM country ORDER BY code");
+        assertEquals("ES", again.getValue(0, "CODE"));
+        assertArrayEquals(new byte[] {3, 4}, (byte[]) again.getValue(0, "FLAG"));
+    }
+
+    @Test
+    void expiresEntriesAfterTheirTimeToLive() throws InterruptedException {
+        QueryCache cache = new QueryCache(1 << 20, 60_000);
+        cache.put("SELECT 1", null, result(1, 1), 20);
+        assertNotNull(cache.get("SELECT 1"));
+        Thread.sleep(40);
+        assertNull(cache.get("SELECT 1"));
+        assertEquals(1, cache.getExpirations());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+
+        cache.put("SELECT 2", null, result(1, 1), 0); // Nothing to keep
+        assertNull(cache.get("SELECT 2"));
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntriesToStayWithinBudget() {
+        long size = result(10, 100).estimateBytes();
+        QueryCache cache = new QueryCache(size * 3, 60_000);
+        cache.put("a", null, result(10, 100), 60_000);
+        cache.put("b", null, result(10, 100), 60_000);
+        cache.put("c", null, result(10, 100), 60_000);
+        cache.get("a"); // Now b is the least recently used
+        cache.put("d", null, result(10, 100), 60_000);
+
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(size * 3, cache.getBytes());
+
+        cache.put("huge", null, result(100, 100), 60_000); // Over the whole budget, not cached
+        assertNull(cache.get("huge"));
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void invalidatesEveryResultWithATag() {
+        QueryCache cache = new QueryCache(1 << 20, 60_000);
+        cache.queryTagged(conn, "SELECT * FROM country", null, 60_000, "country");
+        cache.queryTagged(conn, "SELECT name FROM country WHERE code = ?", new Object[] {"PT"}, 60_000, "country", "lookup");
+        cache.queryTagged(conn, "SELECT 1", null, 60_000, "lookup");
+
+        assertEquals(2, cache.invalidate("country"));
+        assertEquals(0, cache.invalidate("country"));
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get("SELECT 1"));
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+    }
+
+    @Test
+    void doesNotCacheAResultReadWhileItsTagWasInvalidated() {
+        QueryCache cache = new QueryCache(1 << 20, 60_000);
+        invalidatedCache = cache;
+        String sql = "SELECT name, INVALIDATE_COUNTRY() FROM country WHERE code = 'PT'";
+        QueryResult result = cache.queryTagged(conn, sql, null, 60_000, "country");
+        assertEquals("Portugal", result.getValue(0, 0)); // Still returned to its caller
+        assertNull(cache.get(sql));
+
+        // Another tag being invalidated does not matter
+        String other = "SELECT name, INVALIDATE_COUNTRY() FROM country WHERE code = 'ES'";
+        cache.queryTagged(conn, other, null, 60_000, "currency");
+        assertNotNull(cache.get(other));
+    }
+}
@@ -0,0 +1,120 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link ResultSetExporter} against an in-memory H2 database.
+ *
+ * @author Samuel Pestana
+ */
+class ResultSetExporterTest {
+
+    @TempDir
+    Path dir;
+
+    private Connection conn;
+    private final ResultSetExporter exporter = new ResultSetExporter();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:export", "sa", "");
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE person (id INT PRIMARY KEY, name VARCHAR(50), active BOOLEAN)");
+            st.execute("INSERT INTO person VALUES (1, 'Ana', TRUE), (2, 'Silva, \"Zé\"', FALSE), (3, NULL, NULL)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    void writesRfc4180Csv() throws IOException {
+        Path file = dir.resolve("person.csv");
+        assertEquals(3, exporter.exportCsv(conn, "SELECT * FROM person ORDER BY id", file));
+        String csv = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        assertEquals("ID,NAME,ACTIVE\r\n1,Ana,TRUE\r\n2,\"Silva, \"\"Zé\"\"\",FALSE\r\n3,,\r\n", csv);
+    }
+
+    @Test
+    void keepsEmptyStringsApartFromNullsThroughAnImport() throws IOException, SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE note (id INT PRIMARY KEY, body VARCHAR(20) NOT NULL, extra VARCHAR(20))");
+            st.execute("INSERT INTO note VALUES (1, '', NULL), (2, 'x', ''), (3, '', '')");
+        }
+        Path file = dir.resolve("note.csv");
+        assertEquals(3, exporter.exportCsv(conn, "SELECT * FROM note ORDER BY id", file));
+        assertEquals("ID,BODY,EXTRA\r\n1,\"\",\r\n2,x,\"\"\r\n3,\"\",\"\"\r\n",
+                new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE note_copy AS SELECT * FROM note WITH NO DATA");
+            st.execute("ALTER TABLE note_copy ALTER COLUMN body SET NOT NULL");
+        }
+        CsvImportResult result = new CsvImportPipeline(conn, "note_copy", "id", "body", "extra").run(file, null);
+        assertEquals(3, result.getRowsLoaded());
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery(
+                "SELECT COUNT(*) FROM note n JOIN note_copy c ON c.id = n.id"
+                        + " AND c.body = n.body AND c.extra IS NOT DISTINCT FROM n.extra")) {
+            assertTrue(rs.next());
+            assertEquals(3, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void writesTypedJsonLines() throws IOException {
+        Path file = dir.resolve("person.jsonl");
+        assertEquals(3, exporter.exportJsonLines(conn, "SELECT * FROM person ORDER BY id", file));
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        assertEquals("{\"ID\":1,\"NAME\":\"Ana\",\"ACTIVE\":true}", lines.get(0));
+        assertEquals("{\"ID\":2,\"NAME\":\"Silva, \\\"Zé\\\"\",\"ACTIVE\":false}", lines.get(1));
+        assertEquals("{\"ID\":3,\"NAME\":null,\"ACTIVE\":null}", lines.get(2));
+    }
+
+    @Test
+    void restoresAutoCommitAfterExporting() throws SQLException {
+        assertEquals(3, exporter.exportCsv(conn, "SELECT * FROM person", dir.resolve("a.csv")));
+        assertTrue(conn.getAutoCommit());
+    }
+
+    @Test
+    void leavesTheCallersTransactionOpen() throws SQLException {
+        conn.setAutoCommit(false);
+        try (Statement st = conn.createStatement()) {
+            st.execute("INSERT INTO person VALUES (4, 'Rui', TRUE)");
+        }
+        assertEquals(4, exporter.exportCsv(conn, "SELECT * FROM person", dir.resolve("b.csv")));
+        assertFalse(conn.getAutoCommit());
+        conn.commit();
+        try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM person")) {
+            assertTrue(rs.next());
+            assertEquals(4, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void returnsMinusOneForABadQuery() {
+        assertEquals(-1, exporter.exportCsv(conn, "SELECT * FROM missing", dir.resolve("c.csv")));
+        assertEquals(-1, exporter.exportCsv((Connection) null, "SELECT 1", dir.resolve("d.csv")));
+    }
+}
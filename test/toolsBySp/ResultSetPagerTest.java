@@ -0,0 +1,127 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link ResultSetPager} against an in-memory H2 database.
+ *
+ * @author Samuel Pestana
+ */
+class ResultSetPagerTest {
+
+    private static final String PROMPT = "-- More:";
+
+    private Connection conn;
+    private final StringBuilder out = new StringBuilder();
+    private final ResultSetPager pager = new ResultSetPager(out);
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:pager", "sa", "");
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE line (id INT PRIMARY KEY, txt VARCHAR(200))");
+            for (int i = 1; i <= 6; i++) {
+                st.execute("INSERT INTO line VALUES (" + i + ", 'row " + i + "')");
+            }
+        }
+        pager.setPageSize(3);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    private static FastInput answers(String text) {
+        return new FastInput(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private int prompts() {
+        return out.toString().split(PROMPT, -1).length - 1;
+    }
+
+    @Test
+    void showsEveryRowWithoutInput() {
+        assertEquals(6, pager.browse(conn, "SELECT * FROM line ORDER BY id", null));
+        assertTrue(out.toString().contains("row 6"));
+        assertEquals(0, prompts());
+    }
+
+    @Test
+    void stopsWhenTheUserQuits() {
+        assertEquals(3, pager.browse(conn, "SELECT * FROM line ORDER BY id", answers("q\n")));
+        assertFalse(out.toString().contains("row 4"));
+    }
+
+    @Test
+    void clipsWideValues() throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("UPDATE line SET txt = REPEAT('x', 100) WHERE id = 1");
+        }
+        pager.setMaxColumnWidth(10);
+        pager.browse(conn, "SELECT txt FROM line WHERE id = 1", null);
+        assertTrue(out.toString().contains("xxxxxxx..."));
+        assertFalse(out.toString().contains("xxxxxxxxxxx"));
+    }
+
+    @Test
+    void restoresAutoCommitEvenWhenTheQueryFails() throws SQLException {
+        assertEquals(6, pager.browse(conn, "SELECT * FROM line", null));
+        assertTrue(conn.getAutoCommit());
+        assertEquals(-1, pager.browse(conn, "SELECT * FROM missing", null));
+        assertTrue(conn.getAutoCommit());
+    }
+
+    @Test
+    void leavesTheCallersTransactionOpen() throws SQLException {
+        conn.setAutoCommit(false);
+        try (Statement st = conn.createStatement()) {
+            st.execute("INSERT INTO line VALUES (7, 'row 7')");
+        }
+        assertEquals(7, pager.browse(conn, "SELECT * FROM line", null));
+        assertFalse(conn.getAutoCommit());
+        conn.rollback();
+        assertEquals(6, pager.browse(conn, "SELECT * FROM line", null));
+    }
+
+    @Test
+    void keysetPagingDoesNotAskForAnEmptyPage() {
+        assertEquals(6, pager.browseKeyset(conn, "line", "id, txt", "id", answers("\n\n\n")));
+        assertEquals(1, prompts());
+    }
+
+    @Test
+    void keysetPagingStopsWhenTheUserQuits() {
+        pager.setPageSize(4);
+        assertEquals(4, pager.browseKeyset(conn, "line", "id, txt", "id", answers("q\n")));
+        assertFalse(out.toString().contains("row 5"));
+    }
+
+    @Test
+    void keysetPagingRejectsNullKeys() throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE loose (id INT, txt VARCHAR(10))");
+            st.execute("INSERT INTO loose VALUES (NULL, 'a')");
+        }
+        assertEquals(-1, pager.browseKeyset(conn, "loose", "id, txt", "id", null));
+    }
+
+    @Test
+    void keysetQueryReadsOneRowPastThePage() {
+        assertEquals("SELECT * FROM line WHERE id > ? ORDER BY id LIMIT 4", pager.keysetQuery("line", "*", "id", true));
+        assertEquals("SELECT * FROM line ORDER BY id LIMIT 4", pager.keysetQuery("line", "*", "id", false));
+    }
+}
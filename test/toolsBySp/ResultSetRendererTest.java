@@ -0,0 +1,117 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link ResultSetRenderer} against an in-memory H2 database.
+ *
+ * @author Samuel Pestana
+ */
+class ResultSetRendererTest {
+
+    private static final String NL = System.lineSeparator();
+
+    private Connection conn;
+    private Statement st;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:render", "sa", "");
+        st = conn.createStatement();
+        st.execute("CREATE TABLE pet (id INT, name VARCHAR(4))");
+        st.execute("INSERT INTO pet VALUES (1, 'Rex'), (2, NULL), (3, 'Tom')");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    /**
+     * Wraps a result set so that {@code next()} fails once the given number of rows has been read.
+     */
+    private static ResultSet failingAfter(ResultSet rs, int rows) {
+        int[] read = {0};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("next") && read[0]++ == rows) {
+                        throw new SQLException("Connection lost");
+                    }
+                    try {
+                        return method.invoke(rs, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @Test
+    void rendersAlignedColumnsAndNulls() throws SQLException {
+        StringBuilder out = new StringBuilder();
+        try (ResultSet rs = st.executeQuery("SELECT name FROM pet ORDER BY id")) {
+            assertTrue(new ResultSetRenderer(out).render(rs));
+        }
+        assertEquals("NAME\t" + NL + "----\t" + NL + "Rex \t" + NL + "NULL\t" + NL + "Tom \t" + NL, out.toString());
+    }
+
+    @Test
+    void smallBuffersProduceTheSameOutput() throws SQLException {
+        st.execute("INSERT INTO pet SELECT X + 10, 'P' || X FROM SYSTEM_RANGE(1, 500)");
+        StringBuilder large = new StringBuilder();
+        StringBuilder small = new StringBuilder();
+        try (ResultSet rs = st.executeQuery("SELECT * FROM pet ORDER BY id")) {
+            assertTrue(new ResultSetRenderer(large).render(rs));
+        }
+        try (ResultSet rs = st.executeQuery("SELECT * FROM pet ORDER BY id")) {
+            assertTrue(new ResultSetRenderer(small, 1).render(rs));
+        }
+        assertEquals(large.toString(), small.toString());
+    }
+
+    @Test
+    void returnsFalseForEmptyOrMissingResults() throws SQLException {
+        StringBuilder out = new StringBuilder();
+        try (ResultSet rs = st.executeQuery("SELECT * FROM pet WHERE id < 0")) {
+            assertFalse(new ResultSetRenderer(out).render(rs));
+        }
+        assertFalse(new ResultSetRenderer(out).render(null));
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    void flushesTheRowsReadBeforeAFailure() throws SQLException {
+        StringWriter out = new StringWriter();
+        try (ResultSet rs = st.executeQuery("SELECT name FROM pet ORDER BY id")) {
+            assertFalse(new ResultSetRenderer(out).render(failingAfter(rs, 2)));
+        }
+        assertEquals("NAME\t" + NL + "----\t" + NL + "Rex \t" + NL + "NULL\t" + NL, out.toString());
+    }
+
+    @Test
+    void writesRowsBuiltByTheCaller() throws IOException {
+        StringBuilder out = new StringBuilder();
+        ResultSetRenderer renderer = new ResultSetRenderer(out);
+        int[] widths = {2, 3};
+        renderer.writeHeader(new String[] {"a", "b"}, widths);
+        renderer.writeRow(new String[] {"1", "long"}, widths);
+        assertEquals("", out.toString());
+        renderer.flush();
+        assertEquals("a \tb  \t" + NL + "--\t---\t" + NL + "1 \tlong\t" + NL, out.toString());
+    }
+}
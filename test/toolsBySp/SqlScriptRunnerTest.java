@@ -0,0 +1,133 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link SqlScriptRunner} against an in-memory H2 database.
+ *
+ * @author Samuel Pestana
+ */
+class SqlScriptRunnerTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ConnectionPool("jdbc:h2:mem:scripts;DB_CLOSE_DELAY=-1", "sa", "", 1, 4);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (Connection conn = pool.getConnection(); Statement st = conn.createStatement()) {
+            st.execute("DROP ALL OBJECTS");
+        }
+        pool.close();
+    }
+
+    private int count(String sql) throws SQLException {
+        try (Connection conn = pool.getConnection(); Statement st = conn.createStatement();
+                ResultSet rs = st.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    void splitsOnSemicolonsOutsideQuotesAndComments() {
+        List<String> statements = SqlScriptRunner.splitStatements(
+                "INSERT INTO t VALUES ('a;b'); -- note; here\nSELECT /* ; */ 1;CREATE FUNCTION f() AS $$ x; y $$;");
+        assertEquals(Arrays.asList("INSERT INTO t VALUES ('a;b')", "SELECT /* ; */ 1",
+                "CREATE FUNCTION f() AS $$ x; y $$"), statements);
+    }
+
+    @Test
+    void runsGroupsAfterTheirDependencies() throws SQLException {
+        StringBuilder script = new StringBuilder("-- @group schema\nCREATE TABLE item (id INT PRIMARY KEY);\n");
+        for (int g = 0; g < 6; g++) {
+            script.append("-- @group data").append(g).append("\n-- @depends schema\n")
+                    .append("INSERT INTO item VALUES (").append(g).append(");\n");
+        }
+        script.append("-- @group summary\n-- @depends data0, data5\nCREATE TABLE total AS SELECT COUNT(*) c FROM item;\n");
+
+        SqlScriptRunner runner = new SqlScriptRunner(pool, 3);
+        runner.addScript(script.toString());
+        assertEquals(8, runner.getGroupCount());
+        ScriptResult result = runner.run();
+
+        assertTrue(result.isSuccessful(), result::toString);
+        assertEquals(8, result.getCommittedGroups());
+        assertEquals(8, result.getTimings().size());
+        assertEquals(6, count("SELECT COUNT(*) FROM item"));
+        assertTrue(count("SELECT c FROM total") >= 2);
+    }
+
+    @Test
+    void rollsBackTheFailedGroupAndSkipsItsDependents() throws SQLException {
+        SqlScriptRunner runner = new SqlScriptRunner(pool, 2);
+        runner.addGroup("schema", Arrays.asList("CREATE TABLE item (id INT PRIMARY KEY)", "INSERT INTO item VALUES (1)"));
+        runner.addGroup("bad", Arrays.asList("INSERT INTO item VALUES (2)", "INSERT INTO item VALUES (1)"), "schema");
+        runner.addGroup("after", Arrays.asList("INSERT INTO item VALUES (3)"), "bad");
+        ScriptResult result = runner.run();
+
+        assertFalse(result.isSuccessful());
+        assertEquals("bad", result.getFailedGroup());
+        assertEquals("INSERT INTO item VALUES (1)", result.getFailedSql());
+        assertNotNull(result.getError());
+        assertEquals(1, result.getCommittedGroups());
+        assertEquals(1, count("SELECT COUNT(*) FROM item"));
+    }
+
+    @Test
+    void reportsRuntimeExceptionsInsteadOfHanging() {
+        ConnectionPool broken = new ConnectionPool("jdbc:h2:mem:broken", "sa", "", 0, 1) {
+            @Override
+            public Connection getConnection() {
+                throw new IllegalStateException("pool failure");
+            }
+        };
+        try {
+            SqlScriptRunner runner = new SqlScriptRunner(broken, 2);
+            runner.addGroup("a", Arrays.asList("SELECT 1"));
+            runner.addGroup("b", Arrays.asList("SELECT 1"));
+            ScriptResult result = assertTimeoutPreemptively(Duration.ofSeconds(10), runner::run);
+            assertFalse(result.isSuccessful());
+            assertTrue(result.getError().getCause() instanceof IllegalStateException);
+        } finally {
+            broken.close();
+        }
+    }
+
+    @Test
+    void rejectsUnknownDependenciesAndCycles() {
+        SqlScriptRunner unknown = new SqlScriptRunner(pool, 2);
+        unknown.addGroup("a", Arrays.asList("SELECT 1"), "missing");
+        assertThrows(IllegalStateException.class, unknown::run);
+
+        SqlScriptRunner cycle = new SqlScriptRunner(pool, 2);
+        cycle.addGroup("a", Arrays.asList("SELECT 1"), "b");
+        cycle.addGroup("b", Arrays.asList("SELECT 1"), "a");
+        assertThrows(IllegalStateException.class, cycle::run);
+    }
+
+    @Test
+    void anEmptyRunSucceeds() {
+        assertTrue(new SqlScriptRunner(pool, 2).run().isSuccessful());
+    }
+}
@@ -0,0 +1,162 @@
+package toolsBySp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link StatementCache} against an in-memory H2 database.
+ *
+ * @author Samuel Pestana
+ */
+class StatementCacheTest {
+
+    private Connection conn;
+    private StatementCache cache;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:statements", "sa", "");
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE item (id INT PRIMARY KEY)");
+            st.execute("INSERT INTO item VALUES (1), (2), (3)");
+        }
+        cache = new StatementCache(conn, 2);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        cache.close();
+        conn.close();
+    }
+
+    @Test
+    void reusesAReturnedStatement() throws SQLException {
+        cache.prepare("SELECT id FROM item").close();
+        cache.prepare("SELECT id FROM item").close();
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void handsOutASeparateStatementWhileTheCachedOneIsInUse() throws SQLException {
+        try (PreparedStatement a = cache.prepare("SELECT id FROM item WHERE id = ?");
+                PreparedStatement b = cache.prepare("SELECT id FROM item WHERE id = ?")) {
+            a.setInt(1, 1);
+            b.setInt(1, 2);
+            try (ResultSet ra = a.executeQuery(); ResultSet rb = b.executeQuery()) {
+                assertTrue(ra.next());
+                assertTrue(rb.next());
+                assertEquals(1, ra.getInt(1));
+                assertEquals(2, rb.getInt(1));
+            }
+        }
+        assertEquals(2, cache.getMisses());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedStatement() throws SQLException {
+        PreparedStatement first = cache.prepare("SELECT 1");
+        first.close();
+        cache.prepare("SELECT 2").close();
+        cache.prepare("SELECT 3").close();
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.size());
+        cache.prepare("SELECT 1").close();
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    void restoresTheSettingsOfAReturnedStatement() throws SQLException {
+        PreparedStatement ps = cache.prepare("SELECT id FROM item ORDER BY id");
+        int fetchSize = ps.getFetchSize();
+        ps.setFetchSize(1);
+        ps.setMaxRows(1);
+        ps.setQueryTimeout(5);
+        ResultSet open = ps.executeQuery();
+        ps.close();
+        assertTrue(open.isClosed());
+
+        try (PreparedStatement again = cache.prepare("SELECT id FROM item ORDER BY id")) {
+            assertEquals(1, cache.getHits());
+            assertEquals(0, again.getMaxRows());
+            assertEquals(0, again.getQueryTimeout());
+            assertEquals(fetchSize, again.getFetchSize());
+            int rows = 0;
+            try (ResultSet rs = again.executeQuery()) {
+                while (rs.next()) rows++;
+            }
+            assertEquals(3, rows);
+        }
+    }
+
+    @Test
+    void clearsTheParametersOfAReturnedStatement() throws SQLException {
+        PreparedStatement ps = cache.prepare("SELECT id FROM item WHERE id = ?");
+        ps.setInt(1, 1);
+        ps.close();
+        try (PreparedStatement again = cache.prepare("SELECT id FROM item WHERE id = ?")) {
+            assertThrows(SQLException.class, again::executeQuery);
+        }
+    }
+
+    @Test
+    void aClosedLeaseCannotBeUsed() throws SQLException {
+        PreparedStatement ps = cache.prepare("SELECT 1");
+        ps.close();
+        assertTrue(ps.isClosed());
+        assertThrows(SQLException.class, ps::executeQuery);
+    }
+
+    @Test
+    void releaseAllTakesBackStatementsThatWereNeverClosed() throws SQLException {
+        PreparedStatement leaked = cache.prepare("SELECT id FROM item WHERE id = ?");
+        leaked.setInt(1, 1);
+        cache.releaseAll();
+        assertTrue(leaked.isClosed());
+        assertThrows(SQLException.class, leaked::executeQuery);
+
+        try (PreparedStatement again = cache.prepare("SELECT id FROM item WHERE id = ?")) {
+            assertEquals(1, cache.getHits());
+            again.setInt(1, 2);
+            try (ResultSet rs = again.executeQuery()) {
+                assertTrue(rs.next());
+                assertEquals(2, rs.getInt(1));
+            }
+        }
+        leaked.close(); // Closing a revoked statement late does nothing
+        assertEquals(1, cache.size());
+        cache.prepare("SELECT id FROM item WHERE id = ?").close();
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    void invalidateDropsTheStatementsOfTheSql() throws SQLException {
+        cache.prepare("SELECT id FROM item").close();
+        cache.invalidate("SELECT id FROM item");
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void aClosedCacheRefusesToPrepare() throws SQLException {
+        PreparedStatement inUse = cache.prepare("SELECT 1");
+        cache.close();
+        assertFalse(inUse.isClosed());
+        inUse.close();
+        assertThrows(SQLException.class, () -> cache.prepare("SELECT 1"));
+    }
+}